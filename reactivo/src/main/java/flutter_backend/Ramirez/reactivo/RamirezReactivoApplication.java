@@ -0,0 +1,18 @@
+package flutter_backend.Ramirez.reactivo;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * API reactiva de historias clínicas (WebFlux + R2DBC)
+ * Expone el mismo contrato que /api/historias-clinicas de la aplicación principal sobre la misma base de datos,
+ * sin ocupar un hilo por petición mientras se espera a la base de datos o al cliente
+ */
+@SpringBootApplication
+public class RamirezReactivoApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(RamirezReactivoApplication.class, args);
+	}
+
+}
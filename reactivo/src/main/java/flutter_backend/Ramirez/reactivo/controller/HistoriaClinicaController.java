@@ -0,0 +1,174 @@
+package flutter_backend.Ramirez.reactivo.controller;
+
+import flutter_backend.Ramirez.dto.HistoriaClinicaDTO;
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.dto.RespuestaApi;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
+import flutter_backend.Ramirez.reactivo.service.HistoriaClinicaService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controlador REST reactivo para la gestión de Historias Clínicas
+ * Expone las mismas rutas, respuestas y ETags que el controlador de la aplicación principal
+ */
+@RestController
+@RequestMapping("/api/historias-clinicas")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
+public class HistoriaClinicaController {
+
+    private static final int LIMITE_POR_DEFECTO = 100;
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final HistoriaClinicaService historiaClinicaService;
+
+    /**
+     * GET /api/historias-clinicas?limit={n}&after={histId}
+     * Lista las historias clínicas paginadas por cursor (keyset sobre histId)
+     * Para obtener la página siguiente se envía el nextCursor recibido como after
+     */
+    @GetMapping
+    public Mono<RespuestaApi<List<HistoriaClinicaResponseDTO>>> listarTodas(
+            @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limit,
+            @RequestParam(required = false) Long after) {
+        int limiteEfectivo = Math.min(Math.max(limit, 1), LIMITE_MAXIMO);
+        return historiaClinicaService.listarPagina(after, limiteEfectivo)
+            .map(pagina -> {
+                RespuestaApi<List<HistoriaClinicaResponseDTO>> response = RespuestaApi.lista(
+                    "Historias clínicas obtenidas exitosamente", pagina.getHistorias());
+                response.setNextCursor(pagina.getSiguienteCursor());
+                response.setHasMore(pagina.isHayMas());
+                return response;
+            });
+    }
+
+    /**
+     * GET /api/historias-clinicas/stream
+     * Transmite todas las historias clínicas en formato NDJSON (una historia por línea)
+     * Las filas se leen a medida que el cliente las consume; si se desconecta, la consulta se cancela
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<HistoriaClinicaResponseDTO> streamTodas() {
+        return historiaClinicaService.recorrerTodas();
+    }
+
+    /**
+     * GET /api/historias-clinicas/{id}
+     * Obtiene una historia clínica por su ID
+     * La ETag (versiones de la historia, su paciente y su médico) es la que se envía en If-Match al actualizar
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<RespuestaApi<HistoriaClinicaResponseDTO>>> obtenerPorId(
+            @PathVariable Long id, ServerWebExchange exchange) {
+        // Sin versión la historia no existe: se responde 404 sin ejecutar la consulta del DTO
+        return historiaClinicaService.calcularEtiqueta(id)
+            .switchIfEmpty(Mono.error(() -> new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id)))
+            .flatMap(etag -> {
+                if (exchange.checkNotModified(etag)) {
+                    return Mono.empty();
+                }
+                return historiaClinicaService.obtenerPorId(id)
+                    .map(historia -> ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                        .body(RespuestaApi.exito("Historia clínica encontrada", historia)));
+            });
+    }
+
+    /**
+     * POST /api/historias-clinicas
+     * Registra una nueva historia clínica
+     */
+    @PostMapping
+    public Mono<ResponseEntity<RespuestaApi<HistoriaClinicaResponseDTO>>> registrar(
+            @Valid @RequestBody HistoriaClinicaDTO dto) {
+        return historiaClinicaService.registrar(dto)
+            .map(historiaCreada -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(RespuestaApi.exito("Historia clínica registrada exitosamente", historiaCreada)));
+    }
+
+    /**
+     * PUT /api/historias-clinicas/{id}
+     * Actualiza una historia clínica existente
+     * Con If-Match responde 412 si la versión no es la actual; si otra petición la modifica
+     * al mismo tiempo, la columna de versión hace que responda 409 en lugar de sobrescribirla
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<RespuestaApi<HistoriaClinicaResponseDTO>>> actualizar(
+            @PathVariable Long id,
+            @Valid @RequestBody HistoriaClinicaDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return historiaClinicaService.actualizar(id, dto, ifMatch)
+            .flatMap(historiaActualizada -> historiaClinicaService.calcularEtiqueta(id)
+                .map(etag -> ResponseEntity.ok().eTag(etag)
+                    .body(RespuestaApi.exito("Historia clínica actualizada exitosamente", historiaActualizada))));
+    }
+
+    /**
+     * DELETE /api/historias-clinicas/{id}
+     * Elimina una historia clínica
+     */
+    @DeleteMapping("/{id}")
+    public Mono<RespuestaApi<Void>> eliminar(@PathVariable Long id) {
+        return historiaClinicaService.eliminar(id)
+            .then(Mono.fromSupplier(() -> RespuestaApi.exito("Historia clínica eliminada exitosamente", null)));
+    }
+
+    /**
+     * GET /api/historias-clinicas/paciente/{pacDni}
+     * Busca historias clínicas por DNI del paciente
+     * La ETag se calcula con las versiones de fila; si no cambió se responde 304
+     * sin leer los campos de texto ni serializar las historias
+     */
+    @GetMapping("/paciente/{pacDni}")
+    public Mono<ResponseEntity<RespuestaApi<List<HistoriaClinicaResponseDTO>>>> buscarPorPaciente(
+            @PathVariable String pacDni, ServerWebExchange exchange) {
+        return historiaClinicaService.calcularEtiquetaPorPaciente(pacDni)
+            .flatMap(etag -> {
+                if (exchange.checkNotModified(etag)) {
+                    return Mono.empty();
+                }
+                return historiaClinicaService.buscarPorPaciente(pacDni)
+                    .collectList()
+                    .map(historias -> ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                        .body(RespuestaApi.lista("Historias clínicas del paciente obtenidas exitosamente", historias)));
+            });
+    }
+
+    /**
+     * GET /api/historias-clinicas/medico/{medCmp}
+     * Busca historias clínicas por CMP del médico
+     */
+    @GetMapping("/medico/{medCmp}")
+    public Mono<RespuestaApi<List<HistoriaClinicaResponseDTO>>> buscarPorMedico(@PathVariable String medCmp) {
+        return historiaClinicaService.buscarPorMedico(medCmp)
+            .collectList()
+            .map(historias -> RespuestaApi.lista("Historias clínicas del médico obtenidas exitosamente", historias));
+    }
+
+    /**
+     * GET /api/historias-clinicas/fechas?inicio={fecha}&fin={fecha}
+     * Busca historias clínicas por rango de fechas
+     */
+    @GetMapping("/fechas")
+    public Mono<RespuestaApi<List<HistoriaClinicaResponseDTO>>> buscarPorRangoFechas(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        return historiaClinicaService.buscarPorRangoFechas(inicio, fin)
+            .collectList()
+            .map(historias -> RespuestaApi.lista(
+                "Historias clínicas en el rango de fechas obtenidas exitosamente", historias));
+    }
+}
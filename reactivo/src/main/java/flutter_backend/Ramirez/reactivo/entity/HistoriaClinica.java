@@ -0,0 +1,52 @@
+package flutter_backend.Ramirez.reactivo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Fila de historias_clinicas para R2DBC
+ * A diferencia de la entidad JPA, paciente y médico son solo sus claves: R2DBC no carga relaciones
+ * y las respuestas se leen ya unidas con HistoriaClinicaRepository.SELECT_RESPONSE_DTO
+ */
+@Table("historias_clinicas")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoriaClinica {
+
+    @Id
+    @Column("HIST_Id")
+    private Long histId;
+
+    @Column("PAC_DNI")
+    private String pacDni;
+
+    @Column("MED_Cmp")
+    private String medCmp;
+
+    @Column("HIST_Fecha_Atencion")
+    private LocalDate histFechaAtencion;
+
+    @Column("HIST_Diagnostico")
+    private String histDiagnostico;
+
+    @Column("HIST_Analisis")
+    private String histAnalisis;
+
+    @Column("HIST_Tratamiento")
+    private String histTratamiento;
+
+    /**
+     * Versión de la fila, compartida con la aplicación principal: las actualizaciones la comprueban y la incrementan
+     */
+    @Version
+    @Column("HIST_Version")
+    private Long histVersion;
+}
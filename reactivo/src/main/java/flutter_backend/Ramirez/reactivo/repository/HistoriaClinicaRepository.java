@@ -0,0 +1,92 @@
+package flutter_backend.Ramirez.reactivo.repository;
+
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.reactivo.entity.HistoriaClinica;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Repository reactivo para historias_clinicas
+ * Replica las consultas de HistoriaClinicaRepository de la aplicación principal en SQL: las columnas
+ * se nombran como las propiedades de HistoriaClinicaResponseDTO (hist_id para histId) para proyectar en él
+ */
+@Repository
+public interface HistoriaClinicaRepository extends ReactiveCrudRepository<HistoriaClinica, Long> {
+
+    /**
+     * Consulta base que selecciona directamente las columnas de HistoriaClinicaResponseDTO con un único join
+     */
+    String SELECT_RESPONSE_DTO = "SELECT h.HIST_Id AS hist_id, p.PAC_DNI AS pac_dni, "
+        + "p.PAC_Nombre_Completo AS pac_nombre_completo, p.PAC_Telefono AS pac_telefono, "
+        + "m.MED_Cmp AS med_cmp, m.MED_Nombre_Completo AS med_nombre_completo, m.ESPE_Nombre AS med_especialidad, "
+        + "h.HIST_Fecha_Atencion AS hist_fecha_atencion, h.HIST_Diagnostico AS hist_diagnostico, "
+        + "h.HIST_Analisis AS hist_analisis, h.HIST_Tratamiento AS hist_tratamiento "
+        + "FROM historias_clinicas h JOIN pacientes p ON p.PAC_DNI = h.PAC_DNI JOIN medicos m ON m.MED_Cmp = h.MED_Cmp ";
+
+    String SELECT_VERSIONES = "SELECT h.HIST_Id AS hist_id, h.HIST_Version AS hist_version, "
+        + "p.PAC_Version AS pac_version, m.MED_Version AS med_version "
+        + "FROM historias_clinicas h JOIN pacientes p ON p.PAC_DNI = h.PAC_DNI JOIN medicos m ON m.MED_Cmp = h.MED_Cmp ";
+
+    /**
+     * Obtiene una historia clínica por su ID proyectada directamente en el DTO de respuesta
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE h.HIST_Id = :histId")
+    Mono<HistoriaClinicaResponseDTO> findDtoById(Long histId);
+
+    /**
+     * Obtiene una página de historias clínicas usando paginación por cursor (keyset sobre histId)
+     * @param after ID de la última historia recibida; se devuelven las de ID mayor
+     * @param limit Cantidad máxima de historias a devolver
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE h.HIST_Id > :after ORDER BY h.HIST_Id ASC LIMIT :limit")
+    Flux<HistoriaClinicaResponseDTO> findDtoPaginaDespuesDe(Long after, int limit);
+
+    /**
+     * Recorre todas las historias clínicas ordenadas por ID
+     * Las filas se emiten según la demanda del suscriptor
+     */
+    @Query(SELECT_RESPONSE_DTO + "ORDER BY h.HIST_Id ASC")
+    Flux<HistoriaClinicaResponseDTO> streamDtoTodas();
+
+    /**
+     * Busca las historias clínicas de un paciente, de la más reciente a la más antigua
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE p.PAC_DNI = :pacDni ORDER BY h.HIST_Fecha_Atencion DESC, h.HIST_Id DESC")
+    Flux<HistoriaClinicaResponseDTO> findDtoByPacDni(String pacDni);
+
+    /**
+     * Busca las historias clínicas de un médico, de la más reciente a la más antigua
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE m.MED_Cmp = :medCmp ORDER BY h.HIST_Fecha_Atencion DESC")
+    Flux<HistoriaClinicaResponseDTO> findDtoByMedCmp(String medCmp);
+
+    /**
+     * Busca las historias clínicas atendidas en un rango de fechas, de la más reciente a la más antigua
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE h.HIST_Fecha_Atencion BETWEEN :fechaInicio AND :fechaFin "
+        + "ORDER BY h.HIST_Fecha_Atencion DESC")
+    Flux<HistoriaClinicaResponseDTO> findDtoByFechaAtencionBetween(LocalDate fechaInicio, LocalDate fechaFin);
+
+    /**
+     * Obtiene la versión de una historia y las de su paciente y médico, sin leer los campos de texto
+     */
+    @Query(SELECT_VERSIONES + "WHERE h.HIST_Id = :histId")
+    Mono<VersionesHistoria> findVersionesById(Long histId);
+
+    /**
+     * Obtiene las versiones de las historias de un paciente ordenadas por ID, para la ETag del listado
+     */
+    @Query(SELECT_VERSIONES + "WHERE p.PAC_DNI = :pacDni ORDER BY h.HIST_Id ASC")
+    Flux<VersionesHistoria> findVersionesByPacDni(String pacDni);
+
+    @Query("SELECT COUNT(*) FROM pacientes WHERE PAC_DNI = :pacDni")
+    Mono<Long> countPacientes(String pacDni);
+
+    @Query("SELECT COUNT(*) FROM medicos WHERE MED_Cmp = :medCmp")
+    Mono<Long> countMedicos(String medCmp);
+}
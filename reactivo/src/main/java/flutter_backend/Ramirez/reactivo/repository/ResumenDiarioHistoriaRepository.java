@@ -0,0 +1,32 @@
+package flutter_backend.Ramirez.reactivo.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Mantiene resumen_diario_historias (atenciones por día y médico) con las mismas sentencias
+ * que la aplicación principal, para que las estadísticas incluyan las historias escritas aquí
+ */
+@Repository
+@RequiredArgsConstructor
+public class ResumenDiarioHistoriaRepository {
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Suma (o resta, con cantidad negativa) atenciones al resumen de un día y médico
+     */
+    public Mono<Void> sumarAtenciones(LocalDate fecha, String medCmp, long cantidad) {
+        return databaseClient.sql("INSERT INTO resumen_diario_historias (RES_Fecha, MED_Cmp, RES_Atenciones) "
+                + "VALUES (:fecha, :medCmp, :cantidad) "
+                + "ON DUPLICATE KEY UPDATE RES_Atenciones = RES_Atenciones + :cantidad")
+            .bind("fecha", fecha)
+            .bind("medCmp", medCmp)
+            .bind("cantidad", cantidad)
+            .then();
+    }
+}
@@ -0,0 +1,14 @@
+package flutter_backend.Ramirez.reactivo.repository;
+
+/**
+ * Versiones de fila de una historia y de su paciente y médico, con las que se calcula su ETag
+ */
+public record VersionesHistoria(Long histId, Long histVersion, Long pacVersion, Long medVersion) {
+
+    /**
+     * Tupla [histId, histVersion, pacVersion, medVersion] en el formato de EtiquetasVersion.deVersiones
+     */
+    public Object[] comoTupla() {
+        return new Object[] {histId, histVersion, pacVersion, medVersion};
+    }
+}
@@ -0,0 +1,92 @@
+package flutter_backend.Ramirez.reactivo.service;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+
+/**
+ * Asigna los IDs de las historias clínicas desde historias_clinicas_seq con la misma regla que el
+ * optimizador pooled de Hibernate en la aplicación principal: cada valor leído es el extremo superior
+ * de un bloque de INCREMENTO IDs reservado para este proceso, así ambas aplicaciones pueden insertar
+ * en la misma tabla sin chocar
+ * En H2 se usa la secuencia; en MySQL, la tabla de una fila con que Hibernate la emula
+ */
+@Component
+public class GeneradorIdsHistoria {
+
+    /**
+     * allocationSize de historia_clinica_seq en la entidad HistoriaClinica (y INCREMENT BY de la secuencia)
+     */
+    static final int INCREMENTO = 50;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transaccionPropia;
+    private final boolean secuenciaEmulada;
+
+    private long siguiente = 1;
+    private long maximo = 0;
+
+    public GeneradorIdsHistoria(DatabaseClient databaseClient, ConnectionFactory connectionFactory,
+                                ReactiveTransactionManager transactionManager) {
+        this.databaseClient = databaseClient;
+        // El bloque se reserva en su propia transacción, como hace Hibernate, para no bloquear la fila
+        // de la secuencia hasta el commit de la historia
+        DefaultTransactionDefinition definicion = new DefaultTransactionDefinition(
+            TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transaccionPropia = TransactionalOperator.create(transactionManager, definicion);
+        this.secuenciaEmulada = connectionFactory.getMetadata().getName().toLowerCase().contains("mysql");
+    }
+
+    /**
+     * Siguiente ID libre; solo consulta la base de datos cuando se agota el bloque actual
+     */
+    public Mono<Long> siguiente() {
+        synchronized (this) {
+            if (siguiente <= maximo) {
+                return Mono.just(siguiente++);
+            }
+        }
+        return reservarBloque().map(this::usarBloque);
+    }
+
+    private synchronized long usarBloque(long extremoSuperior) {
+        // Si otra petición reservó un bloque al mismo tiempo, el resto del anterior se descarta:
+        // quedan huecos en los IDs, pero ningún ID se repite
+        siguiente = extremoSuperior - INCREMENTO + 1;
+        maximo = extremoSuperior;
+        return siguiente++;
+    }
+
+    private Mono<Long> reservarBloque() {
+        Mono<Long> valor = secuenciaEmulada ? leerTablaSecuencia() : leerSecuencia();
+        // Hibernate trata el valor inicial (1) como el comienzo del primer bloque y no como su extremo
+        // superior; se descarta para no compartir ese bloque con la aplicación principal
+        return valor.flatMap(extremo -> extremo < INCREMENTO ? reservarBloque() : Mono.just(extremo));
+    }
+
+    private Mono<Long> leerSecuencia() {
+        return databaseClient.sql("SELECT NEXT VALUE FOR historias_clinicas_seq")
+            .map(fila -> fila.get(0, Long.class))
+            .one()
+            .as(transaccionPropia::transactional);
+    }
+
+    private Mono<Long> leerTablaSecuencia() {
+        return databaseClient.sql("SELECT next_val FROM historias_clinicas_seq FOR UPDATE")
+            .map(fila -> fila.get(0, Long.class))
+            .one()
+            .flatMap(actual -> databaseClient.sql(
+                    "UPDATE historias_clinicas_seq SET next_val = :nuevo WHERE next_val = :actual")
+                .bind("nuevo", actual + INCREMENTO)
+                .bind("actual", actual)
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(actual))
+            .as(transaccionPropia::transactional);
+    }
+}
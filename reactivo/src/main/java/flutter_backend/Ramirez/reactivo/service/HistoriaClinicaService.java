@@ -0,0 +1,216 @@
+package flutter_backend.Ramirez.reactivo.service;
+
+import flutter_backend.Ramirez.config.EtiquetasVersion;
+import flutter_backend.Ramirez.dto.HistoriaClinicaDTO;
+import flutter_backend.Ramirez.dto.HistoriaClinicaPaginaDTO;
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.exception.PrecondicionFallidaException;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
+import flutter_backend.Ramirez.reactivo.entity.HistoriaClinica;
+import flutter_backend.Ramirez.reactivo.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.reactivo.repository.ResumenDiarioHistoriaRepository;
+import flutter_backend.Ramirez.reactivo.repository.VersionesHistoria;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Servicio reactivo de historias clínicas
+ * Sigue las mismas reglas que HistoriaClinicaService de la aplicación principal: valida paciente y médico,
+ * mantiene el resumen diario en la misma transacción y usa las versiones de fila para las ETags
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class HistoriaClinicaService {
+
+    /**
+     * Filas que se piden por adelantado a la base de datos al transmitir todas las historias
+     * (el equivalente del fetch size de la aplicación principal)
+     */
+    static final int FILAS_POR_DEMANDA = 500;
+
+    private final HistoriaClinicaRepository historiaClinicaRepository;
+    private final ResumenDiarioHistoriaRepository resumenDiarioHistoriaRepository;
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final GeneradorIdsHistoria generadorIds;
+
+    /**
+     * Obtiene una página de historias clínicas por cursor
+     * @param after ID de la última historia de la página anterior (null para la primera)
+     * @param limit Cantidad de historias por página
+     */
+    @Transactional(readOnly = true)
+    public Mono<HistoriaClinicaPaginaDTO<HistoriaClinicaResponseDTO>> listarPagina(Long after, int limit) {
+        // Se pide un elemento extra para saber si existe una página siguiente
+        return historiaClinicaRepository.findDtoPaginaDespuesDe(after != null ? after : 0L, limit + 1)
+            .collectList()
+            .map(historias -> {
+                boolean hayMas = historias.size() > limit;
+                List<HistoriaClinicaResponseDTO> pagina = hayMas ? historias.subList(0, limit) : historias;
+                Long siguienteCursor = hayMas ? pagina.get(pagina.size() - 1).getHistId() : null;
+                return new HistoriaClinicaPaginaDTO<>(pagina, siguienteCursor, hayMas);
+            });
+    }
+
+    /**
+     * Recorre todas las historias clínicas ordenadas por ID
+     * La lectura avanza al ritmo en que el suscriptor (el cliente HTTP) consume las historias,
+     * con a lo sumo FILAS_POR_DEMANDA filas pedidas por adelantado
+     */
+    @Transactional(readOnly = true)
+    public Flux<HistoriaClinicaResponseDTO> recorrerTodas() {
+        return historiaClinicaRepository.streamDtoTodas().limitRate(FILAS_POR_DEMANDA);
+    }
+
+    /**
+     * Obtiene una historia clínica por su ID
+     */
+    @Transactional(readOnly = true)
+    public Mono<HistoriaClinicaResponseDTO> obtenerPorId(Long id) {
+        return historiaClinicaRepository.findDtoById(id)
+            .switchIfEmpty(Mono.error(() -> new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id)));
+    }
+
+    /**
+     * Registra una nueva historia clínica
+     */
+    public Mono<HistoriaClinicaResponseDTO> registrar(HistoriaClinicaDTO dto) {
+        return validarReferencias(dto)
+            .then(generadorIds.siguiente())
+            .flatMap(id -> {
+                HistoriaClinica historia = new HistoriaClinica();
+                historia.setHistId(id);
+                copiarCampos(dto, historia);
+                if (historia.getHistFechaAtencion() == null) {
+                    historia.setHistFechaAtencion(LocalDate.now());
+                }
+                return r2dbcEntityTemplate.insert(historia);
+            })
+            .flatMap(historia -> resumenDiarioHistoriaRepository
+                .sumarAtenciones(historia.getHistFechaAtencion(), historia.getMedCmp(), 1)
+                .then(obtenerPorId(historia.getHistId())));
+    }
+
+    /**
+     * Actualiza una historia clínica existente
+     * Si se envía If-Match y no coincide con la ETag actual se lanza PrecondicionFallidaException;
+     * si otra transacción la modifica antes, la comprobación de versión produce un
+     * OptimisticLockingFailureException en lugar de sobrescribir el cambio ajeno
+     * @param ifMatch Encabezado If-Match recibido (opcional)
+     */
+    public Mono<HistoriaClinicaResponseDTO> actualizar(Long id, HistoriaClinicaDTO dto, String ifMatch) {
+        return historiaClinicaRepository.findById(id)
+            .switchIfEmpty(Mono.error(() -> new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id)))
+            .flatMap(historia -> calcularEtiqueta(id).flatMap(etagActual -> {
+                if (!EtiquetasVersion.coincide(ifMatch, etagActual)) {
+                    return Mono.error(new PrecondicionFallidaException(
+                        "La historia clínica fue modificada; la versión enviada en If-Match ya no es la actual", etagActual));
+                }
+                return validarReferencias(dto).thenReturn(historia);
+            }))
+            .flatMap(historia -> {
+                LocalDate fechaAnterior = historia.getHistFechaAtencion();
+                String medCmpAnterior = historia.getMedCmp();
+                copiarCampos(dto, historia);
+                return r2dbcEntityTemplate.update(historia)
+                    .flatMap(actualizada -> moverAtencion(fechaAnterior, medCmpAnterior,
+                        actualizada.getHistFechaAtencion(), actualizada.getMedCmp()));
+            })
+            .then(obtenerPorId(id));
+    }
+
+    /**
+     * Elimina una historia clínica
+     */
+    public Mono<Void> eliminar(Long id) {
+        return historiaClinicaRepository.findById(id)
+            .switchIfEmpty(Mono.error(() -> new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id)))
+            .flatMap(historia -> historiaClinicaRepository.delete(historia)
+                .then(resumenDiarioHistoriaRepository.sumarAtenciones(
+                    historia.getHistFechaAtencion(), historia.getMedCmp(), -1)));
+    }
+
+    /**
+     * Busca historias clínicas por DNI del paciente
+     */
+    @Transactional(readOnly = true)
+    public Flux<HistoriaClinicaResponseDTO> buscarPorPaciente(String pacDni) {
+        return historiaClinicaRepository.findDtoByPacDni(pacDni);
+    }
+
+    /**
+     * Busca historias clínicas por CMP del médico
+     */
+    @Transactional(readOnly = true)
+    public Flux<HistoriaClinicaResponseDTO> buscarPorMedico(String medCmp) {
+        return historiaClinicaRepository.findDtoByMedCmp(medCmp);
+    }
+
+    /**
+     * Busca historias clínicas por rango de fechas
+     */
+    @Transactional(readOnly = true)
+    public Flux<HistoriaClinicaResponseDTO> buscarPorRangoFechas(LocalDate fechaInicio, LocalDate fechaFin) {
+        return historiaClinicaRepository.findDtoByFechaAtencionBetween(fechaInicio, fechaFin);
+    }
+
+    /**
+     * Calcula la ETag de una historia clínica sin leer sus campos de texto
+     * Es la misma que calcula la aplicación principal, así un If-Match vale en cualquiera de las dos
+     * @return ETag, o vacío si la historia no existe
+     */
+    @Transactional(readOnly = true)
+    public Mono<String> calcularEtiqueta(Long id) {
+        return historiaClinicaRepository.findVersionesById(id)
+            .map(versiones -> EtiquetasVersion.deVersion(
+                versiones.histVersion(), versiones.pacVersion(), versiones.medVersion()));
+    }
+
+    /**
+     * Calcula la ETag del listado de historias de un paciente a partir de las versiones de fila
+     */
+    @Transactional(readOnly = true)
+    public Mono<String> calcularEtiquetaPorPaciente(String pacDni) {
+        return historiaClinicaRepository.findVersionesByPacDni(pacDni)
+            .map(VersionesHistoria::comoTupla)
+            .collectList()
+            .map(EtiquetasVersion::deVersiones);
+    }
+
+    private Mono<Void> validarReferencias(HistoriaClinicaDTO dto) {
+        Mono<Void> paciente = historiaClinicaRepository.countPacientes(dto.getPacDni())
+            .filter(cantidad -> cantidad > 0)
+            .switchIfEmpty(Mono.error(() -> new RecursoNoEncontradoException("Paciente no encontrado con DNI: " + dto.getPacDni())))
+            .then();
+        Mono<Void> medico = historiaClinicaRepository.countMedicos(dto.getMedCmp())
+            .filter(cantidad -> cantidad > 0)
+            .switchIfEmpty(Mono.error(() -> new RecursoNoEncontradoException("Médico no encontrado con CMP: " + dto.getMedCmp())))
+            .then();
+        return paciente.then(medico);
+    }
+
+    private Mono<Void> moverAtencion(LocalDate fechaAnterior, String medCmpAnterior, LocalDate fechaNueva, String medCmpNuevo) {
+        if (Objects.equals(fechaAnterior, fechaNueva) && Objects.equals(medCmpAnterior, medCmpNuevo)) {
+            return Mono.empty();
+        }
+        return resumenDiarioHistoriaRepository.sumarAtenciones(fechaAnterior, medCmpAnterior, -1)
+            .then(resumenDiarioHistoriaRepository.sumarAtenciones(fechaNueva, medCmpNuevo, 1));
+    }
+
+    private static void copiarCampos(HistoriaClinicaDTO dto, HistoriaClinica historia) {
+        historia.setPacDni(dto.getPacDni());
+        historia.setMedCmp(dto.getMedCmp());
+        historia.setHistFechaAtencion(dto.getHistFechaAtencion());
+        historia.setHistDiagnostico(dto.getHistDiagnostico());
+        historia.setHistAnalisis(dto.getHistAnalisis());
+        historia.setHistTratamiento(dto.getHistTratamiento());
+    }
+}
@@ -0,0 +1,240 @@
+package flutter_backend.Ramirez.reactivo.controller;
+
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.reactivo.service.HistoriaClinicaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que la API reactiva responda como la de la aplicación principal:
+ * envoltura RespuestaApi, ETags con 304 y 412, paginación por cursor, NDJSON y resumen diario
+ */
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class HistoriaClinicaReactivaTest {
+
+	private static final String DNI = "70000001";
+	private static final String CMP = "70001";
+	private static final String TRATAMIENTO = "Reposo e hidratación";
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Autowired
+	private HistoriaClinicaService historiaClinicaService;
+
+	@BeforeEach
+	void preparar() {
+		ejecutar("INSERT INTO pacientes (PAC_DNI, PAC_Nombre, PAC_Apellido_Paterno, PAC_Apellido_Materno, "
+			+ "PAC_Nombre_Completo) VALUES ('" + DNI + "', 'Ana', 'Torres', 'Ríos', 'Ana Torres Ríos')");
+		ejecutar("INSERT INTO medicos (MED_Cmp, MED_Nombre, MED_Apellidos, ESPE_Nombre, MED_Nombre_Completo) "
+			+ "VALUES ('" + CMP + "', 'Luis', 'Paredes Soto', 'Pediatría', 'Luis Paredes Soto')");
+	}
+
+	@AfterEach
+	void limpiar() {
+		ejecutar("DELETE FROM historias_clinicas");
+		ejecutar("DELETE FROM resumen_diario_historias");
+		ejecutar("DELETE FROM medicos");
+		ejecutar("DELETE FROM pacientes");
+	}
+
+	@Test
+	void registrarActualizarYEliminarMantienenEtiquetasYResumen() {
+		Long id = registrar(LocalDate.of(2025, 5, 10), "Faringitis aguda");
+
+		String etag = webTestClient.get().uri("/api/historias-clinicas/{id}", id)
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().cacheControl(CacheControl.noCache())
+			.expectBody()
+			.jsonPath("$.success").isEqualTo(true)
+			.jsonPath("$.data.pacNombreCompleto").isEqualTo("Ana Torres Ríos")
+			.jsonPath("$.data.medNombreCompleto").isEqualTo("Luis Paredes Soto")
+			.jsonPath("$.data.medEspecialidad").isEqualTo("Pediatría")
+			.returnResult().getResponseHeaders().getETag();
+		assertThat(etag).isEqualTo("\"v0.0.0\"");
+
+		webTestClient.get().uri("/api/historias-clinicas/{id}", id)
+			.header(HttpHeaders.IF_NONE_MATCH, etag)
+			.exchange()
+			.expectStatus().isNotModified();
+
+		String cuerpo = "{\"pacDni\":\"" + DNI + "\",\"medCmp\":\"" + CMP + "\",\"histFechaAtencion\":\"2025-05-11\","
+			+ "\"histDiagnostico\":\"Faringitis bacteriana\",\"histTratamiento\":\"" + TRATAMIENTO + "\"}";
+		webTestClient.put().uri("/api/historias-clinicas/{id}", id)
+			.header(HttpHeaders.IF_MATCH, etag)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(cuerpo)
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().valueEquals(HttpHeaders.ETAG, "\"v1.0.0\"")
+			.expectBody()
+			.jsonPath("$.data.histDiagnostico").isEqualTo("Faringitis bacteriana");
+
+		webTestClient.put().uri("/api/historias-clinicas/{id}", id)
+			.header(HttpHeaders.IF_MATCH, etag)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(cuerpo)
+			.exchange()
+			.expectStatus().isEqualTo(412)
+			.expectHeader().valueEquals(HttpHeaders.ETAG, "\"v1.0.0\"");
+
+		assertThat(atenciones(LocalDate.of(2025, 5, 10))).isZero();
+		assertThat(atenciones(LocalDate.of(2025, 5, 11))).isEqualTo(1);
+
+		webTestClient.delete().uri("/api/historias-clinicas/{id}", id)
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody().jsonPath("$.message").isEqualTo("Historia clínica eliminada exitosamente");
+		assertThat(atenciones(LocalDate.of(2025, 5, 11))).isZero();
+
+		webTestClient.get().uri("/api/historias-clinicas/{id}", id)
+			.exchange()
+			.expectStatus().isNotFound()
+			.expectBody().jsonPath("$.message").isEqualTo("Historia clínica no encontrada con ID: " + id);
+	}
+
+	@Test
+	void listadoPorCursorYEtiquetaDelPaciente() {
+		Long primerId = registrar(LocalDate.of(2025, 6, 1), "Control de rutina 1");
+		registrar(LocalDate.of(2025, 6, 2), "Control de rutina 2");
+		registrar(LocalDate.of(2025, 6, 3), "Control de rutina 3");
+
+		webTestClient.get().uri("/api/historias-clinicas?limit=2")
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("$.count").isEqualTo(2)
+			.jsonPath("$.hasMore").isEqualTo(true)
+			.jsonPath("$.nextCursor").isEqualTo(primerId + 1)
+			.jsonPath("$.data[0].histId").isEqualTo(primerId);
+
+		webTestClient.get().uri("/api/historias-clinicas?limit=2&after={after}", primerId + 1)
+			.exchange()
+			.expectBody()
+			.jsonPath("$.count").isEqualTo(1)
+			.jsonPath("$.hasMore").isEqualTo(false)
+			.jsonPath("$.nextCursor").doesNotExist();
+
+		String etag = webTestClient.get().uri("/api/historias-clinicas/paciente/{pacDni}", DNI)
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("$.count").isEqualTo(3)
+			.jsonPath("$.data[0].histFechaAtencion").isEqualTo("2025-06-03")
+			.returnResult().getResponseHeaders().getETag();
+		webTestClient.get().uri("/api/historias-clinicas/paciente/{pacDni}", DNI)
+			.header(HttpHeaders.IF_NONE_MATCH, etag)
+			.exchange()
+			.expectStatus().isNotModified();
+
+		webTestClient.get().uri("/api/historias-clinicas/fechas?inicio=2025-06-02&fin=2025-06-30")
+			.exchange()
+			.expectBody().jsonPath("$.count").isEqualTo(2);
+		webTestClient.get().uri("/api/historias-clinicas/medico/{medCmp}", CMP)
+			.exchange()
+			.expectBody().jsonPath("$.count").isEqualTo(3);
+	}
+
+	@Test
+	void streamEmiteNdjsonSegunLaDemanda() {
+		for (int dia = 1; dia <= 5; dia++) {
+			registrar(LocalDate.of(2025, 7, dia), "Control de rutina " + dia);
+		}
+
+		Flux<HistoriaClinicaResponseDTO> stream = webTestClient.get().uri("/api/historias-clinicas/stream")
+			.accept(MediaType.APPLICATION_NDJSON)
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+			.returnResult(HistoriaClinicaResponseDTO.class)
+			.getResponseBody();
+		StepVerifier.create(stream.map(HistoriaClinicaResponseDTO::getHistDiagnostico))
+			.expectNext("Control de rutina 1", "Control de rutina 2", "Control de rutina 3",
+				"Control de rutina 4", "Control de rutina 5")
+			.verifyComplete();
+
+		// Pedir dos y cancelar termina la lectura sin esperar al resto de filas
+		StepVerifier.create(historiaClinicaService.recorrerTodas(), 2)
+			.expectNextCount(2)
+			.thenCancel()
+			.verify();
+	}
+
+	@Test
+	void peticionesInvalidasRespondenComoLaAplicacionPrincipal() {
+		webTestClient.post().uri("/api/historias-clinicas")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue("{}")
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody()
+			.jsonPath("$.message").isEqualTo("Error de validación")
+			.jsonPath("$.errors").isNotEmpty();
+
+		webTestClient.post().uri("/api/historias-clinicas")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue("{\"pacDni\":\"99999999\",\"medCmp\":\"" + CMP + "\",\"histFechaAtencion\":\"2025-01-01\","
+				+ "\"histDiagnostico\":\"Faringitis aguda\",\"histTratamiento\":\"" + TRATAMIENTO + "\"}")
+			.exchange()
+			.expectStatus().isNotFound()
+			.expectBody().jsonPath("$.message").isEqualTo("Paciente no encontrado con DNI: 99999999");
+
+		webTestClient.get().uri("/api/historias-clinicas/fechas?inicio=2025-01-01")
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody().jsonPath("$.success").isEqualTo(false);
+	}
+
+	private Long registrar(LocalDate fecha, String diagnostico) {
+		AtomicLong id = new AtomicLong();
+		webTestClient.post().uri("/api/historias-clinicas")
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue("{\"pacDni\":\"" + DNI + "\",\"medCmp\":\"" + CMP + "\",\"histFechaAtencion\":\"" + fecha
+				+ "\",\"histDiagnostico\":\"" + diagnostico + "\",\"histTratamiento\":\"" + TRATAMIENTO + "\"}")
+			.exchange()
+			.expectStatus().isCreated()
+			.expectBody()
+			.jsonPath("$.data.histId").value(valor -> id.set(((Number) valor).longValue()));
+		return id.get();
+	}
+
+	private long atenciones(LocalDate fecha) {
+		List<Long> valores = databaseClient.sql("SELECT RES_Atenciones FROM resumen_diario_historias "
+				+ "WHERE RES_Fecha = :fecha AND MED_Cmp = :medCmp")
+			.bind("fecha", fecha)
+			.bind("medCmp", CMP)
+			.map(fila -> fila.get(0, Long.class))
+			.all()
+			.collectList()
+			.block();
+		return valores.isEmpty() ? 0 : valores.get(0);
+	}
+
+	private void ejecutar(String sql) {
+		databaseClient.sql(sql).then().block();
+	}
+}
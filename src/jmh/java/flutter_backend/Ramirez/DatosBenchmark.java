@@ -0,0 +1,63 @@
+package flutter_backend.Ramirez;
+
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+
+import java.time.LocalDate;
+
+/**
+ * Datos de prueba compartidos por los benchmarks JMH
+ * Los textos clínicos se generan con la longitud indicada para simular registros reales
+ */
+public final class DatosBenchmark {
+
+    private static final String TEXTO_BASE = "Paciente refiere dolor torácico opresivo de inicio súbito, "
+        + "irradiado a miembro superior izquierdo, acompañado de diaforesis y náuseas. ";
+
+    private DatosBenchmark() {
+    }
+
+    public static String texto(int longitud) {
+        StringBuilder texto = new StringBuilder(longitud);
+        while (texto.length() < longitud) {
+            texto.append(TEXTO_BASE);
+        }
+        return texto.substring(0, longitud);
+    }
+
+    public static Paciente paciente(int indice) {
+        Paciente paciente = new Paciente();
+        paciente.setPacDni(String.format("%08d", indice));
+        paciente.setPacNombre("María José");
+        paciente.setPacApellidoPaterno("Fernández");
+        paciente.setPacApellidoMaterno("Quispe");
+        paciente.setPacDireccion("Av. Los Próceres 1234, Lima");
+        paciente.setPacTelefono("987654321");
+        // Como al leerlo de la base de datos: con el nombre completo ya guardado
+        paciente.setPacNombreCompleto(paciente.getNombreCompleto());
+        return paciente;
+    }
+
+    public static Medico medico(int indice) {
+        Medico medico = new Medico();
+        medico.setMedCmp(String.format("%05d", indice));
+        medico.setMedNombre("Carlos Alberto");
+        medico.setMedApellidos("Gutiérrez Rojas");
+        medico.setEspeNombre("Cardiología");
+        medico.setMedNombreCompleto(medico.getNombreCompleto());
+        return medico;
+    }
+
+    public static HistoriaClinica historia(long id, int longitudTexto) {
+        HistoriaClinica historia = new HistoriaClinica();
+        historia.setHistId(id);
+        historia.setPaciente(paciente((int) id));
+        historia.setMedico(medico((int) (id % 50)));
+        historia.setHistFechaAtencion(LocalDate.of(2025, 1, 1).plusDays(id % 365));
+        historia.setHistDiagnostico(texto(longitudTexto));
+        historia.setHistAnalisis(texto(longitudTexto));
+        historia.setHistTratamiento(texto(longitudTexto));
+        return historia;
+    }
+}
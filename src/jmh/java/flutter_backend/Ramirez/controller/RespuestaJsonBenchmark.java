@@ -0,0 +1,96 @@
+package flutter_backend.Ramirez.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import flutter_backend.Ramirez.DatosBenchmark;
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.dto.RespuestaApi;
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmark de la serialización con Jackson de la respuesta de los listados de historias clínicas:
+ * el Map success/message/data/count que armaban los controladores frente a RespuestaApi,
+ * con y sin el módulo Blackbird, y el costo adicional de comprimirla con gzip
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RespuestaJsonBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    private int longitudTexto;
+
+    @Param({"1", "100"})
+    private int cantidadHistorias;
+
+    @Param({"estandar", "blackbird"})
+    private String mapper;
+
+    private ObjectMapper objectMapper;
+    private List<HistoriaClinicaResponseDTO> historias;
+
+    @Setup
+    public void preparar() {
+        // Misma configuración base que aplica Spring Boot al ObjectMapper de la aplicación
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (mapper.equals("blackbird")) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        objectMapper = builder.build();
+        historias = new ArrayList<>(cantidadHistorias);
+        for (int i = 0; i < cantidadHistorias; i++) {
+            HistoriaClinica historia = DatosBenchmark.historia(i, longitudTexto);
+            historias.add(new HistoriaClinicaResponseDTO(
+                historia.getHistId(),
+                historia.getPaciente().getPacDni(),
+                historia.getPaciente().getNombreCompleto(),
+                historia.getPaciente().getPacTelefono(),
+                historia.getMedico().getMedCmp(),
+                historia.getMedico().getMedNombre() + " " + historia.getMedico().getMedApellidos(),
+                historia.getMedico().getEspeNombre(),
+                historia.getHistFechaAtencion(),
+                historia.getHistDiagnostico(),
+                historia.getHistAnalisis(),
+                historia.getHistTratamiento()));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarRespuestaMapa() throws Exception {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Historias clínicas obtenidas exitosamente");
+        response.put("data", historias);
+        response.put("count", historias.size());
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializarRespuestaApi() throws Exception {
+        return objectMapper.writeValueAsBytes(
+            RespuestaApi.lista("Historias clínicas obtenidas exitosamente", historias));
+    }
+
+    @Benchmark
+    public byte[] serializarYComprimirGzip() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            objectMapper.writeValue(gzip,
+                RespuestaApi.lista("Historias clínicas obtenidas exitosamente", historias));
+        }
+        return salida.toByteArray();
+    }
+}
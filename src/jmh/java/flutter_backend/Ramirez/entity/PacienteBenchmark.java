@@ -0,0 +1,56 @@
+package flutter_backend.Ramirez.entity;
+
+import flutter_backend.Ramirez.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de los nombres para mostrar de pacientes y médicos
+ * Los pacientes "guardados" leen el nombre completo de su columna; pacienteSinGuardar lo construye
+ * en cada llamada, como se hacía antes de guardarlo (V10)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacienteBenchmark {
+
+    private Paciente paciente;
+    private Paciente pacienteSinApellidoMaterno;
+    private Paciente pacienteSinGuardar;
+    private Medico medico;
+
+    @Setup
+    public void preparar() {
+        paciente = DatosBenchmark.paciente(1);
+        pacienteSinApellidoMaterno = DatosBenchmark.paciente(2);
+        pacienteSinApellidoMaterno.setPacApellidoMaterno(null);
+        pacienteSinApellidoMaterno.setPacNombreCompleto("María José Fernández");
+        pacienteSinGuardar = DatosBenchmark.paciente(3);
+        pacienteSinGuardar.setPacNombreCompleto(null);
+        medico = DatosBenchmark.medico(1);
+    }
+
+    @Benchmark
+    public String getNombreCompleto() {
+        return paciente.getNombreCompleto();
+    }
+
+    @Benchmark
+    public String getNombreCompletoSinApellidoMaterno() {
+        return pacienteSinApellidoMaterno.getNombreCompleto();
+    }
+
+    @Benchmark
+    public String getNombreCompletoSinGuardar() {
+        return pacienteSinGuardar.getNombreCompleto();
+    }
+
+    @Benchmark
+    public String getNombreCompletoConEspecialidad() {
+        return medico.getNombreCompletoConEspecialidad();
+    }
+}
@@ -0,0 +1,64 @@
+package flutter_backend.Ramirez.exception;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del camino "no encontrado": lanzar la excepción a cierta profundidad de pila
+ * y capturarla arriba, como hace el manejador global con una petición por un ID inexistente
+ * Compara la RuntimeException con stack trace que se usaba antes con RecursoNoEncontradoException
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecursoNoEncontradoBenchmark {
+
+    /**
+     * Marcos de pila entre el manejador y el punto donde se lanza; una petición de Spring MVC
+     * que llega al servicio a través de filtros, proxies y el repositorio supera los 100
+     */
+    @Param({"10", "150"})
+    private int profundidad;
+
+    private long id = 1;
+
+    @Benchmark
+    public String runtimeExceptionConPila() {
+        try {
+            lanzarConPila(profundidad, id++);
+            return null;
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    public String excepcionDeDominioSinPila() {
+        try {
+            lanzarSinPila(profundidad, id++);
+            return null;
+        } catch (RecursoNoEncontradoException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static void lanzarConPila(int profundidad, long id) {
+        if (profundidad > 0) {
+            lanzarConPila(profundidad - 1, id);
+            return;
+        }
+        throw new RuntimeException("Historia clínica no encontrada con ID: " + id);
+    }
+
+    private static void lanzarSinPila(int profundidad, long id) {
+        if (profundidad > 0) {
+            lanzarSinPila(profundidad - 1, id);
+            return;
+        }
+        throw new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id);
+    }
+}
@@ -0,0 +1,115 @@
+package flutter_backend.Ramirez.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import flutter_backend.Ramirez.service.AuditoriaService.AlLlenarse;
+import flutter_backend.Ramirez.service.AuditoriaService.Cambio;
+import flutter_backend.Ramirez.service.AuditoriaService.Durabilidad;
+import flutter_backend.Ramirez.service.AuditoriaService.Operacion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del costo de auditar un cambio para el hilo que lo produce, sobre H2 en memoria:
+ * un INSERT por cambio en el momento (lo que agregaría auditar dentro de la transacción),
+ * encolarlo con escritura diferida por lotes y encolarlo esperando la escritura de su lote
+ * Con la cola llena en forma sostenida, el tiempo de registrarAsincrona refleja el rendimiento del escritor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditoriaServiceBenchmark {
+
+    private static final String INSERTAR = "INSERT INTO auditoria_cambios "
+        + "(AUD_Fecha, AUD_Entidad, AUD_Entidad_Id, AUD_Operacion, AUD_Antes, AUD_Despues) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Param({"1", "100", "500"})
+    private int tamanoLote;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ObjectMapper objectMapper;
+    private AuditoriaService auditoria;
+    private Map<String, Object> antes;
+    private Map<String, Object> despues;
+
+    @Setup
+    public void preparar() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:auditoria_benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        Flyway.configure()
+            .dataSource(dataSource)
+            .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+            .load()
+            .migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        auditoria = new AuditoriaService(jdbcTemplate, new DataSourceTransactionManager(dataSource), objectMapper,
+            new SimpleMeterRegistry(), 10_000, tamanoLote, AlLlenarse.BLOQUEAR, Duration.ofSeconds(10),
+            Durabilidad.ASINCRONA, Duration.ofSeconds(10));
+        auditoria.start();
+
+        antes = estadoHistoria("Control de presión arterial");
+        despues = estadoHistoria("Hipertensión arterial estadio 1");
+    }
+
+    @Setup(Level.Iteration)
+    public void vaciarTabla() {
+        jdbcTemplate.update("TRUNCATE TABLE auditoria_cambios");
+    }
+
+    @TearDown
+    public void cerrar() {
+        auditoria.stop();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public int insertarDirecto() throws Exception {
+        return jdbcTemplate.update(INSERTAR, Timestamp.from(Instant.now()), "HistoriaClinica", "1",
+            Operacion.ACTUALIZAR.name(), objectMapper.writeValueAsString(antes), objectMapper.writeValueAsString(despues));
+    }
+
+    @Benchmark
+    public boolean registrarAsincrona() {
+        return auditoria.registrar("HistoriaClinica", 1L, Operacion.ACTUALIZAR, antes, despues);
+    }
+
+    @Benchmark
+    public Void registrarConfirmada() {
+        CompletableFuture<Void> confirmacion = new CompletableFuture<>();
+        auditoria.encolar(new Cambio(Instant.now(), "HistoriaClinica", "1", Operacion.ACTUALIZAR,
+            antes, despues, confirmacion));
+        return confirmacion.join();
+    }
+
+    private static Map<String, Object> estadoHistoria(String diagnostico) {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("histAnalisis", "Presión 150/95 en dos tomas, sin lesión de órgano blanco");
+        estado.put("histDiagnostico", diagnostico);
+        estado.put("histFechaAtencion", LocalDate.of(2025, 3, 14));
+        estado.put("histTratamiento", "Enalapril 10 mg cada 12 horas, control en 30 días");
+        estado.put("histVersion", 2);
+        estado.put("medico", "12345");
+        estado.put("paciente", "45678912");
+        return estado;
+    }
+}
@@ -0,0 +1,35 @@
+package flutter_backend.Ramirez.service;
+
+import flutter_backend.Ramirez.DatosBenchmark;
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de la conversión de entidad a DTO de respuesta en HistoriaClinicaService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoriaClinicaServiceBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    private int longitudTexto;
+
+    private HistoriaClinica historia;
+
+    @Setup
+    public void preparar() {
+        historia = DatosBenchmark.historia(1L, longitudTexto);
+    }
+
+    @Benchmark
+    public HistoriaClinicaResponseDTO convertirAResponseDTO() {
+        return HistoriaClinicaService.convertirAResponseDTO(historia);
+    }
+}
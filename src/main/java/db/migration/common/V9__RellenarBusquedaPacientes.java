@@ -0,0 +1,55 @@
+package db.migration.common;
+
+import flutter_backend.Ramirez.config.TextoBusqueda;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Rellena las columnas de búsqueda de los pacientes existentes (V8)
+ * Se hace en Java para aplicar exactamente la misma normalización que la entidad Paciente:
+ * quitar tildes en SQL depende del motor y de la intercalación de cada columna
+ * Recorre la tabla por DNI en bloques para no cargarla entera en memoria
+ */
+public class V9__RellenarBusquedaPacientes extends BaseJavaMigration {
+
+    private static final int TAMANO_BLOQUE = 1000;
+
+    private static final String LEER_BLOQUE = "SELECT PAC_DNI, PAC_Nombre, PAC_Apellido_Paterno, PAC_Apellido_Materno "
+        + "FROM pacientes WHERE PAC_DNI > ? ORDER BY PAC_DNI LIMIT " + TAMANO_BLOQUE;
+
+    private static final String ACTUALIZAR = "UPDATE pacientes SET PAC_Nombre_Busqueda = ?, "
+        + "PAC_Apellido_Paterno_Busqueda = ?, PAC_Apellido_Materno_Busqueda = ? WHERE PAC_DNI = ?";
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection conexion = context.getConnection();
+        try (PreparedStatement lectura = conexion.prepareStatement(LEER_BLOQUE);
+             PreparedStatement actualizacion = conexion.prepareStatement(ACTUALIZAR)) {
+            String ultimoDni = "";
+            int leidos;
+            do {
+                leidos = 0;
+                lectura.setString(1, ultimoDni);
+                try (ResultSet filas = lectura.executeQuery()) {
+                    while (filas.next()) {
+                        ultimoDni = filas.getString(1);
+                        actualizacion.setString(1, TextoBusqueda.normalizar(filas.getString(2)));
+                        actualizacion.setString(2, TextoBusqueda.normalizar(filas.getString(3)));
+                        actualizacion.setString(3, TextoBusqueda.normalizar(filas.getString(4)));
+                        actualizacion.setString(4, ultimoDni);
+                        actualizacion.addBatch();
+                        leidos++;
+                    }
+                }
+                if (leidos > 0) {
+                    actualizacion.executeBatch();
+                }
+            } while (leidos == TAMANO_BLOQUE);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package flutter_backend.Ramirez.config;
+
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.core.StopFilterFactory;
+import org.apache.lucene.analysis.es.SpanishLightStemFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+/**
+ * Configuración del analizador de texto en español para el índice de búsqueda
+ * Elimina palabras vacías, quita tildes (diagnóstico y diagnostico coinciden)
+ * y reduce las palabras a su raíz (neumonía y neumonías coinciden)
+ * Se registra en hibernate.search.backend.analysis.configurer
+ */
+public class AnalizadorEspanolConfigurer implements LuceneAnalysisConfigurer {
+
+    public static final String ANALIZADOR_ESPANOL = "espanol";
+
+    @Override
+    public void configure(LuceneAnalysisConfigurationContext context) {
+        context.analyzer(ANALIZADOR_ESPANOL).custom()
+            .tokenizer(StandardTokenizerFactory.class)
+            .tokenFilter(LowerCaseFilterFactory.class)
+            .tokenFilter(StopFilterFactory.class)
+                .param("words", "org/apache/lucene/analysis/snowball/spanish_stop.txt")
+                .param("format", "snowball")
+                .param("ignoreCase", "true")
+            .tokenFilter(ASCIIFoldingFilterFactory.class)
+            .tokenFilter(SpanishLightStemFilterFactory.class);
+    }
+}
@@ -0,0 +1,122 @@
+package flutter_backend.Ramirez.config;
+
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.service.AuditoriaService;
+import flutter_backend.Ramirez.service.AuditoriaService.Operacion;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Captura los cambios de historias clínicas, pacientes y médicos después de confirmarse la transacción
+ * y los entrega a AuditoriaService; si la transacción se revierte no se audita nada
+ * Las instantáneas se arman en el hilo de la petición solo con valores inmutables (las asociaciones
+ * se reemplazan por su ID y las colecciones se omiten) para que el escritor las serialice sin la sesión
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditoriaListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final Set<Class<?>> ENTIDADES_AUDITADAS = Set.of(HistoriaClinica.class, Paciente.class, Medico.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final AuditoriaService auditoriaService;
+
+    private PersistenceUnitUtil persistenceUnitUtil;
+
+    @PostConstruct
+    void registrar() {
+        persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+        EventListenerRegistry registro = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .requireService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return ENTIDADES_AUDITADAS.contains(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityPersister persister = event.getPersister();
+        auditoriaService.registrar(nombre(persister), event.getId(), Operacion.CREAR,
+            null, instantanea(persister, event.getState()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityPersister persister = event.getPersister();
+        auditoriaService.registrar(nombre(persister), event.getId(), Operacion.ACTUALIZAR,
+            instantanea(persister, event.getOldState()), instantanea(persister, event.getState()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        EntityPersister persister = event.getPersister();
+        auditoriaService.registrar(nombre(persister), event.getId(), Operacion.ELIMINAR,
+            instantanea(persister, event.getDeletedState()), null);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Transacción revertida: no hay cambio que auditar
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Transacción revertida: no hay cambio que auditar
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Transacción revertida: no hay cambio que auditar
+    }
+
+    private static String nombre(EntityPersister persister) {
+        return persister.getMappedClass().getSimpleName();
+    }
+
+    private Map<String, Object> instantanea(EntityPersister persister, Object[] estado) {
+        if (estado == null) {
+            return null;
+        }
+        String[] propiedades = persister.getPropertyNames();
+        Type[] tipos = persister.getPropertyTypes();
+        Map<String, Object> valores = new LinkedHashMap<>();
+        for (int i = 0; i < propiedades.length; i++) {
+            if (tipos[i].isCollectionType()) {
+                continue;
+            }
+            Object valor = estado[i];
+            if (valor != null && tipos[i].isEntityType()) {
+                valor = persistenceUnitUtil.getIdentifier(valor);
+            }
+            valores.put(propiedades[i], valor);
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,71 @@
+package flutter_backend.Ramirez.config;
+
+import flutter_backend.Ramirez.service.AuditoriaService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Con clinica.auditoria.durabilidad=CONFIRMADA, las peticiones que modifican datos terminan después de
+ * que sus cambios se escribieron en auditoria_cambios
+ * La espera se hace aquí y no al confirmar la transacción porque aquí la petición ya devolvió su conexión
+ * al pool, que el escritor de auditoría necesita para escribir el lote
+ *
+ * La respuesta se retiene en memoria hasta saber el resultado: si algún cambio se descartó con la cola llena
+ * o no se escribió a tiempo, el cliente recibe 503 en lugar de la respuesta del controlador.
+ * Va antes que IdempotenciaFilter para que un reintento con la misma Idempotency-Key reciba la respuesta
+ * guardada en lugar de repetir unos cambios que ya están confirmados
+ */
+@Component
+@ConditionalOnProperty(name = "clinica.auditoria.durabilidad", havingValue = "CONFIRMADA")
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class ConfirmacionAuditoriaFilter extends OncePerRequestFilter {
+
+    private static final Set<String> METODOS_LECTURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final AuditoriaService auditoriaService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || METODOS_LECTURA.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        auditoriaService.abrirConfirmaciones();
+        try {
+            filterChain.doFilter(request, respuesta);
+        } finally {
+            if (!auditoriaService.esperarConfirmaciones()) {
+                respuesta.reset();
+                responder(respuesta, HttpStatus.SERVICE_UNAVAILABLE,
+                    "Los cambios se guardaron, pero no se pudo confirmar su registro de auditoría");
+            }
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    private static void responder(HttpServletResponse response, HttpStatus estado, String mensaje) throws IOException {
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"success\":false,\"message\":\"" + mensaje + "\"}");
+    }
+}
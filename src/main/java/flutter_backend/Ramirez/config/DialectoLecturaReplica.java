@@ -0,0 +1,32 @@
+package flutter_backend.Ramirez.config;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * HibernateJpaDialect que impide que lo leído de la réplica llene la caché de segundo nivel de entidades
+ * Las transacciones de solo lectura fuera de una petición de escritura pueden ir a la réplica, cuyos datos
+ * pueden estar atrasados: su sesión consulta la caché pero no guarda en ella lo que carga (CacheStoreMode.BYPASS).
+ * Se decide al iniciar la transacción, antes de saber si el retraso permitirá usar la réplica, así que mientras
+ * esté atrasada tampoco guardan lo que leen de la primaria
+ * La caché de consultas guarda los resultados aun con este modo: las consultas cacheables se ejecutan fuera
+ * de la transacción, contra la primaria (MedicoRepository.findByEspeNombre)
+ */
+public class DialectoLecturaReplica extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws SQLException {
+        Object datos = super.beginTransaction(entityManager, definition);
+        if (definition.isReadOnly() && !PeticionEscrituraFilter.enPeticionDeEscritura()) {
+            // Como propiedad JPA y no con Session.setCacheMode: las consultas toman de ahí su modo de caché
+            entityManager.setProperty(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        }
+        return datos;
+    }
+}
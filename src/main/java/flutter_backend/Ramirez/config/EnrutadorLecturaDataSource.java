@@ -0,0 +1,33 @@
+package flutter_backend.Ramirez.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSource de las conexiones de solo lectura: la réplica si está al día y la petición no modifica
+ * datos, la primaria en cualquier otro caso
+ * Se consulta al obtener la conexión física, es decir, al ejecutar la primera sentencia de la transacción
+ */
+public class EnrutadorLecturaDataSource extends AbstractRoutingDataSource {
+
+    enum Destino { PRIMARIA, REPLICA }
+
+    private final MonitorRetrasoReplica monitor;
+
+    public EnrutadorLecturaDataSource(DataSource primaria, DataSource replica, MonitorRetrasoReplica monitor) {
+        this.monitor = monitor;
+        setTargetDataSources(Map.of(Destino.PRIMARIA, primaria, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primaria);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (PeticionEscrituraFilter.enPeticionDeEscritura() || !monitor.isReplicaDisponible()) {
+            return Destino.PRIMARIA;
+        }
+        return Destino.REPLICA;
+    }
+}
@@ -0,0 +1,80 @@
+package flutter_backend.Ramirez.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Construye ETags a partir de las versiones de fila (@Version) en lugar de
+ * calcular un hash del cuerpo serializado de la respuesta
+ */
+public final class EtiquetasVersion {
+
+    private EtiquetasVersion() {
+    }
+
+    /**
+     * ETag de un único recurso: su versión de fila, seguida de las versiones de las filas
+     * relacionadas cuyos datos forman parte de la representación
+     */
+    public static String deVersion(Long... versiones) {
+        return Arrays.stream(versiones)
+            .map(String::valueOf)
+            .collect(Collectors.joining(".", "v", ""));
+    }
+
+    /**
+     * Compara un encabezado If-Match con la ETag actual usando comparación fuerte
+     * @param ifMatch Valor del encabezado (puede ser null, "*" o una lista de ETags)
+     * @param etagActual ETag actual del recurso, sin comillas
+     * @return true si no hay encabezado, si es "*" o si alguna ETag coincide
+     */
+    public static boolean coincide(String ifMatch, String etagActual) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String etag : ifMatch.split(",")) {
+            String valor = etag.trim();
+            if (valor.startsWith("W/")) {
+                // Las ETags débiles nunca coinciden en la comparación fuerte
+                continue;
+            }
+            if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+                valor = valor.substring(1, valor.length() - 1);
+            }
+            if (valor.equals(etagActual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ETag de un listado: resumen de los identificadores y versiones de sus elementos,
+     * de modo que cambia al modificar, agregar o quitar cualquiera de ellos
+     * @param versiones Tuplas de identificador y versiones en un orden estable
+     */
+    public static String deVersiones(List<Object[]> versiones) {
+        MessageDigest resumen = crearResumen();
+        for (Object[] fila : versiones) {
+            for (Object valor : fila) {
+                resumen.update(String.valueOf(valor).getBytes(StandardCharsets.UTF_8));
+                resumen.update((byte) '|');
+            }
+            resumen.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(resumen.digest(), 0, 16);
+    }
+
+    private static MessageDigest crearResumen() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package flutter_backend.Ramirez.config;
+
+import flutter_backend.Ramirez.service.IdempotenciaService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hace idempotentes los POST de creación que traen la cabecera Idempotency-Key
+ * La primera petición con una clave se ejecuta y su respuesta queda guardada en IdempotenciaService;
+ * un reintento con la misma clave y el mismo cuerpo recibe esa respuesta (con Idempotent-Replayed: true)
+ * sin llegar al controlador, de modo que un cliente que no recibió la respuesta puede reintentar sin duplicar
+ * Mientras la primera sigue en curso los reintentos reciben 409, y la misma clave con otro cuerpo 422.
+ * Las respuestas 5xx no se guardan: la clave se libera para que el reintento vuelva a ejecutarse.
+ * El cuerpo se lee completo para calcular su huella, por eso se rechazan con 413 los mayores que tamano-maximo-cuerpo.
+ */
+@Component
+@ConditionalOnProperty(name = "clinica.idempotencia.habilitado", havingValue = "true", matchIfMissing = true)
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA_CLAVE = "Idempotency-Key";
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    /**
+     * Cabeceras de la respuesta que no se guardan: las calcula el servidor en cada respuesta
+     * (longitud, codificación, fecha) o dependen de la petición (CORS, Vary)
+     */
+    private static final Set<String> CABECERAS_NO_GUARDADAS = Set.of(
+        "content-type", "content-length", "transfer-encoding", "connection", "keep-alive", "date", "vary");
+
+    private final IdempotenciaService idempotenciaService;
+    private final List<String> rutas;
+    private final int tamanoMaximoCuerpo;
+
+    public IdempotenciaFilter(
+            IdempotenciaService idempotenciaService,
+            @Value("${clinica.idempotencia.rutas:/api/historias-clinicas,/api/pacientes,/api/medicos}") List<String> rutas,
+            @Value("${clinica.idempotencia.tamano-maximo-cuerpo:1MB}") DataSize tamanoMaximoCuerpo) {
+        this.idempotenciaService = idempotenciaService;
+        this.rutas = rutas;
+        this.tamanoMaximoCuerpo = Math.toIntExact(tamanoMaximoCuerpo.toBytes());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+            || request.getHeader(CABECERA_CLAVE) == null
+            || !rutas.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clave = request.getHeader(CABECERA_CLAVE).trim();
+        if (clave.isEmpty() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            responder(response, HttpStatus.BAD_REQUEST,
+                "La cabecera " + CABECERA_CLAVE + " debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+            return;
+        }
+
+        // Se lee como máximo un byte más del límite: basta para saber que lo supera
+        byte[] cuerpo = request.getContentLengthLong() > tamanoMaximoCuerpo
+            ? null
+            : request.getInputStream().readNBytes(tamanoMaximoCuerpo + 1);
+        if (cuerpo == null || cuerpo.length > tamanoMaximoCuerpo) {
+            responder(response, HttpStatus.PAYLOAD_TOO_LARGE, "El cuerpo de una petición con " + CABECERA_CLAVE
+                + " no puede superar los " + tamanoMaximoCuerpo + " bytes");
+            return;
+        }
+        String huella = huella(cuerpo);
+        String alcance = request.getMethod() + " " + request.getRequestURI();
+
+        IdempotenciaService.Reserva reserva = idempotenciaService.reservar(alcance, clave, huella);
+        switch (reserva.estado()) {
+            case REPETIDA -> repetir(response, reserva.respuesta());
+            case EN_CURSO -> responder(response, HttpStatus.CONFLICT,
+                "Ya hay una petición en curso con esta " + CABECERA_CLAVE + "; reintente en unos segundos");
+            case CLAVE_REUTILIZADA -> responder(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                "La " + CABECERA_CLAVE + " ya se usó con otro cuerpo de petición");
+            case NUEVA -> ejecutar(new CuerpoLeido(request, cuerpo), response, filterChain, alcance, clave, huella);
+        }
+    }
+
+    private void ejecutar(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                          String alcance, String clave, String huella) throws ServletException, IOException {
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        boolean guardada = false;
+        try {
+            filterChain.doFilter(request, respuesta);
+            if (respuesta.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                idempotenciaService.guardar(alcance, clave, huella, new IdempotenciaService.Respuesta(
+                    respuesta.getStatus(), respuesta.getContentType(), cabeceras(respuesta),
+                    respuesta.getContentAsByteArray()));
+                guardada = true;
+            }
+        } finally {
+            if (!guardada) {
+                idempotenciaService.liberar(alcance, clave);
+            }
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    private static void repetir(HttpServletResponse response, IdempotenciaService.Respuesta guardada) throws IOException {
+        response.setStatus(guardada.estado());
+        guardada.cabeceras().forEach((nombre, valores) -> valores.forEach(valor -> response.addHeader(nombre, valor)));
+        response.setHeader(CABECERA_REPETIDA, "true");
+        if (guardada.tipoContenido() != null) {
+            response.setContentType(guardada.tipoContenido());
+        }
+        response.setContentLength(guardada.cuerpo().length);
+        response.getOutputStream().write(guardada.cuerpo());
+    }
+
+    private static Map<String, List<String>> cabeceras(HttpServletResponse response) {
+        Map<String, List<String>> cabeceras = new LinkedHashMap<>();
+        for (String nombre : response.getHeaderNames()) {
+            String normalizado = nombre.toLowerCase(Locale.ROOT);
+            if (!CABECERAS_NO_GUARDADAS.contains(normalizado) && !normalizado.startsWith("access-control-")) {
+                cabeceras.putIfAbsent(nombre, List.copyOf(response.getHeaders(nombre)));
+            }
+        }
+        return cabeceras;
+    }
+
+    private static void responder(HttpServletResponse response, HttpStatus estado, String mensaje) throws IOException {
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"success\":false,\"message\":\"" + mensaje + "\"}");
+    }
+
+    private static String huella(byte[] cuerpo) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(cuerpo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Petición cuyo cuerpo ya se leyó para calcular la huella; se vuelve a entregar al controlador
+     */
+    private static final class CuerpoLeido extends HttpServletRequestWrapper {
+
+        private final byte[] cuerpo;
+
+        private CuerpoLeido(HttpServletRequest request, byte[] cuerpo) {
+            super(request);
+            this.cuerpo = cuerpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * El cuerpo ya está en memoria: todo está disponible de inmediato
+                 */
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String codificacion = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), codificacion));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package flutter_backend.Ramirez.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de Jackson
+ * Spring Boot registra en el ObjectMapper de la aplicación todo Module declarado como bean
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Blackbird reemplaza las llamadas por reflexión a getters y setters por lambdas generadas
+     * (LambdaMetafactory), lo que reduce el costo de serializar los DTOs de los listados
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
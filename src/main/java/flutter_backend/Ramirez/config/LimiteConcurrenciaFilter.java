@@ -0,0 +1,149 @@
+package flutter_backend.Ramirez.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulkhead que limita cuántas peticiones a la API se procesan a la vez
+ * Con hilos virtuales Tomcat ya no limita la concurrencia, por lo que sin este filtro una ráfaga
+ * de peticiones lentas puede acaparar el pool de conexiones de HikariCP.
+ * Las rutas pesadas (reportes por fechas, listados completos) tienen su propio compartimento para
+ * que no dejen sin conexiones al resto de endpoints. Si no hay cupo dentro del tiempo de espera
+ * configurado se responde 503 en lugar de encolar la petición indefinidamente.
+ * Las rutas excluidas (conexiones de larga duración como el canal de eventos) no ocupan un permiso
+ * mientras están abiertas; su cantidad se limita por separado.
+ */
+@Component
+@ConditionalOnProperty(name = "clinica.bulkhead.habilitado", havingValue = "true", matchIfMissing = true)
+public class LimiteConcurrenciaFilter extends OncePerRequestFilter {
+
+    private static final String RESPUESTA_SATURADO =
+        "{\"success\":false,\"message\":\"Servicio saturado, intente nuevamente en unos segundos\"}";
+
+    private final Semaphore general;
+    private final Semaphore pesadas;
+    private final List<String> rutasPesadas;
+    private final List<String> rutasExcluidas;
+    private final long esperaMaximaMs;
+
+    public LimiteConcurrenciaFilter(
+            @Value("${clinica.bulkhead.max-concurrentes}") int maxConcurrentes,
+            @Value("${clinica.bulkhead.max-concurrentes-pesadas}") int maxConcurrentesPesadas,
+            @Value("${clinica.bulkhead.rutas-pesadas}") List<String> rutasPesadas,
+            @Value("${clinica.bulkhead.rutas-excluidas:}") List<String> rutasExcluidas,
+            @Value("${clinica.bulkhead.espera-maxima-ms}") long esperaMaximaMs) {
+        this.general = new Semaphore(maxConcurrentes, true);
+        this.pesadas = new Semaphore(maxConcurrentesPesadas, true);
+        this.rutasPesadas = rutasPesadas;
+        this.rutasExcluidas = rutasExcluidas;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || coincide(request.getRequestURI(), rutasExcluidas);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Semaphore compartimento = coincide(request.getRequestURI(), rutasPesadas) ? pesadas : general;
+
+        boolean adquirido;
+        try {
+            adquirido = compartimento.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            adquirido = false;
+        }
+        if (!adquirido) {
+            rechazar(response);
+            return;
+        }
+
+        Liberacion liberacion = new Liberacion(compartimento);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Las respuestas en streaming terminan después de que el filtro retorna
+                request.getAsyncContext().addListener(liberacion);
+            } else {
+                liberacion.liberar();
+            }
+        }
+    }
+
+    private static boolean coincide(String uri, List<String> rutas) {
+        for (String ruta : rutas) {
+            if (uri.equals(ruta) || uri.startsWith(ruta + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rechazar(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(RESPUESTA_SATURADO);
+    }
+
+    /**
+     * Devuelve el permiso una sola vez, ya sea al terminar la petición o su procesamiento asíncrono
+     */
+    private static final class Liberacion implements AsyncListener {
+
+        private final Semaphore compartimento;
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        private Liberacion(Semaphore compartimento) {
+            this.compartimento = compartimento;
+        }
+
+        void liberar() {
+            if (liberado.compareAndSet(false, true)) {
+                compartimento.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // El procesamiento asíncrono continúa: el permiso se libera en onComplete
+        }
+    }
+}
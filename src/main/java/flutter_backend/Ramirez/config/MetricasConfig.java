@@ -0,0 +1,21 @@
+package flutter_backend.Ramirez.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de métricas con Micrometer
+ * Habilita la anotación @Timed en los servicios; los endpoints (http.server.requests),
+ * los repositorios (spring.data.repository.invocations), HikariCP e Hibernate se instrumentan
+ * automáticamente con Spring Boot Actuator
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,27 @@
+package flutter_backend.Ramirez.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registra la cantidad de elementos devueltos por los endpoints de listado
+ * como un histograma (clinica.listado.tamano) etiquetado por listado
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricasListado {
+
+    private final MeterRegistry meterRegistry;
+
+    public void registrarTamano(String listado, int tamano) {
+        DistributionSummary.builder("clinica.listado.tamano")
+            .description("Cantidad de elementos devueltos por los endpoints de listado")
+            .baseUnit("elementos")
+            .tag("listado", listado)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(tamano);
+    }
+}
@@ -0,0 +1,74 @@
+package flutter_backend.Ramirez.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Mide el retraso de la réplica con un latido: escribe la hora en latido_replicacion de la primaria
+ * y lee la última hora que llegó a la réplica
+ * El retraso medido incluye hasta un intervalo de latido, por eso el máximo tolerado debe superarlo
+ * Si la réplica no responde o supera el retraso máximo, las lecturas vuelven a la primaria
+ */
+public class MonitorRetrasoReplica {
+
+    private static final String ESCRIBIR_LATIDO = "UPDATE latido_replicacion SET LAT_Milisegundos = ? WHERE LAT_Id = 1";
+    private static final String LEER_LATIDO = "SELECT LAT_Milisegundos FROM latido_replicacion WHERE LAT_Id = 1";
+
+    private final JdbcTemplate primaria;
+    private final JdbcTemplate replica;
+    private final long retrasoMaximoMs;
+
+    private volatile long retrasoMs = -1;
+    private volatile boolean replicaDisponible;
+
+    public MonitorRetrasoReplica(DataSource primaria, DataSource replica, Duration retrasoMaximo,
+                                 MeterRegistry meterRegistry) {
+        this.primaria = new JdbcTemplate(primaria);
+        this.replica = new JdbcTemplate(replica);
+        this.retrasoMaximoMs = retrasoMaximo.toMillis();
+
+        Gauge.builder("clinica.replica.retraso", this, monitor -> monitor.retrasoMs)
+            .description("Retraso medido de la réplica en milisegundos (-1 si no responde)")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        Gauge.builder("clinica.replica.disponible", this, monitor -> monitor.replicaDisponible ? 1 : 0)
+            .description("1 si las lecturas se envían a la réplica, 0 si vuelven a la primaria")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Escribe un latido en la primaria y recalcula el retraso de la réplica
+     */
+    @Scheduled(fixedDelayString = "${clinica.replica.intervalo-latido:1s}")
+    public void comprobar() {
+        long ahora = System.currentTimeMillis();
+        try {
+            primaria.update(ESCRIBIR_LATIDO, ahora);
+        } catch (DataAccessException e) {
+            // Sin primaria no hay escrituras que esperar; el retraso se sigue midiendo con el último latido
+        }
+
+        try {
+            Long ultimoLatido = replica.queryForObject(LEER_LATIDO, Long.class);
+            retrasoMs = ultimoLatido == null ? -1 : Math.max(ahora - ultimoLatido, 0);
+            replicaDisponible = retrasoMs >= 0 && retrasoMs <= retrasoMaximoMs;
+        } catch (DataAccessException e) {
+            retrasoMs = -1;
+            replicaDisponible = false;
+        }
+    }
+
+    public boolean isReplicaDisponible() {
+        return replicaDisponible;
+    }
+
+    public long getRetrasoMs() {
+        return retrasoMs;
+    }
+}
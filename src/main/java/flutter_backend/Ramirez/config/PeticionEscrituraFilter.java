@@ -0,0 +1,50 @@
+package flutter_backend.Ramirez.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Marca las peticiones que modifican datos (POST, PUT, PATCH, DELETE) para que todas sus lecturas,
+ * incluidas las transacciones de solo lectura, vayan a la primaria
+ * Así una actualización lee la versión vigente para el If-Match y devuelve la ETag recién escrita,
+ * en lugar de lo que la réplica todavía no recibió
+ */
+@Component
+@ConditionalOnProperty(prefix = "clinica.replica", name = "url")
+public class PeticionEscrituraFilter extends OncePerRequestFilter {
+
+    private static final Set<String> METODOS_LECTURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private static final ThreadLocal<Boolean> ESCRITURA = new ThreadLocal<>();
+
+    /**
+     * Indica si el hilo actual está atendiendo una petición que modifica datos
+     */
+    public static boolean enPeticionDeEscritura() {
+        return Boolean.TRUE.equals(ESCRITURA.get());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (METODOS_LECTURA.contains(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ESCRITURA.set(Boolean.TRUE);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ESCRITURA.remove();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package flutter_backend.Ramirez.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Envía las transacciones de solo lectura a una réplica cuando clinica.replica.url está configurada
+ * Sin esa propiedad la aplicación usa el único DataSource de spring.datasource, como antes
+ *
+ * El DataSource de la aplicación es un LazyConnectionDataSourceProxy: la conexión física se pide
+ * recién en la primera sentencia, cuando Spring ya marcó la conexión como de solo lectura
+ * (@Transactional(readOnly = true) en HistoriaClinicaService y en los repositorios de Spring Data),
+ * y en ese caso se toma de EnrutadorLecturaDataSource en lugar de la primaria
+ * Esas transacciones no guardan en la caché de entidades lo que leen (DialectoLecturaReplica)
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "clinica.replica", name = "url")
+public class ReplicaLecturaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primariaDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primaria");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("clinica.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${clinica.replica.url}") String url,
+            @Value("${clinica.replica.username:${spring.datasource.username}}") String username,
+            @Value("${clinica.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public MonitorRetrasoReplica monitorRetrasoReplica(
+            @Qualifier("primariaDataSource") DataSource primaria,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${clinica.replica.retraso-maximo:5s}") Duration retrasoMaximo,
+            MeterRegistry meterRegistry) {
+        return new MonitorRetrasoReplica(primaria, replica, retrasoMaximo, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primariaDataSource") DataSource primaria,
+            @Qualifier("replicaDataSource") DataSource replica,
+            MonitorRetrasoReplica monitor) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaria);
+        proxy.setReadOnlyDataSource(new EnrutadorLecturaDataSource(primaria, replica, monitor));
+        return proxy;
+    }
+
+    /**
+     * Sustituye el dialecto JPA por DialectoLecturaReplica antes de crear el EntityManagerFactory,
+     * del que lo toma JpaTransactionManager
+     */
+    @Bean
+    public static BeanPostProcessor dialectoLecturaReplica() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean entityManagerFactory) {
+                    entityManagerFactory.setJpaDialect(new DialectoLecturaReplica());
+                }
+                return bean;
+            }
+        };
+    }
+}
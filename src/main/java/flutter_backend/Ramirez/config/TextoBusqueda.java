@@ -0,0 +1,54 @@
+package flutter_backend.Ramirez.config;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de textos para la búsqueda por prefijo: minúsculas, sin tildes ni diéresis
+ * (la ñ queda como n) y con los espacios colapsados
+ * Se aplica igual al guardar las columnas de búsqueda y al recibir el texto buscado, por lo que
+ * "jose" encuentra "José" con una comparación LIKE 'jose%' que usa el índice B-tree de la columna
+ */
+public final class TextoBusqueda {
+
+    /**
+     * Carácter de escape de los patrones LIKE: se usa ! y no \ porque MySQL interpreta \ dentro de los literales
+     */
+    public static final char ESCAPE_LIKE = '!';
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private TextoBusqueda() {
+    }
+
+    /**
+     * @return Texto normalizado, o null si el texto es null o queda vacío
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String sinMarcas = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        String normalizado = ESPACIOS.matcher(sinMarcas.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+        return normalizado.isEmpty() ? null : normalizado;
+    }
+
+    /**
+     * Palabras del texto normalizado, en el orden en que se escribieron
+     */
+    public static List<String> palabras(String texto) {
+        String normalizado = normalizar(texto);
+        return normalizado == null ? List.of() : Arrays.asList(normalizado.split(" "));
+    }
+
+    /**
+     * Patrón LIKE que busca el prefijo literal (escapa %, _ y el propio ESCAPE_LIKE)
+     */
+    public static String patronPrefijo(String prefijo) {
+        return prefijo.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+}
@@ -0,0 +1,75 @@
+package flutter_backend.Ramirez.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import flutter_backend.Ramirez.dto.RespuestaApi;
+import flutter_backend.Ramirez.service.LineaTiempoPacienteService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controlador REST para consultar las estadísticas de la caché de segundo nivel
+ * y de la caché de líneas de tiempo de pacientes
+ */
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final LineaTiempoPacienteService lineaTiempoPacienteService;
+
+    /**
+     * GET /api/cache/estadisticas
+     * Devuelve aciertos, fallos y escrituras por región de caché, de la caché de consultas
+     * y de la caché de líneas de tiempo (donde las escrituras son las cargas desde la base)
+     */
+    @GetMapping("/estadisticas")
+    public ResponseEntity<RespuestaApi<Map<String, Object>>> obtenerEstadisticas() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regiones = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics estadisticasRegion = statistics.getCacheRegionStatistics(region);
+            if (estadisticasRegion == null) {
+                continue;
+            }
+            regiones.put(region, construirEstadisticas(
+                estadisticasRegion.getHitCount(),
+                estadisticasRegion.getMissCount(),
+                estadisticasRegion.getPutCount()));
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("regiones", regiones);
+        data.put("consultas", construirEstadisticas(
+            statistics.getQueryCacheHitCount(),
+            statistics.getQueryCacheMissCount(),
+            statistics.getQueryCachePutCount()));
+        CacheStats lineaTiempo = lineaTiempoPacienteService.obtenerEstadisticas();
+        data.put("lineaTiempo", construirEstadisticas(
+            lineaTiempo.hitCount(),
+            lineaTiempo.missCount(),
+            lineaTiempo.loadSuccessCount()));
+        return ResponseEntity.ok(RespuestaApi.exito("Estadísticas de caché obtenidas exitosamente", data));
+    }
+
+    private Map<String, Object> construirEstadisticas(long aciertos, long fallos, long escrituras) {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("aciertos", aciertos);
+        estadisticas.put("fallos", fallos);
+        estadisticas.put("escrituras", escrituras);
+        long total = aciertos + fallos;
+        estadisticas.put("tasaAciertos", total == 0 ? 0.0 : (double) aciertos / total);
+        return estadisticas;
+    }
+}
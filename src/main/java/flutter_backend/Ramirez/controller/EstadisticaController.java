@@ -0,0 +1,97 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.dto.RespuestaApi;
+import flutter_backend.Ramirez.exception.ValidacionException;
+import flutter_backend.Ramirez.service.EstadisticaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Controlador REST para las estadísticas de atenciones
+ * Todos los endpoints reciben el rango de fechas de atención como inicio y fin (ISO, inclusive)
+ */
+@RestController
+@RequestMapping("/api/estadisticas")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class EstadisticaController {
+
+    private final EstadisticaService estadisticaService;
+
+    /**
+     * GET /api/estadisticas/medicos?inicio={fecha}&fin={fecha}
+     * Atenciones por médico, de mayor a menor
+     */
+    @GetMapping("/medicos")
+    public ResponseEntity<RespuestaApi<List<?>>> atencionesPorMedico(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        return responder(inicio, fin, "Atenciones por médico obtenidas exitosamente",
+            () -> estadisticaService.contarPorMedico(inicio, fin));
+    }
+
+    /**
+     * GET /api/estadisticas/especialidades?inicio={fecha}&fin={fecha}
+     * Atenciones por especialidad, de mayor a menor
+     */
+    @GetMapping("/especialidades")
+    public ResponseEntity<RespuestaApi<List<?>>> atencionesPorEspecialidad(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        return responder(inicio, fin, "Atenciones por especialidad obtenidas exitosamente",
+            () -> estadisticaService.contarPorEspecialidad(inicio, fin));
+    }
+
+    /**
+     * GET /api/estadisticas/dias?inicio={fecha}&fin={fecha}
+     * Atenciones por día (solo los días con atenciones)
+     */
+    @GetMapping("/dias")
+    public ResponseEntity<RespuestaApi<List<?>>> atencionesPorDia(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        return responder(inicio, fin, "Atenciones por día obtenidas exitosamente",
+            () -> estadisticaService.contarPorDia(inicio, fin));
+    }
+
+    /**
+     * GET /api/estadisticas/meses?inicio={fecha}&fin={fecha}
+     * Atenciones por mes (solo los meses con atenciones)
+     */
+    @GetMapping("/meses")
+    public ResponseEntity<RespuestaApi<List<?>>> atencionesPorMes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        return responder(inicio, fin, "Atenciones por mes obtenidas exitosamente",
+            () -> estadisticaService.contarPorMes(inicio, fin));
+    }
+
+    /**
+     * GET /api/estadisticas/pacientes-por-medico?inicio={fecha}&fin={fecha}
+     * Pacientes distintos atendidos por cada médico, de mayor a menor
+     */
+    @GetMapping("/pacientes-por-medico")
+    public ResponseEntity<RespuestaApi<List<?>>> pacientesPorMedico(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        return responder(inicio, fin, "Pacientes por médico obtenidos exitosamente",
+            () -> estadisticaService.contarPacientesPorMedico(inicio, fin));
+    }
+
+    /**
+     * Método helper que valida el rango de fechas y arma la respuesta de una estadística
+     */
+    private ResponseEntity<RespuestaApi<List<?>>> responder(LocalDate inicio, LocalDate fin, String mensaje,
+                                                          Supplier<List<?>> consulta) {
+        if (inicio.isAfter(fin)) {
+            throw new ValidacionException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+        return ResponseEntity.ok(RespuestaApi.lista(mensaje, consulta.get()));
+    }
+}
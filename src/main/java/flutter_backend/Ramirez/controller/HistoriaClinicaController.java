@@ -1,21 +1,44 @@
 package flutter_backend.Ramirez.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import flutter_backend.Ramirez.config.MetricasListado;
+import flutter_backend.Ramirez.dto.HistoriaClinicaBusquedaDTO;
 import flutter_backend.Ramirez.dto.HistoriaClinicaDTO;
+import flutter_backend.Ramirez.dto.HistoriaClinicaPaginaDTO;
 import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.dto.RespuestaApi;
+import flutter_backend.Ramirez.dto.ResultadoImportacionDTO;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
+import flutter_backend.Ramirez.exception.ValidacionException;
+import flutter_backend.Ramirez.repository.CampoHistoriaClinica;
+import flutter_backend.Ramirez.service.EventosHistoriaService;
+import flutter_backend.Ramirez.service.HistoriaClinicaBusquedaService;
 import flutter_backend.Ramirez.service.HistoriaClinicaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Controlador REST para la gestión de Historias Clínicas
@@ -24,101 +47,209 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/historias-clinicas")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.LOCATION})
 public class HistoriaClinicaController {
 
+    private static final int LIMITE_POR_DEFECTO = 100;
+    private static final int LIMITE_MAXIMO = 1000;
+    private static final int TAMANO_BUSQUEDA_POR_DEFECTO = 20;
+    private static final int TAMANO_BUSQUEDA_MAXIMO = 100;
+
     private final HistoriaClinicaService historiaClinicaService;
+    private final HistoriaClinicaBusquedaService historiaClinicaBusquedaService;
+    private final EventosHistoriaService eventosHistoriaService;
+    private final ObjectMapper objectMapper;
+    private final MetricasListado metricasListado;
+
+    @Value("${clinica.importacion.tamano-lote:1000}")
+    private int tamanoLote;
 
     /**
-     * GET /api/historias-clinicas
-     * Lista todas las historias clínicas
+     * GET /api/historias-clinicas?limit={n}&after={histId}
+     * Lista las historias clínicas paginadas por cursor (keyset sobre histId)
+     * Para obtener la página siguiente se envía el nextCursor recibido como after
+     * Con view=summary o fields=histId,histFechaAtencion,... solo se leen y devuelven esos campos
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> listarTodas() {
-        try {
-            List<HistoriaClinicaResponseDTO> historias = historiaClinicaService.listarTodas();
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Historias clínicas obtenidas exitosamente");
-            response.put("data", historias);
-            response.put("count", historias.size());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return manejarError("Error al listar historias clínicas", e);
+    public ResponseEntity<RespuestaApi<List<?>>> listarTodas(
+            @RequestParam(defaultValue = "" + LIMITE_POR_DEFECTO) int limit,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields) {
+        int limiteEfectivo = Math.min(Math.max(limit, 1), LIMITE_MAXIMO);
+        List<CampoHistoriaClinica> campos = CampoHistoriaClinica.resolver(view, fields);
+        HistoriaClinicaPaginaDTO<?> pagina = campos == null
+            ? historiaClinicaService.listarPagina(after, limiteEfectivo)
+            : historiaClinicaService.listarPagina(after, limiteEfectivo, campos);
+        RespuestaApi<List<?>> response = RespuestaApi.lista(
+            "Historias clínicas obtenidas exitosamente", pagina.getHistorias());
+        response.setNextCursor(pagina.getSiguienteCursor());
+        response.setHasMore(pagina.isHayMas());
+        metricasListado.registrarTamano("historias", pagina.getHistorias().size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/historias-clinicas/stream
+     * Transmite todas las historias clínicas en formato NDJSON (una historia por línea)
+     * El consumo de memoria es constante sin importar la cantidad de registros
+     * Admite view y fields igual que el listado paginado
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTodas(
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields) {
+        List<CampoHistoriaClinica> campos = CampoHistoriaClinica.resolver(view, fields);
+
+        StreamingResponseBody cuerpo = salida -> {
+            try (SequenceWriter escritor = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(salida)) {
+                AtomicBoolean escribioAlguna = new AtomicBoolean();
+                Consumer<Object> escribir = historia -> {
+                    try {
+                        escritor.write(historia);
+                        escribioAlguna.set(true);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                };
+                if (campos == null) {
+                    historiaClinicaService.recorrerTodas(escribir::accept);
+                } else {
+                    historiaClinicaService.recorrerTodas(campos, escribir::accept);
+                }
+                escritor.flush();
+                // El separador va entre registros: se termina el último, y sin registros el cuerpo queda vacío
+                if (escribioAlguna.get()) {
+                    salida.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(cuerpo);
+    }
+
+    /**
+     * GET /api/historias-clinicas/eventos?medCmp={cmp}&pacDni={dni}
+     * Canal Server-Sent Events con las historias creadas, actualizadas y eliminadas de un médico, de un paciente
+     * o de ambos, en reemplazo de consultar periódicamente los listados
+     * Cada evento (creada, actualizada, eliminada) trae su ID; al reconectarse, EventSource lo envía en
+     * Last-Event-ID y se reciben los eventos perdidos. El evento reinicio indica que hay que recargar el listado
+     */
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirEventos(
+            @RequestParam(required = false) String medCmp,
+            @RequestParam(required = false) String pacDni,
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+        if ((medCmp == null || medCmp.isBlank()) && (pacDni == null || pacDni.isBlank())) {
+            throw new ValidacionException("Se debe indicar medCmp o pacDni");
         }
+        return eventosHistoriaService.suscribir(
+            medCmp == null || medCmp.isBlank() ? null : medCmp,
+            pacDni == null || pacDni.isBlank() ? null : pacDni,
+            ultimoEventoId);
     }
 
     /**
      * GET /api/historias-clinicas/{id}
      * Obtiene una historia clínica por su ID
+     * La ETag (versiones de la historia, su paciente y su médico) es la que se envía en If-Match al actualizar
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> obtenerPorId(@PathVariable Long id) {
-        try {
-            HistoriaClinicaResponseDTO historia = historiaClinicaService.obtenerPorId(id);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Historia clínica encontrada");
-            response.put("data", historia);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al obtener historia clínica", e);
+    public ResponseEntity<RespuestaApi<HistoriaClinicaResponseDTO>> obtenerPorId(@PathVariable Long id, WebRequest webRequest) {
+        // Sin versión la historia no existe: se responde 404 sin ejecutar la consulta del DTO
+        String etag = historiaClinicaService.calcularEtiqueta(id);
+        if (etag == null) {
+            throw new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id);
+        }
+        if (webRequest.checkNotModified(etag)) {
+            return null;
         }
+        HistoriaClinicaResponseDTO historia = historiaClinicaService.obtenerPorId(id);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+            .body(RespuestaApi.exito("Historia clínica encontrada", historia));
     }
 
     /**
      * POST /api/historias-clinicas
      * Registra una nueva historia clínica
+     * Con la cabecera Idempotency-Key, un reintento recibe la respuesta original sin repetir el registro
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> registrar(
-            @Valid @RequestBody HistoriaClinicaDTO dto,
-            BindingResult bindingResult) {
-        
-        // Validar errores de validación
-        if (bindingResult.hasErrors()) {
-            return ResponseEntity.badRequest()
-                .body(construirRespuestaErrorValidacion(bindingResult));
-        }
+    public ResponseEntity<RespuestaApi<HistoriaClinicaResponseDTO>> registrar(
+            @Valid @RequestBody HistoriaClinicaDTO dto) {
+        HistoriaClinicaResponseDTO historiaCreada = historiaClinicaService.registrar(dto);
+        return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}").buildAndExpand(historiaCreada.getHistId()).toUri())
+            .eTag(historiaClinicaService.calcularEtiqueta(historiaCreada.getHistId()))
+            .body(RespuestaApi.exito("Historia clínica registrada exitosamente", historiaCreada));
+    }
 
-        try {
-            HistoriaClinicaResponseDTO historiaCreada = historiaClinicaService.registrar(dto);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Historia clínica registrada exitosamente");
-            response.put("data", historiaCreada);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al registrar historia clínica", e);
+    /**
+     * POST /api/historias-clinicas/lote
+     * Registra historias clínicas de forma masiva a partir de un arreglo JSON o de NDJSON
+     * El cuerpo se lee y se guarda por lotes (clinica.importacion.tamano-lote filas por transacción)
+     * y la respuesta es NDJSON con un resultado por fila, sin mantener la carga completa en memoria
+     */
+    @PostMapping(value = "/lote", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void registrarLote(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        try (MappingIterator<HistoriaClinicaDTO> filas = objectMapper.readerFor(HistoriaClinicaDTO.class)
+                .readValues(request.getInputStream());
+             SequenceWriter escritor = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(response.getOutputStream())) {
+
+            List<HistoriaClinicaDTO> lote = new ArrayList<>(tamanoLote);
+            long indiceInicialLote = 0;
+            while (true) {
+                HistoriaClinicaDTO fila;
+                try {
+                    if (!filas.hasNextValue()) {
+                        break;
+                    }
+                    fila = filas.nextValue();
+                } catch (IOException | RuntimeException e) {
+                    // Un JSON mal formado impide continuar leyendo: se informa la fila y se detiene la carga
+                    escribirResultados(escritor, procesarLote(lote, indiceInicialLote));
+                    escritor.write(ResultadoImportacionDTO.rechazada(
+                        indiceInicialLote + lote.size(), List.of("JSON inválido: " + e.getMessage())));
+                    lote.clear();
+                    break;
+                }
+
+                lote.add(fila);
+                if (lote.size() == tamanoLote) {
+                    escribirResultados(escritor, procesarLote(lote, indiceInicialLote));
+                    indiceInicialLote += lote.size();
+                    lote.clear();
+                }
+            }
+            escribirResultados(escritor, procesarLote(lote, indiceInicialLote));
+            escritor.flush();
+            response.getOutputStream().write('\n');
         }
     }
 
     /**
      * PUT /api/historias-clinicas/{id}
      * Actualiza una historia clínica existente
+     * Con If-Match responde 412 si la versión no es la actual; si otra petición la modifica
+     * al mismo tiempo, el bloqueo optimista (@Version) responde 409 en lugar de sobrescribirla
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> actualizar(
+    public ResponseEntity<RespuestaApi<HistoriaClinicaResponseDTO>> actualizar(
             @PathVariable Long id,
             @Valid @RequestBody HistoriaClinicaDTO dto,
-            BindingResult bindingResult) {
-        
-        // Validar errores de validación
-        if (bindingResult.hasErrors()) {
-            return ResponseEntity.badRequest()
-                .body(construirRespuestaErrorValidacion(bindingResult));
-        }
-
-        try {
-            HistoriaClinicaResponseDTO historiaActualizada = historiaClinicaService.actualizar(id, dto);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Historia clínica actualizada exitosamente");
-            response.put("data", historiaActualizada);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al actualizar historia clínica", e);
-        }
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        HistoriaClinicaResponseDTO historiaActualizada = historiaClinicaService.actualizar(id, dto, ifMatch);
+        String etag = historiaClinicaService.calcularEtiqueta(id);
+        return ResponseEntity.ok().eTag(etag)
+            .body(RespuestaApi.exito("Historia clínica actualizada exitosamente", historiaActualizada));
     }
 
     /**
@@ -126,102 +257,134 @@ public class HistoriaClinicaController {
      * Elimina una historia clínica
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> eliminar(@PathVariable Long id) {
-        try {
-            historiaClinicaService.eliminar(id);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Historia clínica eliminada exitosamente");
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al eliminar historia clínica", e);
-        }
+    public ResponseEntity<RespuestaApi<Void>> eliminar(@PathVariable Long id) {
+        historiaClinicaService.eliminar(id);
+        return ResponseEntity.ok(RespuestaApi.exito("Historia clínica eliminada exitosamente", null));
     }
 
     /**
      * GET /api/historias-clinicas/paciente/{pacDni}
      * Busca historias clínicas por DNI del paciente
+     * La ETag se calcula con las versiones de fila; si no cambió se responde 304
+     * sin leer los campos de texto ni serializar las historias
+     * Con view=summary (la línea de tiempo del paciente) no se leen diagnóstico, análisis ni tratamiento
      */
     @GetMapping("/paciente/{pacDni}")
-    public ResponseEntity<Map<String, Object>> buscarPorPaciente(@PathVariable String pacDni) {
-        try {
-            List<HistoriaClinicaResponseDTO> historias = historiaClinicaService.buscarPorPaciente(pacDni);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Historias clínicas del paciente obtenidas exitosamente");
-            response.put("data", historias);
-            response.put("count", historias.size());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return manejarError("Error al buscar historias por paciente", e);
+    public ResponseEntity<RespuestaApi<List<?>>> buscarPorPaciente(
+            @PathVariable String pacDni,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        List<CampoHistoriaClinica> campos = CampoHistoriaClinica.resolver(view, fields);
+        if (webRequest.checkNotModified(historiaClinicaService.calcularEtiquetaPorPaciente(pacDni))) {
+            return null;
         }
+        List<?> historias = campos == null
+            ? historiaClinicaService.buscarPorPaciente(pacDni)
+            : historiaClinicaService.buscarPorPaciente(pacDni, campos);
+        metricasListado.registrarTamano("historias-paciente", historias.size());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+            .body(RespuestaApi.lista("Historias clínicas del paciente obtenidas exitosamente", historias));
     }
 
     /**
      * GET /api/historias-clinicas/medico/{medCmp}
      * Busca historias clínicas por CMP del médico
+     * Admite view y fields igual que el listado paginado
      */
     @GetMapping("/medico/{medCmp}")
-    public ResponseEntity<Map<String, Object>> buscarPorMedico(@PathVariable String medCmp) {
-        try {
-            List<HistoriaClinicaResponseDTO> historias = historiaClinicaService.buscarPorMedico(medCmp);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Historias clínicas del médico obtenidas exitosamente");
-            response.put("data", historias);
-            response.put("count", historias.size());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return manejarError("Error al buscar historias por médico", e);
-        }
+    public ResponseEntity<RespuestaApi<List<?>>> buscarPorMedico(
+            @PathVariable String medCmp,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields) {
+        List<CampoHistoriaClinica> campos = CampoHistoriaClinica.resolver(view, fields);
+        List<?> historias = campos == null
+            ? historiaClinicaService.buscarPorMedico(medCmp)
+            : historiaClinicaService.buscarPorMedico(medCmp, campos);
+        metricasListado.registrarTamano("historias-medico", historias.size());
+        return ResponseEntity.ok(RespuestaApi.lista("Historias clínicas del médico obtenidas exitosamente", historias));
     }
 
     /**
      * GET /api/historias-clinicas/fechas?inicio={fecha}&fin={fecha}
      * Busca historias clínicas por rango de fechas
+     * Admite view y fields igual que el listado paginado
      */
     @GetMapping("/fechas")
-    public ResponseEntity<Map<String, Object>> buscarPorRangoFechas(
+    public ResponseEntity<RespuestaApi<List<?>>> buscarPorRangoFechas(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
-        try {
-            List<HistoriaClinicaResponseDTO> historias = historiaClinicaService.buscarPorRangoFechas(inicio, fin);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Historias clínicas en el rango de fechas obtenidas exitosamente");
-            response.put("data", historias);
-            response.put("count", historias.size());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return manejarError("Error al buscar historias por rango de fechas", e);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields) {
+        List<CampoHistoriaClinica> campos = CampoHistoriaClinica.resolver(view, fields);
+        List<?> historias = campos == null
+            ? historiaClinicaService.buscarPorRangoFechas(inicio, fin)
+            : historiaClinicaService.buscarPorRangoFechas(inicio, fin, campos);
+        metricasListado.registrarTamano("historias-fechas", historias.size());
+        return ResponseEntity.ok(RespuestaApi.lista(
+            "Historias clínicas en el rango de fechas obtenidas exitosamente", historias));
+    }
+
+    /**
+     * GET /api/historias-clinicas/buscar?q={texto}&page={n}&size={n}
+     * Búsqueda de texto completo en diagnóstico, análisis y tratamiento, ordenada por relevancia
+     * Ignora tildes y variaciones de género y número (diagnostico encuentra diagnósticos)
+     * Admite view y fields igual que el listado paginado
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<RespuestaApi<List<?>>> buscarPorTexto(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + TAMANO_BUSQUEDA_POR_DEFECTO) int size,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String fields) {
+        if (q.isBlank()) {
+            throw new ValidacionException("El texto de búsqueda es obligatorio");
         }
+
+        int paginaEfectiva = Math.max(page, 0);
+        int tamanoEfectivo = Math.min(Math.max(size, 1), TAMANO_BUSQUEDA_MAXIMO);
+        List<CampoHistoriaClinica> campos = CampoHistoriaClinica.resolver(view, fields);
+        HistoriaClinicaBusquedaDTO<?> resultado = campos == null
+            ? historiaClinicaBusquedaService.buscar(q, paginaEfectiva, tamanoEfectivo)
+            : historiaClinicaBusquedaService.buscar(q, paginaEfectiva, tamanoEfectivo, campos);
+        RespuestaApi<List<?>> response = RespuestaApi.lista(
+            "Búsqueda de historias clínicas realizada exitosamente", resultado.getHistorias());
+        response.setTotal(resultado.getTotal());
+        response.setTotalExact(resultado.isTotalExacto());
+        response.setPage(resultado.getPagina());
+        response.setHasMore(resultado.isHayMas());
+        metricasListado.registrarTamano("historias-busqueda", resultado.getHistorias().size());
+        return ResponseEntity.ok(response);
     }
 
     /**
-     * Método helper para construir respuesta de errores de validación
+     * Método helper que guarda un lote de la carga masiva en su propia transacción
+     * Si la transacción falla, todas las filas del lote se informan como rechazadas
      */
-    private Map<String, Object> construirRespuestaErrorValidacion(BindingResult bindingResult) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", false);
-        response.put("message", "Error de validación");
-        
-        List<String> errores = bindingResult.getFieldErrors()
-            .stream()
-            .map(error -> error.getField() + ": " + error.getDefaultMessage())
-            .collect(Collectors.toList());
-        
-        response.put("errors", errores);
-        return response;
+    private List<ResultadoImportacionDTO> procesarLote(List<HistoriaClinicaDTO> lote, long indiceInicial) {
+        if (lote.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return historiaClinicaService.registrarLote(lote, indiceInicial);
+        } catch (RuntimeException e) {
+            List<ResultadoImportacionDTO> resultados = new ArrayList<>(lote.size());
+            for (int i = 0; i < lote.size(); i++) {
+                resultados.add(ResultadoImportacionDTO.rechazada(
+                    indiceInicial + i, List.of("Error al guardar el lote: " + e.getMessage())));
+            }
+            return resultados;
+        }
     }
 
     /**
-     * Método helper para manejar errores
+     * Método helper que escribe los resultados de un lote y los envía al cliente
      */
-    private ResponseEntity<Map<String, Object>> manejarError(String mensaje, Exception e) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", false);
-        response.put("message", mensaje);
-        response.put("error", e.getMessage());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    private void escribirResultados(SequenceWriter escritor, List<ResultadoImportacionDTO> resultados) throws IOException {
+        for (ResultadoImportacionDTO resultado : resultados) {
+            escritor.write(resultado);
+        }
+        escritor.flush();
     }
 }
@@ -1,19 +1,27 @@
 package flutter_backend.Ramirez.controller;
 
+import flutter_backend.Ramirez.config.EtiquetasVersion;
+import flutter_backend.Ramirez.config.MetricasListado;
 import flutter_backend.Ramirez.dto.MedicoUpdateDTO;
+import flutter_backend.Ramirez.dto.RespuestaApi;
 import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.exception.ConflictoException;
+import flutter_backend.Ramirez.exception.PrecondicionFallidaException;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
 import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.service.LineaTiempoPacienteService;
+import flutter_backend.Ramirez.service.MedicoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Controlador REST para la gestión de Médicos
@@ -21,47 +29,44 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/medicos")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.LOCATION})
 public class MedicoController {
 
     private final MedicoRepository medicoRepository;
+    private final MetricasListado metricasListado;
+    private final MedicoService medicoService;
+    private final LineaTiempoPacienteService lineaTiempoPacienteService;
 
     /**
      * GET /api/medicos
      * Lista todos los médicos
+     * La ETag se calcula solo con los CMP y las versiones; si no cambió se responde 304
+     * sin cargar ni serializar los médicos
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> listarTodos() {
-        try {
-            List<Medico> medicos = medicoRepository.findAll();
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Médicos obtenidos exitosamente");
-            response.put("data", medicos);
-            response.put("count", medicos.size());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return manejarError("Error al listar médicos", e);
+    public ResponseEntity<RespuestaApi<List<Medico>>> listarTodos(WebRequest webRequest) {
+        if (webRequest.checkNotModified(EtiquetasVersion.deVersiones(medicoRepository.findVersiones()))) {
+            return null;
         }
+        List<Medico> medicos = medicoRepository.findAll();
+        metricasListado.registrarTamano("medicos", medicos.size());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+            .body(RespuestaApi.lista("Médicos obtenidos exitosamente", medicos));
     }
 
     /**
      * GET /api/medicos/{cmp}
      * Obtiene un médico por su CMP
+     * Responde 304 si el If-None-Match coincide con la versión del médico
      */
     @GetMapping("/{cmp}")
-    public ResponseEntity<Map<String, Object>> obtenerPorCmp(@PathVariable String cmp) {
-        try {
-            Medico medico = medicoRepository.findById(cmp)
-                .orElseThrow(() -> new RuntimeException("Médico no encontrado con CMP: " + cmp));
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Médico encontrado");
-            response.put("data", medico);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al obtener médico", e);
+    public ResponseEntity<RespuestaApi<Medico>> obtenerPorCmp(@PathVariable String cmp, WebRequest webRequest) {
+        Medico medico = buscarMedico(cmp);
+        if (webRequest.checkNotModified(EtiquetasVersion.deVersion(medico.getMedVersion()))) {
+            return null;
         }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+            .body(RespuestaApi.exito("Médico encontrado", medico));
     }
 
     /**
@@ -69,83 +74,61 @@ public class MedicoController {
      * Busca médicos por especialidad
      */
     @GetMapping("/especialidad/{especialidad}")
-    public ResponseEntity<Map<String, Object>> buscarPorEspecialidad(@PathVariable String especialidad) {
-        try {
-            List<Medico> medicos = medicoRepository.findByEspeNombre(especialidad);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Médicos encontrados");
-            response.put("data", medicos);
-            response.put("count", medicos.size());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return manejarError("Error al buscar médicos por especialidad", e);
-        }
+    public ResponseEntity<RespuestaApi<List<Medico>>> buscarPorEspecialidad(@PathVariable String especialidad) {
+        List<Medico> medicos = medicoRepository.findByEspeNombre(especialidad);
+        metricasListado.registrarTamano("medicos-especialidad", medicos.size());
+        return ResponseEntity.ok(RespuestaApi.lista("Médicos encontrados", medicos));
     }
 
     /**
      * POST /api/medicos
      * Registra un nuevo médico
+     * Con la cabecera Idempotency-Key, un reintento recibe la respuesta original sin repetir el registro
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> registrar(
-            @Valid @RequestBody Medico medico,
-            BindingResult bindingResult) {
-        
-        if (bindingResult.hasErrors()) {
-            return ResponseEntity.badRequest()
-                .body(construirRespuestaErrorValidacion(bindingResult));
-        }
-
+    public ResponseEntity<RespuestaApi<Medico>> registrar(@Valid @RequestBody Medico medico) {
+        // Sin versión, save hace un único INSERT: la clave primaria detecta el duplicado,
+        // también entre dos peticiones simultáneas con el mismo CMP
+        Medico medicoGuardado;
         try {
-            if (medicoRepository.existsById(medico.getMedCmp())) {
-                throw new RuntimeException("Ya existe un médico con el CMP: " + medico.getMedCmp());
-            }
-            
-            Medico medicoGuardado = medicoRepository.save(medico);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Médico registrado exitosamente");
-            response.put("data", medicoGuardado);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al registrar médico", e);
+            medicoGuardado = medicoRepository.save(medico);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictoException("Ya existe un médico con el CMP: " + medico.getMedCmp());
         }
+        return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{cmp}").buildAndExpand(medicoGuardado.getMedCmp()).toUri())
+            .eTag(EtiquetasVersion.deVersion(medicoGuardado.getMedVersion()))
+            .body(RespuestaApi.exito("Médico registrado exitosamente", medicoGuardado));
     }
 
     /**
      * PUT /api/medicos/{cmp}
      * Actualiza un médico existente
+     * Con If-Match responde 412 si la versión no es la actual; si otra petición lo modifica
+     * al mismo tiempo, el bloqueo optimista (@Version) responde 409 en lugar de sobrescribirla
      */
     @PutMapping("/{cmp}")
-    public ResponseEntity<Map<String, Object>> actualizar(
+    public ResponseEntity<RespuestaApi<Medico>> actualizar(
             @PathVariable String cmp,
             @Valid @RequestBody MedicoUpdateDTO medicoActualizado,
-            BindingResult bindingResult) {
-        
-        if (bindingResult.hasErrors()) {
-            return ResponseEntity.badRequest()
-                .body(construirRespuestaErrorValidacion(bindingResult));
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Medico medico = buscarMedico(cmp);
+        String etagActual = EtiquetasVersion.deVersion(medico.getMedVersion());
+        if (!EtiquetasVersion.coincide(ifMatch, etagActual)) {
+            throw new PrecondicionFallidaException(
+                "El médico fue modificado; la versión enviada en If-Match ya no es la actual", etagActual);
         }
 
-        try {
-            Medico medico = medicoRepository.findById(cmp)
-                .orElseThrow(() -> new RuntimeException("Médico no encontrado con CMP: " + cmp));
-            
-            // Actualizar solo los campos permitidos (no el CMP)
-            medico.setMedNombre(medicoActualizado.getMedNombre());
-            medico.setMedApellidos(medicoActualizado.getMedApellidos());
-            medico.setEspeNombre(medicoActualizado.getEspeNombre());
-            
-            Medico medicoGuardado = medicoRepository.save(medico);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Médico actualizado exitosamente");
-            response.put("data", medicoGuardado);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al actualizar médico", e);
-        }
+        // Actualizar solo los campos permitidos (no el CMP)
+        medico.setMedNombre(medicoActualizado.getMedNombre());
+        medico.setMedApellidos(medicoActualizado.getMedApellidos());
+        medico.setEspeNombre(medicoActualizado.getEspeNombre());
+
+        Medico medicoGuardado = medicoRepository.save(medico);
+        // Su nombre y especialidad forman parte de las líneas de tiempo de sus pacientes
+        lineaTiempoPacienteService.invalidarTodas();
+        return ResponseEntity.ok().eTag(EtiquetasVersion.deVersion(medicoGuardado.getMedVersion()))
+            .body(RespuestaApi.exito("Médico actualizado exitosamente", medicoGuardado));
     }
 
     /**
@@ -153,40 +136,13 @@ public class MedicoController {
      * Elimina un médico
      */
     @DeleteMapping("/{cmp}")
-    public ResponseEntity<Map<String, Object>> eliminar(@PathVariable String cmp) {
-        try {
-            if (!medicoRepository.existsById(cmp)) {
-                throw new RuntimeException("Médico no encontrado con CMP: " + cmp);
-            }
-            medicoRepository.deleteById(cmp);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Médico eliminado exitosamente");
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al eliminar médico", e);
-        }
-    }
-
-    private Map<String, Object> construirRespuestaErrorValidacion(BindingResult bindingResult) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", false);
-        response.put("message", "Error de validación");
-        
-        List<String> errores = bindingResult.getFieldErrors()
-            .stream()
-            .map(error -> error.getField() + ": " + error.getDefaultMessage())
-            .collect(Collectors.toList());
-        
-        response.put("errors", errores);
-        return response;
+    public ResponseEntity<RespuestaApi<Void>> eliminar(@PathVariable String cmp) {
+        medicoService.eliminar(cmp);
+        return ResponseEntity.ok(RespuestaApi.exito("Médico eliminado exitosamente", null));
     }
 
-    private ResponseEntity<Map<String, Object>> manejarError(String mensaje, Exception e) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", false);
-        response.put("message", mensaje);
-        response.put("error", e.getMessage());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    private Medico buscarMedico(String cmp) {
+        return medicoRepository.findById(cmp)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado con CMP: " + cmp));
     }
 }
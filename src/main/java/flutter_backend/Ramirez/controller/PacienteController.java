@@ -1,19 +1,32 @@
 package flutter_backend.Ramirez.controller;
 
+import flutter_backend.Ramirez.config.EtiquetasVersion;
+import flutter_backend.Ramirez.config.MetricasListado;
+import flutter_backend.Ramirez.dto.LineaTiempoPacienteDTO;
+import flutter_backend.Ramirez.dto.PacienteSugerenciaDTO;
 import flutter_backend.Ramirez.dto.PacienteUpdateDTO;
+import flutter_backend.Ramirez.dto.RespuestaApi;
 import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.exception.ConflictoException;
+import flutter_backend.Ramirez.exception.PrecondicionFallidaException;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
 import flutter_backend.Ramirez.repository.PacienteRepository;
+import flutter_backend.Ramirez.service.LineaTiempoPacienteService;
+import flutter_backend.Ramirez.service.PacienteService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Controlador REST para la gestión de Pacientes
@@ -21,114 +34,141 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/pacientes")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.LOCATION})
 public class PacienteController {
 
+    private static final int TAMANO_DIRECTORIO_POR_DEFECTO = 20;
+    private static final int LIMITE_SUGERENCIAS_POR_DEFECTO = 10;
+    private static final int LIMITE_SUGERENCIAS_MAXIMO = 20;
+    private static final int TAMANO_LINEA_TIEMPO_POR_DEFECTO = 20;
+    private static final int TAMANO_LINEA_TIEMPO_MAXIMO = 100;
+
     private final PacienteRepository pacienteRepository;
+    private final MetricasListado metricasListado;
+    private final PacienteService pacienteService;
+    private final LineaTiempoPacienteService lineaTiempoPacienteService;
 
     /**
-     * GET /api/pacientes
-     * Lista todos los pacientes
+     * GET /api/pacientes?q={texto}&page={n}&size={n}&sort={campo},{asc|desc}
+     * Directorio de pacientes paginado; q filtra por prefijo del DNI o de nombre y apellidos
+     * (sin distinguir mayúsculas ni tildes). No calcula el total: hasMore indica si hay otra página
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> listarTodos() {
-        try {
-            List<Paciente> pacientes = pacienteRepository.findAll();
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Pacientes obtenidos exitosamente");
-            response.put("data", pacientes);
-            response.put("count", pacientes.size());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return manejarError("Error al listar pacientes", e);
-        }
+    public ResponseEntity<RespuestaApi<List<Paciente>>> listarDirectorio(
+            @RequestParam(required = false) String q,
+            @PageableDefault(size = TAMANO_DIRECTORIO_POR_DEFECTO, sort = "pacApellidoPaterno") Pageable pageable) {
+        Slice<Paciente> pagina = pacienteRepository.buscarDirectorio(q, pageable);
+        metricasListado.registrarTamano("pacientes", pagina.getNumberOfElements());
+
+        RespuestaApi<List<Paciente>> response = RespuestaApi.lista("Pacientes obtenidos exitosamente", pagina.getContent());
+        response.setPage(pagina.getNumber());
+        response.setHasMore(pagina.hasNext());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /api/pacientes/sugerencias?q={texto}&limit={n}
+     * Sugerencias para el buscador mientras se escribe: coincidencias por apellido paterno,
+     * luego materno y luego nombre (o por DNI si q son solo dígitos)
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<RespuestaApi<List<PacienteSugerenciaDTO>>> sugerir(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "" + LIMITE_SUGERENCIAS_POR_DEFECTO) int limit) {
+        int limiteEfectivo = Math.min(Math.max(limit, 1), LIMITE_SUGERENCIAS_MAXIMO);
+        List<PacienteSugerenciaDTO> sugerencias = pacienteRepository.sugerir(q, limiteEfectivo);
+        return ResponseEntity.ok(RespuestaApi.lista("Sugerencias obtenidas exitosamente", sugerencias));
     }
 
     /**
      * GET /api/pacientes/{dni}
      * Obtiene un paciente por su DNI
+     * Responde 304 si el If-None-Match coincide con la versión del paciente (el paciente se
+     * lee de la caché de segundo nivel, así que la comprobación normalmente no consulta la base)
      */
     @GetMapping("/{dni}")
-    public ResponseEntity<Map<String, Object>> obtenerPorDni(@PathVariable String dni) {
-        try {
-            Paciente paciente = pacienteRepository.findById(dni)
-                .orElseThrow(() -> new RuntimeException("Paciente no encontrado con DNI: " + dni));
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Paciente encontrado");
-            response.put("data", paciente);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al obtener paciente", e);
+    public ResponseEntity<RespuestaApi<Paciente>> obtenerPorDni(@PathVariable String dni, WebRequest webRequest) {
+        Paciente paciente = buscarPaciente(dni);
+        if (webRequest.checkNotModified(EtiquetasVersion.deVersion(paciente.getPacVersion()))) {
+            return null;
         }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+            .body(RespuestaApi.exito("Paciente encontrado", paciente));
+    }
+
+    /**
+     * GET /api/pacientes/{dni}/linea-tiempo?page={n}&size={n}
+     * Datos del paciente y una página de sus historias clínicas, de la más reciente a la más antigua,
+     * en una sola petición; se sirve desde una caché por paciente que invalidan sus escrituras
+     */
+    @GetMapping("/{dni}/linea-tiempo")
+    public ResponseEntity<RespuestaApi<LineaTiempoPacienteDTO>> obtenerLineaTiempo(
+            @PathVariable String dni,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + TAMANO_LINEA_TIEMPO_POR_DEFECTO) int size) {
+        int paginaEfectiva = Math.max(page, 0);
+        int tamanoEfectivo = Math.min(Math.max(size, 1), TAMANO_LINEA_TIEMPO_MAXIMO);
+        LineaTiempoPacienteDTO lineaTiempo = lineaTiempoPacienteService.obtenerPagina(dni, paginaEfectiva, tamanoEfectivo);
+
+        RespuestaApi<LineaTiempoPacienteDTO> response = RespuestaApi.exito(
+            "Línea de tiempo del paciente obtenida exitosamente", lineaTiempo);
+        response.setCount(lineaTiempo.getHistorias().size());
+        response.setTotal(lineaTiempo.getTotal());
+        response.setPage(lineaTiempo.getPagina());
+        response.setHasMore(lineaTiempo.isHayMas());
+        return ResponseEntity.ok(response);
     }
 
     /**
      * POST /api/pacientes
      * Registra un nuevo paciente
+     * Con la cabecera Idempotency-Key, un reintento recibe la respuesta original sin repetir el registro
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> registrar(
-            @Valid @RequestBody Paciente paciente,
-            BindingResult bindingResult) {
-        
-        if (bindingResult.hasErrors()) {
-            return ResponseEntity.badRequest()
-                .body(construirRespuestaErrorValidacion(bindingResult));
-        }
-
+    public ResponseEntity<RespuestaApi<Paciente>> registrar(@Valid @RequestBody Paciente paciente) {
+        // Sin versión, save hace un único INSERT: la clave primaria detecta el duplicado,
+        // también entre dos peticiones simultáneas con el mismo DNI
+        Paciente pacienteGuardado;
         try {
-            if (pacienteRepository.existsById(paciente.getPacDni())) {
-                throw new RuntimeException("Ya existe un paciente con el DNI: " + paciente.getPacDni());
-            }
-            
-            Paciente pacienteGuardado = pacienteRepository.save(paciente);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Paciente registrado exitosamente");
-            response.put("data", pacienteGuardado);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al registrar paciente", e);
+            pacienteGuardado = pacienteRepository.save(paciente);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictoException("Ya existe un paciente con el DNI: " + paciente.getPacDni());
         }
+        return ResponseEntity.created(ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{dni}").buildAndExpand(pacienteGuardado.getPacDni()).toUri())
+            .eTag(EtiquetasVersion.deVersion(pacienteGuardado.getPacVersion()))
+            .body(RespuestaApi.exito("Paciente registrado exitosamente", pacienteGuardado));
     }
 
     /**
      * PUT /api/pacientes/{dni}
      * Actualiza un paciente existente
+     * Con If-Match responde 412 si la versión no es la actual; si otra petición lo modifica
+     * al mismo tiempo, el bloqueo optimista (@Version) responde 409 en lugar de sobrescribirla
      */
     @PutMapping("/{dni}")
-    public ResponseEntity<Map<String, Object>> actualizar(
+    public ResponseEntity<RespuestaApi<Paciente>> actualizar(
             @PathVariable String dni,
             @Valid @RequestBody PacienteUpdateDTO pacienteActualizado,
-            BindingResult bindingResult) {
-        
-        if (bindingResult.hasErrors()) {
-            return ResponseEntity.badRequest()
-                .body(construirRespuestaErrorValidacion(bindingResult));
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Paciente paciente = buscarPaciente(dni);
+        String etagActual = EtiquetasVersion.deVersion(paciente.getPacVersion());
+        if (!EtiquetasVersion.coincide(ifMatch, etagActual)) {
+            throw new PrecondicionFallidaException(
+                "El paciente fue modificado; la versión enviada en If-Match ya no es la actual", etagActual);
         }
 
-        try {
-            Paciente paciente = pacienteRepository.findById(dni)
-                .orElseThrow(() -> new RuntimeException("Paciente no encontrado con DNI: " + dni));
-            
-            // Actualizar solo los campos permitidos (no el DNI)
-            paciente.setPacNombre(pacienteActualizado.getPacNombre());
-            paciente.setPacApellidoPaterno(pacienteActualizado.getPacApellidoPaterno());
-            paciente.setPacApellidoMaterno(pacienteActualizado.getPacApellidoMaterno());
-            paciente.setPacDireccion(pacienteActualizado.getPacDireccion());
-            paciente.setPacTelefono(pacienteActualizado.getPacTelefono());
-            
-            Paciente pacienteGuardado = pacienteRepository.save(paciente);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Paciente actualizado exitosamente");
-            response.put("data", pacienteGuardado);
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al actualizar paciente", e);
-        }
+        // Actualizar solo los campos permitidos (no el DNI)
+        paciente.setPacNombre(pacienteActualizado.getPacNombre());
+        paciente.setPacApellidoPaterno(pacienteActualizado.getPacApellidoPaterno());
+        paciente.setPacApellidoMaterno(pacienteActualizado.getPacApellidoMaterno());
+        paciente.setPacDireccion(pacienteActualizado.getPacDireccion());
+        paciente.setPacTelefono(pacienteActualizado.getPacTelefono());
+
+        Paciente pacienteGuardado = pacienteRepository.save(paciente);
+        lineaTiempoPacienteService.invalidar(dni);
+        return ResponseEntity.ok().eTag(EtiquetasVersion.deVersion(pacienteGuardado.getPacVersion()))
+            .body(RespuestaApi.exito("Paciente actualizado exitosamente", pacienteGuardado));
     }
 
     /**
@@ -136,40 +176,13 @@ public class PacienteController {
      * Elimina un paciente
      */
     @DeleteMapping("/{dni}")
-    public ResponseEntity<Map<String, Object>> eliminar(@PathVariable String dni) {
-        try {
-            if (!pacienteRepository.existsById(dni)) {
-                throw new RuntimeException("Paciente no encontrado con DNI: " + dni);
-            }
-            pacienteRepository.deleteById(dni);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Paciente eliminado exitosamente");
-            return ResponseEntity.ok(response);
-        } catch (RuntimeException e) {
-            return manejarError("Error al eliminar paciente", e);
-        }
-    }
-
-    private Map<String, Object> construirRespuestaErrorValidacion(BindingResult bindingResult) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", false);
-        response.put("message", "Error de validación");
-        
-        List<String> errores = bindingResult.getFieldErrors()
-            .stream()
-            .map(error -> error.getField() + ": " + error.getDefaultMessage())
-            .collect(Collectors.toList());
-        
-        response.put("errors", errores);
-        return response;
+    public ResponseEntity<RespuestaApi<Void>> eliminar(@PathVariable String dni) {
+        pacienteService.eliminar(dni);
+        return ResponseEntity.ok(RespuestaApi.exito("Paciente eliminado exitosamente", null));
     }
 
-    private ResponseEntity<Map<String, Object>> manejarError(String mensaje, Exception e) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", false);
-        response.put("message", mensaje);
-        response.put("error", e.getMessage());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    private Paciente buscarPaciente(String dni) {
+        return pacienteRepository.findById(dni)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Paciente no encontrado con DNI: " + dni));
     }
 }
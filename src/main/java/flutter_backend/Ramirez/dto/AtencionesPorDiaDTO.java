@@ -0,0 +1,21 @@
+package flutter_backend.Ramirez.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO con la cantidad de atenciones de un día
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtencionesPorDiaDTO {
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate fecha;
+    private Long atenciones;
+}
@@ -0,0 +1,17 @@
+package flutter_backend.Ramirez.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con la cantidad de atenciones de una especialidad en un rango de fechas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtencionesPorEspecialidadDTO {
+
+    private String espeNombre;
+    private Long atenciones;
+}
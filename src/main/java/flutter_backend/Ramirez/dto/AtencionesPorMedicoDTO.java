@@ -0,0 +1,19 @@
+package flutter_backend.Ramirez.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con la cantidad de atenciones de un médico en un rango de fechas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtencionesPorMedicoDTO {
+
+    private String medCmp;
+    private String medNombreCompleto;
+    private String medEspecialidad;
+    private Long atenciones;
+}
@@ -0,0 +1,18 @@
+package flutter_backend.Ramirez.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con la cantidad de atenciones de un mes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtencionesPorMesDTO {
+
+    private Integer anio;
+    private Integer mes;
+    private Long atenciones;
+}
@@ -0,0 +1,21 @@
+package flutter_backend.Ramirez.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con los datos de un evento del canal de historias clínicas (GET /api/historias-clinicas/eventos)
+ * historia no se envía en los eventos de eliminación
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventoHistoriaClinicaDTO {
+
+    private String tipo;
+    private Long histId;
+    private HistoriaClinicaResponseDTO historia;
+}
@@ -0,0 +1,25 @@
+package flutter_backend.Ramirez.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para una página de resultados de la búsqueda de texto completo
+ * Las historias vienen ordenadas por relevancia; si totalExacto es false,
+ * total es una cota inferior (el conteo se detiene al superar el umbral)
+ * T es HistoriaClinicaResponseDTO en la vista completa o un mapa de campos con fields/view
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoriaClinicaBusquedaDTO<T> {
+
+    private List<T> historias;
+    private long total;
+    private boolean totalExacto;
+    private int pagina;
+    private boolean hayMas;
+}
@@ -0,0 +1,22 @@
+package flutter_backend.Ramirez.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para una página de Historias Clínicas obtenida por cursor
+ * El cursor siguiente es el ID de la última historia de la página
+ * T es HistoriaClinicaResponseDTO en la vista completa o un mapa de campos con fields/view
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoriaClinicaPaginaDTO<T> {
+
+    private List<T> historias;
+    private Long siguienteCursor;
+    private boolean hayMas;
+}
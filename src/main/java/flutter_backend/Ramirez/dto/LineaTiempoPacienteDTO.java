@@ -0,0 +1,32 @@
+package flutter_backend.Ramirez.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import flutter_backend.Ramirez.entity.Paciente;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para la línea de tiempo de un paciente: sus datos y una página de sus historias clínicas,
+ * de la más reciente a la más antigua
+ * total, pagina y hayMas se devuelven en la envoltura de la respuesta (total, page, hasMore)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineaTiempoPacienteDTO {
+
+    private Paciente paciente;
+    private List<HistoriaClinicaResponseDTO> historias;
+
+    @JsonIgnore
+    private long total;
+
+    @JsonIgnore
+    private int pagina;
+
+    @JsonIgnore
+    private boolean hayMas;
+}
@@ -0,0 +1,19 @@
+package flutter_backend.Ramirez.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO liviano para las sugerencias de la búsqueda de pacientes mientras se escribe
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacienteSugerenciaDTO {
+
+    private String pacDni;
+    private String pacNombre;
+    private String pacApellidoPaterno;
+    private String pacApellidoMaterno;
+}
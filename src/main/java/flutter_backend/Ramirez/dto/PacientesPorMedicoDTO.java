@@ -0,0 +1,18 @@
+package flutter_backend.Ramirez.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con la cantidad de pacientes distintos atendidos por un médico en un rango de fechas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PacientesPorMedicoDTO {
+
+    private String medCmp;
+    private String medNombreCompleto;
+    private Long pacientesDistintos;
+}
@@ -0,0 +1,85 @@
+package flutter_backend.Ramirez.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Envoltura común de las respuestas de la API: success, message, data y count
+ * Los campos opcionales (errores, cursor, datos de búsqueda) solo se serializan si tienen valor,
+ * así cada endpoint devuelve las mismas claves que cuando armaba su propio Map
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"success", "message", "data", "count"})
+public class RespuestaApi<T> {
+
+    private boolean success;
+    private String message;
+    private T data;
+    private Integer count;
+
+    // Errores
+    private String error;
+    private List<String> errors;
+
+    // Paginación por cursor
+    private Long nextCursor;
+    private Boolean hasMore;
+
+    // Búsqueda de texto completo
+    private Long total;
+    private Boolean totalExact;
+    private Integer page;
+
+    /**
+     * Respuesta exitosa con un único dato (o sin dato si es null)
+     */
+    public static <T> RespuestaApi<T> exito(String mensaje, T datos) {
+        RespuestaApi<T> respuesta = new RespuestaApi<>();
+        respuesta.success = true;
+        respuesta.message = mensaje;
+        respuesta.data = datos;
+        return respuesta;
+    }
+
+    /**
+     * Respuesta exitosa con un listado; count es la cantidad de elementos
+     */
+    public static <T extends List<?>> RespuestaApi<T> lista(String mensaje, T datos) {
+        RespuestaApi<T> respuesta = exito(mensaje, datos);
+        respuesta.count = datos.size();
+        return respuesta;
+    }
+
+    /**
+     * Respuesta fallida con solo el mensaje (400, 409, 412)
+     */
+    public static <T> RespuestaApi<T> fallo(String mensaje) {
+        RespuestaApi<T> respuesta = new RespuestaApi<>();
+        respuesta.message = mensaje;
+        return respuesta;
+    }
+
+    /**
+     * Respuesta fallida por una excepción; error lleva el mensaje de la excepción
+     */
+    public static <T> RespuestaApi<T> error(String mensaje, String detalle) {
+        RespuestaApi<T> respuesta = fallo(mensaje);
+        respuesta.error = detalle;
+        return respuesta;
+    }
+
+    /**
+     * Respuesta fallida por errores de validación, uno por campo inválido
+     */
+    public static <T> RespuestaApi<T> errorValidacion(List<String> errores) {
+        RespuestaApi<T> respuesta = fallo("Error de validación");
+        respuesta.errors = errores;
+        return respuesta;
+    }
+}
@@ -0,0 +1,33 @@
+package flutter_backend.Ramirez.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de importar una fila de la carga masiva de Historias Clínicas
+ * El índice corresponde a la posición de la fila en el cuerpo de la petición (desde 0)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacionDTO {
+
+    public static final String ESTADO_CREADA = "CREADA";
+    public static final String ESTADO_RECHAZADA = "RECHAZADA";
+
+    private long indice;
+    private String estado;
+    private Long histId;
+    private List<String> errores;
+
+    public static ResultadoImportacionDTO creada(long indice, Long histId) {
+        return new ResultadoImportacionDTO(indice, ESTADO_CREADA, histId, List.of());
+    }
+
+    public static ResultadoImportacionDTO rechazada(long indice, List<String> errores) {
+        return new ResultadoImportacionDTO(indice, ESTADO_RECHAZADA, null, errores);
+    }
+}
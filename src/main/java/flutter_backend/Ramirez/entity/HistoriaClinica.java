@@ -7,35 +7,59 @@ import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import flutter_backend.Ramirez.config.AnalizadorEspanolConfigurer;
 
 import java.time.LocalDate;
 
 /**
  * Entidad HistoriaClinica
  * Representa una historia clínica asociada a un paciente y un médico
+ * Diagnóstico, análisis y tratamiento se indexan en Lucene (Hibernate Search) para la búsqueda de texto completo
  */
 @Entity
-@Table(name = "historias_clinicas")
+@Indexed(index = "historias_clinicas")
+@Table(name = "historias_clinicas", indexes = {
+    @Index(name = "idx_historias_paciente_fecha", columnList = "PAC_DNI, HIST_Fecha_Atencion"),
+    @Index(name = "idx_historias_medico_fecha_paciente", columnList = "MED_Cmp, HIST_Fecha_Atencion, PAC_DNI"),
+    @Index(name = "idx_historias_fecha", columnList = "HIST_Fecha_Atencion")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class HistoriaClinica {
 
+    /**
+     * Se usa una secuencia con optimizador pooled en lugar de IDENTITY para que Hibernate
+     * pueda agrupar los INSERT en lotes JDBC (en MySQL la secuencia se emula con una tabla)
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "historia_clinica_seq")
+    @SequenceGenerator(name = "historia_clinica_seq", sequenceName = "historias_clinicas_seq", allocationSize = 50)
     @Column(name = "HIST_Id")
     private Long histId;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    /**
+     * Las asociaciones perezosas quedan fuera de toString, equals y hashCode: con la historia separada
+     * de su sesión, tocar el proxy lanzaría LazyInitializationException
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "PAC_DNI", referencedColumnName = "PAC_DNI", nullable = false)
     @NotNull(message = "El paciente es obligatorio")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Paciente paciente;
 
-    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "MED_Cmp", referencedColumnName = "MED_Cmp", nullable = false)
     @NotNull(message = "El médico es obligatorio")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Medico medico;
 
     @Column(name = "HIST_Fecha_Atencion", nullable = false)
@@ -47,17 +71,27 @@ public class HistoriaClinica {
     @Column(name = "HIST_Diagnostico", nullable = false, columnDefinition = "TEXT")
     @NotBlank(message = "El diagnóstico es obligatorio")
     @Size(min = 10, max = 5000, message = "El diagnóstico debe tener entre 10 y 5000 caracteres")
+    @FullTextField(analyzer = AnalizadorEspanolConfigurer.ANALIZADOR_ESPANOL)
     private String histDiagnostico;
 
     @Column(name = "HIST_Analisis", columnDefinition = "TEXT")
     @Size(max = 5000, message = "El análisis debe tener máximo 5000 caracteres")
+    @FullTextField(analyzer = AnalizadorEspanolConfigurer.ANALIZADOR_ESPANOL)
     private String histAnalisis;
 
     @Column(name = "HIST_Tratamiento", nullable = false, columnDefinition = "TEXT")
     @NotBlank(message = "El tratamiento es obligatorio")
     @Size(min = 10, max = 5000, message = "El tratamiento debe tener entre 10 y 5000 caracteres")
+    @FullTextField(analyzer = AnalizadorEspanolConfigurer.ANALIZADOR_ESPANOL)
     private String histTratamiento;
 
+    /**
+     * Versión de la fila: se incrementa en cada actualización y se usa como ETag
+     */
+    @Version
+    @Column(name = "HIST_Version", nullable = false)
+    private Long histVersion;
+
     /**
      * Método que se ejecuta antes de persistir la entidad
      * Establece la fecha de atención al día actual si no se proporcionó
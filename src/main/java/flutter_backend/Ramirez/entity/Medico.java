@@ -7,6 +7,8 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.util.List;
@@ -16,7 +18,11 @@ import java.util.List;
  * Representa la información de un médico en el sistema de gestión de historias clínicas
  */
 @Entity
-@Table(name = "medicos")
+@Table(name = "medicos", indexes = {
+    @Index(name = "idx_medicos_especialidad", columnList = "ESPE_Nombre")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "medicos")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,14 +49,48 @@ public class Medico {
     @Size(min = 2, max = 100, message = "La especialidad debe tener entre 2 y 100 caracteres")
     private String espeNombre;
 
+    /**
+     * Versión de la fila: se incrementa en cada actualización y se usa como ETag
+     */
+    @Version
+    @Column(name = "MED_Version", nullable = false)
+    @JsonIgnore
+    private Long medVersion;
+
+    /**
+     * Nombre y apellidos para mostrar, recalculado antes de cada INSERT y UPDATE
+     * Las proyecciones lo leen directamente en lugar de concatenarlo en cada fila
+     */
+    @Column(name = "MED_Nombre_Completo", nullable = false, length = 301)
+    @JsonIgnore
+    private String medNombreCompleto;
+
     @OneToMany(mappedBy = "medico", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<HistoriaClinica> historiasClinicas;
 
+    /**
+     * Recalcula el nombre completo antes de cada INSERT y UPDATE
+     */
+    @PrePersist
+    @PreUpdate
+    void calcularColumnasDerivadas() {
+        medNombreCompleto = medNombre + " " + medApellidos;
+    }
+
+    /**
+     * Método helper para obtener el nombre y apellidos del médico
+     * Devuelve el valor guardado; solo lo construye si el médico todavía no se ha guardado
+     */
+    @JsonIgnore
+    public String getNombreCompleto() {
+        return medNombreCompleto != null ? medNombreCompleto : medNombre + " " + medApellidos;
+    }
+
     /**
      * Método helper para obtener el nombre completo del médico con su especialidad
      */
     public String getNombreCompletoConEspecialidad() {
-        return medNombre + " " + medApellidos + " - " + espeNombre;
+        return getNombreCompleto() + " - " + espeNombre;
     }
 }
@@ -7,7 +7,10 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import flutter_backend.Ramirez.config.TextoBusqueda;
 
 import java.util.List;
 
@@ -17,6 +20,8 @@ import java.util.List;
  */
 @Entity
 @Table(name = "pacientes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pacientes")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -50,14 +55,60 @@ public class Paciente {
     @Pattern(regexp = "^[0-9]{9,15}$", message = "El teléfono debe contener entre 9 y 15 dígitos")
     private String pacTelefono;
 
+    /**
+     * Versión de la fila: se incrementa en cada actualización y se usa como ETag
+     */
+    @Version
+    @Column(name = "PAC_Version", nullable = false)
+    @JsonIgnore
+    private Long pacVersion;
+
+    /**
+     * Nombre completo para mostrar, recalculado antes de cada INSERT y UPDATE
+     * Las proyecciones lo leen directamente en lugar de concatenar nombre y apellidos en cada fila
+     */
+    @Column(name = "PAC_Nombre_Completo", nullable = false, length = 302)
+    @JsonIgnore
+    private String pacNombreCompleto;
+
+    // Nombre y apellidos normalizados con TextoBusqueda para la búsqueda por prefijo (columnas indexadas)
+    @Column(name = "PAC_Nombre_Busqueda", length = 100)
+    @JsonIgnore
+    private String pacNombreBusqueda;
+
+    @Column(name = "PAC_Apellido_Paterno_Busqueda", length = 100)
+    @JsonIgnore
+    private String pacApellidoPaternoBusqueda;
+
+    @Column(name = "PAC_Apellido_Materno_Busqueda", length = 100)
+    @JsonIgnore
+    private String pacApellidoMaternoBusqueda;
+
     @OneToMany(mappedBy = "paciente", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<HistoriaClinica> historiasClinicas;
 
+    /**
+     * Recalcula el nombre completo y las columnas de búsqueda antes de cada INSERT y UPDATE
+     */
+    @PrePersist
+    @PreUpdate
+    void calcularColumnasDerivadas() {
+        pacNombreCompleto = construirNombreCompleto();
+        pacNombreBusqueda = TextoBusqueda.normalizar(pacNombre);
+        pacApellidoPaternoBusqueda = TextoBusqueda.normalizar(pacApellidoPaterno);
+        pacApellidoMaternoBusqueda = TextoBusqueda.normalizar(pacApellidoMaterno);
+    }
+
     /**
      * Método helper para obtener el nombre completo del paciente
+     * Devuelve el valor guardado; solo lo construye si el paciente todavía no se ha guardado
      */
     public String getNombreCompleto() {
+        return pacNombreCompleto != null ? pacNombreCompleto : construirNombreCompleto();
+    }
+
+    private String construirNombreCompleto() {
         StringBuilder nombreCompleto = new StringBuilder(pacNombre);
         nombreCompleto.append(" ").append(pacApellidoPaterno);
         if (pacApellidoMaterno != null && !pacApellidoMaterno.isEmpty()) {
@@ -0,0 +1,27 @@
+package flutter_backend.Ramirez.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidad ResumenDiarioHistoria
+ * Cantidad de atenciones (historias clínicas) de un médico en un día
+ * Se mantiene de forma incremental al registrar, actualizar y eliminar historias
+ */
+@Entity
+@Table(name = "resumen_diario_historias", indexes = {
+    @Index(name = "idx_resumen_medico_fecha", columnList = "MED_Cmp, RES_Fecha")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenDiarioHistoria {
+
+    @EmbeddedId
+    private ResumenDiarioHistoriaId id;
+
+    @Column(name = "RES_Atenciones", nullable = false)
+    private Long atenciones;
+}
@@ -0,0 +1,26 @@
+package flutter_backend.Ramirez.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Clave del resumen diario: fecha de atención y médico
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenDiarioHistoriaId implements Serializable {
+
+    @Column(name = "RES_Fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "MED_Cmp", length = 10, nullable = false)
+    private String medCmp;
+}
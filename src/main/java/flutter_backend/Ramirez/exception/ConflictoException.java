@@ -0,0 +1,11 @@
+package flutter_backend.Ramirez.exception;
+
+/**
+ * Se lanza cuando la operación choca con el estado actual, por ejemplo un DNI o CMP ya registrado (409)
+ */
+public class ConflictoException extends ExcepcionDominio {
+
+    public ConflictoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,13 @@
+package flutter_backend.Ramirez.exception;
+
+/**
+ * Base de las excepciones de dominio que ManejadorGlobalExcepciones traduce a un código HTTP
+ * No capturan stack trace: son respuestas esperadas (un ID inexistente, un duplicado), no fallos,
+ * y recorrer la pila en cada una encarece justamente las peticiones más baratas de responder
+ */
+public abstract class ExcepcionDominio extends RuntimeException {
+
+    protected ExcepcionDominio(String mensaje) {
+        super(mensaje, null, false, false);
+    }
+}
@@ -0,0 +1,93 @@
+package flutter_backend.Ramirez.exception;
+
+import flutter_backend.Ramirez.dto.RespuestaApi;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+
+import java.util.List;
+
+/**
+ * Traduce las excepciones de todos los controladores a respuestas RespuestaApi con su código HTTP
+ * Los controladores solo lanzan; ya no arman cada uno su propia respuesta 500
+ */
+@Slf4j
+@RestControllerAdvice
+public class ManejadorGlobalExcepciones {
+
+    @ExceptionHandler(RecursoNoEncontradoException.class)
+    public ResponseEntity<RespuestaApi<Void>> manejarNoEncontrado(RecursoNoEncontradoException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(RespuestaApi.fallo(e.getMessage()));
+    }
+
+    @ExceptionHandler(ConflictoException.class)
+    public ResponseEntity<RespuestaApi<Void>> manejarConflicto(ConflictoException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(RespuestaApi.fallo(e.getMessage()));
+    }
+
+    /**
+     * Otra petición modificó el registro entre la lectura y el commit (@Version)
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<RespuestaApi<Void>> manejarModificacionConcurrente(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(RespuestaApi.fallo(
+            "El registro fue modificado por otra petición; vuelva a cargarlo e intente de nuevo"));
+    }
+
+    @ExceptionHandler(PrecondicionFallidaException.class)
+    public ResponseEntity<RespuestaApi<Void>> manejarPrecondicionFallida(PrecondicionFallidaException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+            .eTag(e.getEtagActual())
+            .body(RespuestaApi.fallo(e.getMessage()));
+    }
+
+    @ExceptionHandler(ValidacionException.class)
+    public ResponseEntity<RespuestaApi<Void>> manejarValidacion(ValidacionException e) {
+        RespuestaApi<Void> respuesta = e.getErrores() != null
+            ? RespuestaApi.errorValidacion(e.getErrores())
+            : RespuestaApi.fallo(e.getMessage());
+        return ResponseEntity.badRequest().body(respuesta);
+    }
+
+    /**
+     * Errores de @Valid sobre el cuerpo de la petición, uno por campo inválido
+     */
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<RespuestaApi<Void>> manejarCuerpoInvalido(MethodArgumentNotValidException e) {
+        List<String> errores = e.getBindingResult().getFieldErrors()
+            .stream()
+            .map(error -> error.getField() + ": " + error.getDefaultMessage())
+            .toList();
+        return ResponseEntity.badRequest().body(RespuestaApi.errorValidacion(errores));
+    }
+
+    /**
+     * El cliente cerró la conexión (por ejemplo, un canal de eventos): ya no hay a quién responder
+     */
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void manejarClienteDesconectado(AsyncRequestNotUsableException e) {
+        log.debug("Cliente desconectado: {}", e.getMessage());
+    }
+
+    /**
+     * Las excepciones propias de Spring MVC (parámetro faltante, JSON mal formado, ruta inexistente)
+     * conservan su código 4xx; cualquier otra es un error inesperado y responde 500
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<RespuestaApi<Void>> manejarError(Exception e) {
+        if (e instanceof ErrorResponse errorResponse) {
+            HttpStatusCode estado = errorResponse.getStatusCode();
+            return ResponseEntity.status(estado).body(RespuestaApi.error("No se pudo atender la petición", e.getMessage()));
+        }
+        log.error("Error no controlado al atender la petición", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(RespuestaApi.error("Error interno del servidor", e.getMessage()));
+    }
+}
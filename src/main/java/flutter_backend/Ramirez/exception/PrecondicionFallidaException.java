@@ -0,0 +1,18 @@
+package flutter_backend.Ramirez.exception;
+
+import lombok.Getter;
+
+/**
+ * Se lanza cuando el If-Match de una actualización no coincide con la versión actual del recurso
+ * Lleva la ETag vigente para que el cliente pueda recargar el recurso y reintentar (412)
+ */
+@Getter
+public class PrecondicionFallidaException extends ExcepcionDominio {
+
+    private final String etagActual;
+
+    public PrecondicionFallidaException(String mensaje, String etagActual) {
+        super(mensaje);
+        this.etagActual = etagActual;
+    }
+}
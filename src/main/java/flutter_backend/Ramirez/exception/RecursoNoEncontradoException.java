@@ -0,0 +1,11 @@
+package flutter_backend.Ramirez.exception;
+
+/**
+ * Se lanza cuando el paciente, médico o historia clínica pedido no existe (404)
+ */
+public class RecursoNoEncontradoException extends ExcepcionDominio {
+
+    public RecursoNoEncontradoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,24 @@
+package flutter_backend.Ramirez.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Se lanza cuando los parámetros de la petición no son válidos (400)
+ * Puede llevar un error por campo, que se devuelve en errors
+ */
+@Getter
+public class ValidacionException extends ExcepcionDominio {
+
+    private final List<String> errores;
+
+    public ValidacionException(String mensaje) {
+        this(mensaje, null);
+    }
+
+    public ValidacionException(String mensaje, List<String> errores) {
+        super(mensaje);
+        this.errores = errores;
+    }
+}
@@ -0,0 +1,112 @@
+package flutter_backend.Ramirez.repository;
+
+import flutter_backend.Ramirez.exception.ValidacionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Campos de HistoriaClinicaResponseDTO que se pueden pedir por separado (parámetros fields y view)
+ * Cada campo conoce la expresión JPQL que lo obtiene y si necesita unir paciente o médico,
+ * de modo que la consulta solo lee las columnas pedidas
+ */
+public enum CampoHistoriaClinica {
+
+    HIST_ID("histId", "h.histId", Union.NINGUNA),
+    PAC_DNI("pacDni", "h.paciente.pacDni", Union.NINGUNA),
+    PAC_NOMBRE_COMPLETO("pacNombreCompleto", "p.pacNombreCompleto", Union.PACIENTE),
+    PAC_TELEFONO("pacTelefono", "p.pacTelefono", Union.PACIENTE),
+    MED_CMP("medCmp", "h.medico.medCmp", Union.NINGUNA),
+    MED_NOMBRE_COMPLETO("medNombreCompleto", "m.medNombreCompleto", Union.MEDICO),
+    MED_ESPECIALIDAD("medEspecialidad", "m.espeNombre", Union.MEDICO),
+    HIST_FECHA_ATENCION("histFechaAtencion", "h.histFechaAtencion", Union.NINGUNA),
+    HIST_DIAGNOSTICO("histDiagnostico", "h.histDiagnostico", Union.NINGUNA),
+    HIST_ANALISIS("histAnalisis", "h.histAnalisis", Union.NINGUNA),
+    HIST_TRATAMIENTO("histTratamiento", "h.histTratamiento", Union.NINGUNA);
+
+    /**
+     * Vista completa: todos los campos, se responde con HistoriaClinicaResponseDTO
+     */
+    public static final String VISTA_COMPLETA = "full";
+
+    /**
+     * Vista resumida: lo que muestran los listados, sin los tres campos de texto
+     */
+    public static final String VISTA_RESUMEN = "summary";
+
+    private static final Set<CampoHistoriaClinica> CAMPOS_RESUMEN = EnumSet.of(
+        HIST_ID, PAC_DNI, PAC_NOMBRE_COMPLETO, MED_CMP, MED_NOMBRE_COMPLETO, MED_ESPECIALIDAD, HIST_FECHA_ATENCION);
+
+    enum Union { NINGUNA, PACIENTE, MEDICO }
+
+    private final String nombre;
+    private final String expresion;
+    private final Union union;
+
+    CampoHistoriaClinica(String nombre, String expresion, Union union) {
+        this.nombre = nombre;
+        this.expresion = expresion;
+        this.union = union;
+    }
+
+    /**
+     * Nombre del campo en el JSON (igual a la propiedad de HistoriaClinicaResponseDTO)
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    String getExpresion() {
+        return expresion;
+    }
+
+    Union getUnion() {
+        return union;
+    }
+
+    /**
+     * Interpreta los parámetros view y fields de los listados
+     * fields tiene prioridad sobre view; histId se incluye siempre porque es el cursor de paginación
+     * @param view full (por defecto) o summary
+     * @param fields Lista de campos separados por comas
+     * @return Campos en el orden del DTO, o null si se pidió la vista completa
+     * @throws ValidacionException si la vista o algún campo no existen
+     */
+    public static List<CampoHistoriaClinica> resolver(String view, String fields) {
+        if (fields != null && !fields.isBlank()) {
+            Set<CampoHistoriaClinica> campos = EnumSet.of(HIST_ID);
+            List<String> desconocidos = new ArrayList<>();
+            for (String nombre : fields.split(",")) {
+                String nombreLimpio = nombre.trim();
+                if (nombreLimpio.isEmpty()) {
+                    continue;
+                }
+                Arrays.stream(values())
+                    .filter(campo -> campo.nombre.equals(nombreLimpio))
+                    .findFirst()
+                    .ifPresentOrElse(campos::add, () -> desconocidos.add(nombreLimpio));
+            }
+            if (!desconocidos.isEmpty()) {
+                throw new ValidacionException("Campos desconocidos: " + String.join(", ", desconocidos)
+                    + ". Campos disponibles: " + Arrays.stream(values())
+                        .map(CampoHistoriaClinica::getNombre)
+                        .collect(Collectors.joining(", ")));
+            }
+            return List.copyOf(campos);
+        }
+
+        if (view == null || view.isBlank() || view.toLowerCase(Locale.ROOT).equals(VISTA_COMPLETA)) {
+            return null;
+        }
+        if (view.toLowerCase(Locale.ROOT).equals(VISTA_RESUMEN)) {
+            return List.copyOf(CAMPOS_RESUMEN);
+        }
+        throw new ValidacionException("Vista desconocida: " + view
+            + ". Vistas disponibles: " + VISTA_COMPLETA + ", " + VISTA_RESUMEN);
+    }
+}
@@ -0,0 +1,47 @@
+package flutter_backend.Ramirez.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Consultas de historias clínicas que seleccionan solo los campos pedidos
+ * Cada fila se devuelve como un mapa nombre → valor en el orden del DTO, y los campos
+ * de texto (diagnóstico, análisis, tratamiento) únicamente se leen si se incluyen en campos
+ */
+public interface HistoriaClinicaCamposRepository {
+
+    /**
+     * Equivalente a findDtoByHistIdIn con solo los campos indicados
+     */
+    List<Map<String, Object>> findCamposByHistIdIn(List<CampoHistoriaClinica> campos, Collection<Long> histIds);
+
+    /**
+     * Equivalente a findDtoPaginaDespuesDe con solo los campos indicados
+     */
+    List<Map<String, Object>> findCamposPaginaDespuesDe(List<CampoHistoriaClinica> campos, Long after, int limit);
+
+    /**
+     * Equivalente a streamDtoTodas con solo los campos indicados
+     * Debe consumirse dentro de una transacción y cerrarse al terminar
+     */
+    Stream<Map<String, Object>> streamCamposTodas(List<CampoHistoriaClinica> campos);
+
+    /**
+     * Equivalente a findDtoByPacDni con solo los campos indicados
+     */
+    List<Map<String, Object>> findCamposByPacDni(List<CampoHistoriaClinica> campos, String pacDni);
+
+    /**
+     * Equivalente a findDtoByMedCmp con solo los campos indicados
+     */
+    List<Map<String, Object>> findCamposByMedCmp(List<CampoHistoriaClinica> campos, String medCmp);
+
+    /**
+     * Equivalente a findDtoByFechaAtencionBetween con solo los campos indicados
+     */
+    List<Map<String, Object>> findCamposByFechaAtencionBetween(List<CampoHistoriaClinica> campos,
+                                                               LocalDate fechaInicio, LocalDate fechaFin);
+}
@@ -0,0 +1,113 @@
+package flutter_backend.Ramirez.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Implementación de HistoriaClinicaCamposRepository con consultas JPQL armadas a partir de los campos pedidos
+ * Las expresiones provienen siempre de CampoHistoriaClinica, nunca del texto recibido en la petición,
+ * y paciente o médico solo se unen si algún campo pedido los necesita
+ */
+@RequiredArgsConstructor
+class HistoriaClinicaCamposRepositoryImpl implements HistoriaClinicaCamposRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findCamposByHistIdIn(List<CampoHistoriaClinica> campos, Collection<Long> histIds) {
+        return crearConsulta(campos, "WHERE h.histId IN :histIds")
+            .setParameter("histIds", histIds)
+            .getResultStream()
+            .map(fila -> aMapa(campos, fila))
+            .toList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findCamposPaginaDespuesDe(List<CampoHistoriaClinica> campos, Long after, int limit) {
+        return crearConsulta(campos, "WHERE h.histId > :after ORDER BY h.histId ASC")
+            .setParameter("after", after)
+            .setMaxResults(limit)
+            .getResultStream()
+            .map(fila -> aMapa(campos, fila))
+            .toList();
+    }
+
+    @Override
+    public Stream<Map<String, Object>> streamCamposTodas(List<CampoHistoriaClinica> campos) {
+        return crearConsulta(campos, "ORDER BY h.histId ASC")
+            .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+            .getResultStream()
+            .map(fila -> aMapa(campos, fila));
+    }
+
+    @Override
+    public List<Map<String, Object>> findCamposByPacDni(List<CampoHistoriaClinica> campos, String pacDni) {
+        return crearConsulta(campos, "WHERE h.paciente.pacDni = :pacDni ORDER BY h.histFechaAtencion DESC")
+            .setParameter("pacDni", pacDni)
+            .getResultStream()
+            .map(fila -> aMapa(campos, fila))
+            .toList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findCamposByMedCmp(List<CampoHistoriaClinica> campos, String medCmp) {
+        return crearConsulta(campos, "WHERE h.medico.medCmp = :medCmp ORDER BY h.histFechaAtencion DESC")
+            .setParameter("medCmp", medCmp)
+            .getResultStream()
+            .map(fila -> aMapa(campos, fila))
+            .toList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findCamposByFechaAtencionBetween(List<CampoHistoriaClinica> campos,
+                                                                      LocalDate fechaInicio, LocalDate fechaFin) {
+        return crearConsulta(campos, "WHERE h.histFechaAtencion BETWEEN :fechaInicio AND :fechaFin "
+                + "ORDER BY h.histFechaAtencion DESC")
+            .setParameter("fechaInicio", fechaInicio)
+            .setParameter("fechaFin", fechaFin)
+            .getResultStream()
+            .map(fila -> aMapa(campos, fila))
+            .toList();
+    }
+
+    /**
+     * Arma SELECT (solo los campos pedidos) + FROM (solo las uniones necesarias) + la condición recibida
+     */
+    private TypedQuery<Tuple> crearConsulta(List<CampoHistoriaClinica> campos, String condicion) {
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        for (int i = 0; i < campos.size(); i++) {
+            CampoHistoriaClinica campo = campos.get(i);
+            if (i > 0) {
+                jpql.append(", ");
+            }
+            jpql.append(campo.getExpresion()).append(" AS ").append(campo.getNombre());
+        }
+        jpql.append(" FROM HistoriaClinica h");
+        if (campos.stream().anyMatch(campo -> campo.getUnion() == CampoHistoriaClinica.Union.PACIENTE)) {
+            jpql.append(" JOIN h.paciente p");
+        }
+        if (campos.stream().anyMatch(campo -> campo.getUnion() == CampoHistoriaClinica.Union.MEDICO)) {
+            jpql.append(" JOIN h.medico m");
+        }
+        jpql.append(' ').append(condicion);
+        return entityManager.createQuery(jpql.toString(), Tuple.class);
+    }
+
+    private static Map<String, Object> aMapa(List<CampoHistoriaClinica> campos, Tuple fila) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        for (CampoHistoriaClinica campo : campos) {
+            mapa.put(campo.getNombre(), fila.get(campo.getNombre()));
+        }
+        return mapa;
+    }
+}
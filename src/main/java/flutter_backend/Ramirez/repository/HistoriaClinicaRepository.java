@@ -1,27 +1,153 @@
 package flutter_backend.Ramirez.repository;
 
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.dto.PacientesPorMedicoDTO;
 import flutter_backend.Ramirez.entity.HistoriaClinica;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository para la entidad HistoriaClinica
  * Proporciona métodos para realizar operaciones CRUD sobre historias clínicas
  */
 @Repository
-public interface HistoriaClinicaRepository extends JpaRepository<HistoriaClinica, Long> {
+public interface HistoriaClinicaRepository extends JpaRepository<HistoriaClinica, Long>, HistoriaClinicaCamposRepository {
+
+    /**
+     * Consulta base que selecciona directamente en HistoriaClinicaResponseDTO con un único join,
+     * sin hidratar entidades ni registrarlas en el contexto de persistencia
+     */
+    String SELECT_RESPONSE_DTO = "SELECT new flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO("
+        + "h.histId, p.pacDni, "
+        + "p.pacNombreCompleto, p.pacTelefono, m.medCmp, m.medNombreCompleto, m.espeNombre, "
+        + "h.histFechaAtencion, h.histDiagnostico, h.histAnalisis, h.histTratamiento) "
+        + "FROM HistoriaClinica h JOIN h.paciente p JOIN h.medico m ";
+
+    /**
+     * Obtiene una historia clínica por su ID proyectada directamente en el DTO de respuesta
+     * @param histId ID de la historia clínica
+     * @return Optional con el DTO si existe
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE h.histId = :histId")
+    Optional<HistoriaClinicaResponseDTO> findDtoById(@Param("histId") Long histId);
+
+    /**
+     * Obtiene varias historias clínicas por sus IDs proyectadas directamente en el DTO de respuesta
+     * El orden no está garantizado; quien llama debe reordenarlas si lo necesita
+     * @param histIds IDs de las historias clínicas
+     * @return Lista de DTOs de las historias encontradas
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE h.histId IN :histIds")
+    List<HistoriaClinicaResponseDTO> findDtoByHistIdIn(@Param("histIds") Collection<Long> histIds);
+
+    /**
+     * Obtiene una página de historias clínicas usando paginación por cursor (keyset sobre histId)
+     * @param after ID de la última historia recibida; se devuelven las de ID mayor
+     * @param limit Cantidad máxima de historias a devolver
+     * @return Lista de DTOs ordenados por ID ascendente
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE h.histId > :after ORDER BY h.histId ASC")
+    List<HistoriaClinicaResponseDTO> findDtoPaginaDespuesDe(@Param("after") Long after, Limit limit);
+
+    /**
+     * Recorre todas las historias clínicas como un Stream de DTOs ordenado por ID.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     * @return Stream de DTOs de historias clínicas
+     */
+    @Query(SELECT_RESPONSE_DTO + "ORDER BY h.histId ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<HistoriaClinicaResponseDTO> streamDtoTodas();
+
+    /**
+     * Busca las historias clínicas de un paciente proyectadas en el DTO de respuesta
+     * @param pacDni DNI del paciente
+     * @return Lista de DTOs de historias clínicas del paciente, de la más reciente a la más antigua
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE p.pacDni = :pacDni ORDER BY h.histFechaAtencion DESC, h.histId DESC")
+    List<HistoriaClinicaResponseDTO> findDtoByPacDni(@Param("pacDni") String pacDni);
+
+    /**
+     * Obtiene la versión de una historia y las de su paciente y médico, sin leer los campos de texto
+     * Sirve para calcular la ETag de la historia
+     * @param histId ID de la historia clínica
+     * @return Lista con una tupla [histVersion, pacVersion, medVersion], o vacía si no existe
+     */
+    @Query("SELECT h.histVersion, p.pacVersion, m.medVersion "
+        + "FROM HistoriaClinica h JOIN h.paciente p JOIN h.medico m WHERE h.histId = :histId")
+    List<Object[]> findVersionesById(@Param("histId") Long histId);
+
+    /**
+     * Obtiene las versiones de las historias de un paciente y de los médicos y el paciente que
+     * aparecen en ellas, sin leer los campos de texto. Sirve para calcular la ETag del listado
+     * @param pacDni DNI del paciente
+     * @return Tuplas [histId, histVersion, pacVersion, medVersion] ordenadas por ID
+     */
+    @Query("SELECT h.histId, h.histVersion, p.pacVersion, m.medVersion "
+        + "FROM HistoriaClinica h JOIN h.paciente p JOIN h.medico m "
+        + "WHERE p.pacDni = :pacDni ORDER BY h.histId ASC")
+    List<Object[]> findVersionesByPacDni(@Param("pacDni") String pacDni);
+
+    /**
+     * Cuenta los pacientes distintos atendidos por cada médico en un rango de fechas
+     * No se puede sumar por día, por eso se calcula sobre las historias (índice médico, fecha, paciente)
+     */
+    @Query("SELECT new flutter_backend.Ramirez.dto.PacientesPorMedicoDTO("
+        + "m.medCmp, m.medNombreCompleto, COUNT(DISTINCT h.paciente.pacDni)) "
+        + "FROM HistoriaClinica h JOIN h.medico m "
+        + "WHERE h.histFechaAtencion BETWEEN :inicio AND :fin "
+        + "GROUP BY m.medCmp, m.medNombreCompleto "
+        + "ORDER BY COUNT(DISTINCT h.paciente.pacDni) DESC, m.medCmp ASC")
+    List<PacientesPorMedicoDTO> contarPacientesDistintosPorMedico(@Param("inicio") LocalDate inicio,
+                                                                 @Param("fin") LocalDate fin);
+
+    /**
+     * Busca las historias clínicas de un médico proyectadas en el DTO de respuesta
+     * @param medCmp CMP del médico
+     * @return Lista de DTOs de historias clínicas del médico
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE m.medCmp = :medCmp ORDER BY h.histFechaAtencion DESC")
+    List<HistoriaClinicaResponseDTO> findDtoByMedCmp(@Param("medCmp") String medCmp);
+
+    /**
+     * Busca historias clínicas por rango de fechas proyectadas en el DTO de respuesta
+     * @param fechaInicio Fecha de inicio del rango
+     * @param fechaFin Fecha de fin del rango
+     * @return Lista de DTOs de historias clínicas en el rango de fechas
+     */
+    @Query(SELECT_RESPONSE_DTO + "WHERE h.histFechaAtencion BETWEEN :fechaInicio AND :fechaFin ORDER BY h.histFechaAtencion DESC")
+    List<HistoriaClinicaResponseDTO> findDtoByFechaAtencionBetween(
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin
+    );
+
+    /**
+     * Obtiene una historia clínica por su ID cargando paciente y médico en la misma consulta
+     * @param histId ID de la historia clínica
+     * @return Optional con la historia clínica si existe
+     */
+    @Override
+    @EntityGraph(attributePaths = {"paciente", "medico"})
+    Optional<HistoriaClinica> findById(Long histId);
 
     /**
      * Busca todas las historias clínicas de un paciente específico
      * @param pacDni DNI del paciente
      * @return Lista de historias clínicas del paciente
      */
-    @Query("SELECT h FROM HistoriaClinica h WHERE h.paciente.pacDni = :pacDni ORDER BY h.histFechaAtencion DESC")
+    @Query("SELECT h FROM HistoriaClinica h JOIN FETCH h.paciente JOIN FETCH h.medico WHERE h.paciente.pacDni = :pacDni ORDER BY h.histFechaAtencion DESC")
     List<HistoriaClinica> findByPacientePacDni(@Param("pacDni") String pacDni);
 
     /**
@@ -29,7 +155,7 @@ public interface HistoriaClinicaRepository extends JpaRepository<HistoriaClinica
      * @param medCmp CMP del médico
      * @return Lista de historias clínicas del médico
      */
-    @Query("SELECT h FROM HistoriaClinica h WHERE h.medico.medCmp = :medCmp ORDER BY h.histFechaAtencion DESC")
+    @Query("SELECT h FROM HistoriaClinica h JOIN FETCH h.paciente JOIN FETCH h.medico WHERE h.medico.medCmp = :medCmp ORDER BY h.histFechaAtencion DESC")
     List<HistoriaClinica> findByMedicoMedCmp(@Param("medCmp") String medCmp);
 
     /**
@@ -38,7 +164,7 @@ public interface HistoriaClinicaRepository extends JpaRepository<HistoriaClinica
      * @param fechaFin Fecha de fin del rango
      * @return Lista de historias clínicas en el rango de fechas
      */
-    @Query("SELECT h FROM HistoriaClinica h WHERE h.histFechaAtencion BETWEEN :fechaInicio AND :fechaFin ORDER BY h.histFechaAtencion DESC")
+    @Query("SELECT h FROM HistoriaClinica h JOIN FETCH h.paciente JOIN FETCH h.medico WHERE h.histFechaAtencion BETWEEN :fechaInicio AND :fechaFin ORDER BY h.histFechaAtencion DESC")
     List<HistoriaClinica> findByFechaAtencionBetween(
         @Param("fechaInicio") LocalDate fechaInicio, 
         @Param("fechaFin") LocalDate fechaFin
@@ -50,7 +176,7 @@ public interface HistoriaClinicaRepository extends JpaRepository<HistoriaClinica
      * @param medCmp CMP del médico
      * @return Lista de historias clínicas
      */
-    @Query("SELECT h FROM HistoriaClinica h WHERE h.paciente.pacDni = :pacDni AND h.medico.medCmp = :medCmp ORDER BY h.histFechaAtencion DESC")
+    @Query("SELECT h FROM HistoriaClinica h JOIN FETCH h.paciente JOIN FETCH h.medico WHERE h.paciente.pacDni = :pacDni AND h.medico.medCmp = :medCmp ORDER BY h.histFechaAtencion DESC")
     List<HistoriaClinica> findByPacienteAndMedico(
         @Param("pacDni") String pacDni, 
         @Param("medCmp") String medCmp
@@ -1,11 +1,22 @@
 package flutter_backend.Ramirez.repository;
 
 import flutter_backend.Ramirez.entity.Medico;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repository para la entidad Medico
@@ -23,9 +34,18 @@ public interface MedicoRepository extends JpaRepository<Medico, String> {
 
     /**
      * Busca médicos por especialidad
+     * El resultado se guarda en la caché de consultas y se invalida al modificar la tabla de médicos
+     * Se ejecuta fuera de la transacción en curso para leer siempre de la primaria: Hibernate guarda en la caché
+     * de consultas lo que no encontró aunque la sesión use CacheStoreMode.BYPASS, y un resultado leído de una réplica
+     * atrasada se serviría hasta su vencimiento
      * @param espeNombre Nombre de la especialidad
      * @return Lista de médicos con esa especialidad
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "medicos-por-especialidad")
+    })
     List<Medico> findByEspeNombre(String espeNombre);
 
     /**
@@ -34,4 +54,31 @@ public interface MedicoRepository extends JpaRepository<Medico, String> {
      * @return true si existe, false en caso contrario
      */
     boolean existsByMedCmp(String medCmp);
+
+    /**
+     * Busca un médico bloqueando su fila hasta el fin de la transacción
+     * Mientras tanto no se le pueden registrar historias (la clave foránea espera al bloqueo)
+     * @param medCmp CMP del médico
+     * @return Optional con el médico si existe
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Medico m WHERE m.medCmp = :medCmp")
+    Optional<Medico> findParaEliminar(@Param("medCmp") String medCmp);
+
+    /**
+     * Obtiene el CMP y la versión de todos los médicos, sin leer el resto de columnas
+     * Sirve para calcular la ETag del listado
+     * @return Pares [medCmp, medVersion] ordenados por CMP
+     */
+    @Query("SELECT m.medCmp, m.medVersion FROM Medico m ORDER BY m.medCmp")
+    List<Object[]> findVersiones();
+
+    /**
+     * Obtiene, de un conjunto de identificadores, los que corresponden a médicos existentes
+     * Permite validar muchas referencias con una sola consulta
+     * @param cmps CMPs a verificar
+     * @return Conjunto de CMPs que existen
+     */
+    @Query("SELECT m.medCmp FROM Medico m WHERE m.medCmp IN :cmps")
+    Set<String> findMedCmpExistentes(@Param("cmps") Collection<String> cmps);
 }
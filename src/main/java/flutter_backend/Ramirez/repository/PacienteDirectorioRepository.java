@@ -0,0 +1,32 @@
+package flutter_backend.Ramirez.repository;
+
+import flutter_backend.Ramirez.dto.PacienteSugerenciaDTO;
+import flutter_backend.Ramirez.entity.Paciente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Consultas del directorio de pacientes sobre las columnas de búsqueda normalizadas
+ * Un texto formado solo por dígitos se busca como prefijo del DNI; cualquier otro se divide en palabras
+ * y cada palabra debe ser prefijo del nombre o de alguno de los apellidos
+ */
+public interface PacienteDirectorioRepository {
+
+    /**
+     * Lista una página del directorio, filtrada por el texto si se indica
+     * Devuelve un Slice (sin COUNT sobre toda la tabla); se ordena por el primer criterio de pageable:
+     * pacApellidoPaterno (por apellidos y nombre), pacApellidoMaterno, pacNombre o pacDni
+     * @param texto Texto buscado (opcional)
+     * @throws flutter_backend.Ramirez.exception.ValidacionException si el criterio de orden no está permitido
+     */
+    Slice<Paciente> buscarDirectorio(String texto, Pageable pageable);
+
+    /**
+     * Sugerencias mientras se escribe: primero coincidencias del apellido paterno, luego del materno
+     * y luego del nombre, cada una leída en orden del índice de su columna y cortada en el límite
+     * @param limite Cantidad máxima de sugerencias
+     */
+    List<PacienteSugerenciaDTO> sugerir(String texto, int limite);
+}
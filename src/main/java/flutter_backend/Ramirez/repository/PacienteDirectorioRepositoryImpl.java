@@ -0,0 +1,200 @@
+package flutter_backend.Ramirez.repository;
+
+import flutter_backend.Ramirez.config.TextoBusqueda;
+import flutter_backend.Ramirez.dto.PacienteSugerenciaDTO;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.exception.ValidacionException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementación de PacienteDirectorioRepository con JPQL armado a partir de listas fijas de columnas:
+ * del texto recibido solo se usan los valores de los parámetros LIKE
+ * Cada orden termina en las columnas de un índice de V8, así una página o una sugerencia se lee
+ * recorriendo el índice y se detiene en el límite en lugar de ordenar todas las coincidencias
+ */
+@RequiredArgsConstructor
+class PacienteDirectorioRepositoryImpl implements PacienteDirectorioRepository {
+
+    private static final String SELECT_SUGERENCIA = "SELECT new flutter_backend.Ramirez.dto.PacienteSugerenciaDTO("
+        + "p.pacDni, p.pacNombre, p.pacApellidoPaterno, p.pacApellidoMaterno) FROM Paciente p ";
+
+    private static final String ESCAPE = " ESCAPE '" + TextoBusqueda.ESCAPE_LIKE + "'";
+
+    /**
+     * Máximo de pacientes que se resuelven primero por índice en el directorio filtrado
+     */
+    private static final int LIMITE_CANDIDATOS = 1000;
+
+    /**
+     * Columna de búsqueda de cada propiedad de nombre, en el orden en que se ofrecen las sugerencias
+     */
+    private static final Map<String, String> COLUMNAS_BUSQUEDA = new LinkedHashMap<>();
+
+    /**
+     * Columnas de ORDER BY por propiedad ordenable; coinciden con los índices de V8 (o la clave primaria)
+     */
+    private static final Map<String, List<String>> ORDENES = Map.of(
+        "pacApellidoPaterno", List.of("p.pacApellidoPaternoBusqueda", "p.pacApellidoMaternoBusqueda",
+            "p.pacNombreBusqueda", "p.pacDni"),
+        "pacApellidoMaterno", List.of("p.pacApellidoMaternoBusqueda", "p.pacDni"),
+        "pacNombre", List.of("p.pacNombreBusqueda", "p.pacDni"),
+        "pacDni", List.of("p.pacDni"));
+
+    static {
+        COLUMNAS_BUSQUEDA.put("pacApellidoPaterno", "p.pacApellidoPaternoBusqueda");
+        COLUMNAS_BUSQUEDA.put("pacApellidoMaterno", "p.pacApellidoMaternoBusqueda");
+        COLUMNAS_BUSQUEDA.put("pacNombre", "p.pacNombreBusqueda");
+    }
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<Paciente> buscarDirectorio(String texto, Pageable pageable) {
+        List<String> palabras = TextoBusqueda.palabras(texto);
+        List<String> condiciones = new ArrayList<>();
+        Set<String> candidatos = null;
+        if (esDni(palabras)) {
+            condiciones.add("p.pacDni LIKE :p0" + ESCAPE);
+        } else if (!palabras.isEmpty()) {
+            // Un OR entre columnas distintas no usa ningún índice: si la palabra más larga es selectiva
+            // se resuelve antes con un recorrido de índice por columna y se filtra por esos DNI
+            palabras = ordenarPorLongitud(palabras);
+            candidatos = buscarCandidatos(palabras.get(0));
+            if (candidatos != null && candidatos.isEmpty()) {
+                return new SliceImpl<>(List.of(), pageable, false);
+            }
+            if (candidatos != null) {
+                condiciones.add("p.pacDni IN :candidatos");
+            }
+            for (int i = candidatos == null ? 0 : 1; i < palabras.size(); i++) {
+                condiciones.add(coincideAlgunaColumna("p" + i));
+            }
+        }
+
+        String jpql = "SELECT p FROM Paciente p"
+            + (condiciones.isEmpty() ? "" : " WHERE " + String.join(" AND ", condiciones))
+            + " ORDER BY " + ordenar(pageable.getSort());
+        TypedQuery<Paciente> consulta = entityManager.createQuery(jpql, Paciente.class);
+        if (candidatos != null) {
+            consulta.setParameter("candidatos", candidatos);
+            asignarPrefijos(consulta, palabras, 1);
+        } else {
+            asignarPrefijos(consulta, palabras, 0);
+        }
+
+        // Se pide una fila extra para saber si existe una página siguiente
+        List<Paciente> pacientes = consulta
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize() + 1)
+            .getResultList();
+        boolean hayMas = pacientes.size() > pageable.getPageSize();
+        return new SliceImpl<>(hayMas ? pacientes.subList(0, pageable.getPageSize()) : pacientes, pageable, hayMas);
+    }
+
+    @Override
+    public List<PacienteSugerenciaDTO> sugerir(String texto, int limite) {
+        List<String> palabras = TextoBusqueda.palabras(texto);
+        if (palabras.isEmpty()) {
+            return List.of();
+        }
+        if (esDni(palabras)) {
+            return entityManager.createQuery(SELECT_SUGERENCIA + "WHERE p.pacDni LIKE :p0" + ESCAPE
+                    + " ORDER BY p.pacDni", PacienteSugerenciaDTO.class)
+                .setParameter("p0", TextoBusqueda.patronPrefijo(palabras.get(0)))
+                .setMaxResults(limite)
+                .getResultList();
+        }
+
+        // La palabra más larga es la más selectiva: recorre el índice; las demás solo filtran
+        List<String> ordenadas = ordenarPorLongitud(palabras);
+        String condicionesResto = "";
+        for (int i = 1; i < ordenadas.size(); i++) {
+            condicionesResto += " AND " + coincideAlgunaColumna("p" + i);
+        }
+
+        Map<String, PacienteSugerenciaDTO> sugerencias = new LinkedHashMap<>();
+        for (Map.Entry<String, String> columna : COLUMNAS_BUSQUEDA.entrySet()) {
+            if (sugerencias.size() >= limite) {
+                break;
+            }
+            TypedQuery<PacienteSugerenciaDTO> consulta = entityManager.createQuery(SELECT_SUGERENCIA
+                + "WHERE " + columna.getValue() + " LIKE :p0" + ESCAPE + condicionesResto
+                + " ORDER BY " + String.join(", ", ORDENES.get(columna.getKey())), PacienteSugerenciaDTO.class);
+            asignarPrefijos(consulta, ordenadas, 0);
+            for (PacienteSugerenciaDTO sugerencia : consulta.setMaxResults(limite).getResultList()) {
+                sugerencias.putIfAbsent(sugerencia.getPacDni(), sugerencia);
+            }
+        }
+        return sugerencias.values().stream().limit(limite).toList();
+    }
+
+    /**
+     * DNI de los pacientes con alguna columna de nombre que empieza por la palabra
+     * @return null si hay más de LIMITE_CANDIDATOS: la palabra es poco selectiva y conviene recorrer
+     *         la tabla en el orden pedido, donde las coincidencias abundan y la página se llena pronto
+     */
+    private Set<String> buscarCandidatos(String palabra) {
+        Set<String> candidatos = new HashSet<>();
+        String patron = TextoBusqueda.patronPrefijo(palabra);
+        for (String columna : COLUMNAS_BUSQUEDA.values()) {
+            candidatos.addAll(entityManager.createQuery("SELECT p.pacDni FROM Paciente p WHERE "
+                    + columna + " LIKE :p0" + ESCAPE, String.class)
+                .setParameter("p0", patron)
+                .setMaxResults(LIMITE_CANDIDATOS + 1)
+                .getResultList());
+            if (candidatos.size() > LIMITE_CANDIDATOS) {
+                return null;
+            }
+        }
+        return candidatos;
+    }
+
+    private static List<String> ordenarPorLongitud(List<String> palabras) {
+        List<String> ordenadas = new ArrayList<>(palabras);
+        ordenadas.sort(Comparator.comparingInt(String::length).reversed());
+        return ordenadas;
+    }
+
+    private static boolean esDni(List<String> palabras) {
+        return palabras.size() == 1 && palabras.get(0).chars().allMatch(Character::isDigit);
+    }
+
+    private static String coincideAlgunaColumna(String parametro) {
+        List<String> alternativas = new ArrayList<>();
+        for (String columna : COLUMNAS_BUSQUEDA.values()) {
+            alternativas.add(columna + " LIKE :" + parametro + ESCAPE);
+        }
+        return "(" + String.join(" OR ", alternativas) + ")";
+    }
+
+    private static void asignarPrefijos(TypedQuery<?> consulta, List<String> palabras, int desde) {
+        for (int i = desde; i < palabras.size(); i++) {
+            consulta.setParameter("p" + i, TextoBusqueda.patronPrefijo(palabras.get(i)));
+        }
+    }
+
+    private static String ordenar(Sort sort) {
+        Sort.Order orden = sort.stream().findFirst().orElse(Sort.Order.asc("pacApellidoPaterno"));
+        List<String> columnas = ORDENES.get(orden.getProperty());
+        if (columnas == null) {
+            throw new ValidacionException("No se puede ordenar por " + orden.getProperty()
+                + ". Criterios disponibles: pacApellidoPaterno, pacApellidoMaterno, pacNombre, pacDni");
+        }
+        String direccion = orden.isAscending() ? " ASC" : " DESC";
+        return String.join(direccion + ", ", columnas) + direccion;
+    }
+}
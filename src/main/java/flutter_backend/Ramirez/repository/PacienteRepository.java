@@ -1,17 +1,23 @@
 package flutter_backend.Ramirez.repository;
 
 import flutter_backend.Ramirez.entity.Paciente;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repository para la entidad Paciente
  * Proporciona métodos para realizar operaciones CRUD sobre pacientes
  */
 @Repository
-public interface PacienteRepository extends JpaRepository<Paciente, String> {
+public interface PacienteRepository extends JpaRepository<Paciente, String>, PacienteDirectorioRepository {
 
     /**
      * Busca un paciente por su DNI
@@ -26,4 +32,23 @@ public interface PacienteRepository extends JpaRepository<Paciente, String> {
      * @return true si existe, false en caso contrario
      */
     boolean existsByPacDni(String pacDni);
+
+    /**
+     * Busca un paciente bloqueando su fila hasta el fin de la transacción
+     * Mientras tanto no se le pueden registrar historias (la clave foránea espera al bloqueo)
+     * @param pacDni DNI del paciente
+     * @return Optional con el paciente si existe
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Paciente p WHERE p.pacDni = :pacDni")
+    Optional<Paciente> findParaEliminar(@Param("pacDni") String pacDni);
+
+    /**
+     * Obtiene, de un conjunto de identificadores, los que corresponden a pacientes existentes
+     * Permite validar muchas referencias con una sola consulta
+     * @param dnis DNIs a verificar
+     * @return Conjunto de DNIs que existen
+     */
+    @Query("SELECT p.pacDni FROM Paciente p WHERE p.pacDni IN :dnis")
+    Set<String> findPacDniExistentes(@Param("dnis") Collection<String> dnis);
 }
@@ -0,0 +1,110 @@
+package flutter_backend.Ramirez.repository;
+
+import flutter_backend.Ramirez.dto.AtencionesPorDiaDTO;
+import flutter_backend.Ramirez.dto.AtencionesPorEspecialidadDTO;
+import flutter_backend.Ramirez.dto.AtencionesPorMedicoDTO;
+import flutter_backend.Ramirez.dto.AtencionesPorMesDTO;
+import flutter_backend.Ramirez.entity.ResumenDiarioHistoria;
+import flutter_backend.Ramirez.entity.ResumenDiarioHistoriaId;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository para el resumen diario de atenciones
+ * Las estadísticas agregadas se calculan con GROUP BY sobre este resumen en lugar de sobre las historias
+ */
+@Repository
+public interface ResumenDiarioHistoriaRepository extends JpaRepository<ResumenDiarioHistoria, ResumenDiarioHistoriaId> {
+
+    /**
+     * Suma (o resta, con cantidad negativa) atenciones al día y médico indicados, creando la fila si no existe
+     * Se declara el espacio de consulta para que Hibernate no invalide toda la caché de segundo nivel
+     */
+    @Modifying
+    @Query(value = "INSERT INTO resumen_diario_historias (RES_Fecha, MED_Cmp, RES_Atenciones) "
+        + "VALUES (:fecha, :medCmp, :cantidad) "
+        + "ON DUPLICATE KEY UPDATE RES_Atenciones = RES_Atenciones + :cantidad", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumen_diario_historias"))
+    void sumarAtenciones(@Param("fecha") LocalDate fecha, @Param("medCmp") String medCmp, @Param("cantidad") long cantidad);
+
+    /**
+     * Vuelve a contar las atenciones de un día y médico a partir de historias_clinicas
+     * Se usa cuando se eliminan historias en cascada al eliminar un paciente
+     */
+    @Modifying
+    @Query(value = "UPDATE resumen_diario_historias SET RES_Atenciones = ("
+        + "SELECT COUNT(*) FROM historias_clinicas h "
+        + "WHERE h.HIST_Fecha_Atencion = :fecha AND h.MED_Cmp = :medCmp) "
+        + "WHERE RES_Fecha = :fecha AND MED_Cmp = :medCmp", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "resumen_diario_historias"))
+    void recalcularAtenciones(@Param("fecha") LocalDate fecha, @Param("medCmp") String medCmp);
+
+    /**
+     * Elimina el resumen de un médico (sus historias se eliminan en cascada con él)
+     */
+    @Modifying
+    @Query("DELETE FROM ResumenDiarioHistoria r WHERE r.id.medCmp = :medCmp")
+    void deleteByMedCmp(@Param("medCmp") String medCmp);
+
+    /**
+     * Obtiene los pares de día y médico de las historias de un paciente
+     * @return Pares [fecha, medCmp] distintos
+     */
+    @Query("SELECT DISTINCT h.histFechaAtencion, h.medico.medCmp FROM HistoriaClinica h WHERE h.paciente.pacDni = :pacDni")
+    List<Object[]> findClavesByPacDni(@Param("pacDni") String pacDni);
+
+    /**
+     * Cuenta las atenciones por médico en un rango de fechas, de mayor a menor
+     */
+    @Query("SELECT new flutter_backend.Ramirez.dto.AtencionesPorMedicoDTO("
+        + "m.medCmp, m.medNombreCompleto, m.espeNombre, SUM(r.atenciones)) "
+        + "FROM ResumenDiarioHistoria r JOIN Medico m ON m.medCmp = r.id.medCmp "
+        + "WHERE r.id.fecha BETWEEN :inicio AND :fin "
+        + "GROUP BY m.medCmp, m.medNombreCompleto, m.espeNombre "
+        + "HAVING SUM(r.atenciones) > 0 "
+        + "ORDER BY SUM(r.atenciones) DESC, m.medCmp ASC")
+    List<AtencionesPorMedicoDTO> contarPorMedico(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    /**
+     * Cuenta las atenciones por especialidad en un rango de fechas, de mayor a menor
+     */
+    @Query("SELECT new flutter_backend.Ramirez.dto.AtencionesPorEspecialidadDTO(m.espeNombre, SUM(r.atenciones)) "
+        + "FROM ResumenDiarioHistoria r JOIN Medico m ON m.medCmp = r.id.medCmp "
+        + "WHERE r.id.fecha BETWEEN :inicio AND :fin "
+        + "GROUP BY m.espeNombre "
+        + "HAVING SUM(r.atenciones) > 0 "
+        + "ORDER BY SUM(r.atenciones) DESC, m.espeNombre ASC")
+    List<AtencionesPorEspecialidadDTO> contarPorEspecialidad(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    /**
+     * Cuenta las atenciones por día en un rango de fechas (solo los días con atenciones)
+     */
+    @Query("SELECT new flutter_backend.Ramirez.dto.AtencionesPorDiaDTO(r.id.fecha, SUM(r.atenciones)) "
+        + "FROM ResumenDiarioHistoria r "
+        + "WHERE r.id.fecha BETWEEN :inicio AND :fin "
+        + "GROUP BY r.id.fecha "
+        + "HAVING SUM(r.atenciones) > 0 "
+        + "ORDER BY r.id.fecha ASC")
+    List<AtencionesPorDiaDTO> contarPorDia(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    /**
+     * Cuenta las atenciones por mes en un rango de fechas (solo los meses con atenciones)
+     */
+    @Query("SELECT new flutter_backend.Ramirez.dto.AtencionesPorMesDTO("
+        + "YEAR(r.id.fecha), MONTH(r.id.fecha), SUM(r.atenciones)) "
+        + "FROM ResumenDiarioHistoria r "
+        + "WHERE r.id.fecha BETWEEN :inicio AND :fin "
+        + "GROUP BY YEAR(r.id.fecha), MONTH(r.id.fecha) "
+        + "HAVING SUM(r.atenciones) > 0 "
+        + "ORDER BY YEAR(r.id.fecha) ASC, MONTH(r.id.fecha) ASC")
+    List<AtencionesPorMesDTO> contarPorMes(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+}
@@ -0,0 +1,346 @@
+package flutter_backend.Ramirez.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Registro de auditoría con escritura diferida
+ * Los cambios confirmados de historias clínicas, pacientes y médicos se encolan en una cola acotada
+ * y un único hilo escritor los inserta por lotes en auditoria_cambios, fuera de la transacción
+ * de negocio y del tiempo de respuesta de la petición
+ *
+ * El escritor toma todo lo acumulado mientras escribía el lote anterior (hasta tamano-lote), así que
+ * con poca carga cada cambio se escribe enseguida y con mucha carga los lotes crecen solos
+ * Cuando la cola se llena, al-llenarse decide entre esperar hasta espera-maxima (BLOQUEAR) o
+ * descartar el cambio (DESCARTAR); un cambio nunca revierte la transacción que ya se confirmó
+ */
+@Slf4j
+@Service
+public class AuditoriaService implements SmartLifecycle {
+
+    private static final String INSERTAR = "INSERT INTO auditoria_cambios "
+        + "(AUD_Fecha, AUD_Entidad, AUD_Entidad_Id, AUD_Operacion, AUD_Antes, AUD_Despues) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final int INTENTOS_POR_LOTE = 3;
+    private static final Duration ESPERA_CIERRE = Duration.ofSeconds(10);
+
+    private static final ThreadLocal<List<CompletableFuture<Void>>> CONFIRMACIONES = new ThreadLocal<>();
+
+    public enum Operacion { CREAR, ACTUALIZAR, ELIMINAR }
+
+    /**
+     * Qué hacer cuando la cola está llena
+     */
+    public enum AlLlenarse { BLOQUEAR, DESCARTAR }
+
+    /**
+     * ASINCRONA: la petición termina sin esperar la escritura; una caída pierde los cambios aún en cola
+     * CONFIRMADA: las peticiones de escritura terminan después de que sus cambios se escribieron
+     * (ConfirmacionAuditoriaFilter); los cambios que llegan juntos comparten un mismo lote.
+     * Si un cambio se descarta o no se escribe a tiempo, la petición responde 503 en lugar de su 2xx
+     */
+    public enum Durabilidad { ASINCRONA, CONFIRMADA }
+
+    /**
+     * Cambio confirmado de una entidad; antes es null al crear y despues es null al eliminar
+     */
+    record Cambio(Instant fecha, String entidad, String entidadId, Operacion operacion,
+                  Map<String, Object> antes, Map<String, Object> despues, CompletableFuture<Void> confirmacion) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Cambio> cola;
+    private final int tamanoLote;
+    private final AlLlenarse alLlenarse;
+    private final long esperaMaximaNanos;
+    private final Durabilidad durabilidad;
+    private final Duration esperaConfirmacion;
+
+    private final Counter encolados;
+    private final Counter descartados;
+    private final Counter escritos;
+    private final Counter fallidos;
+    private final Counter sinConfirmar;
+    private final Timer tiempoLote;
+
+    private volatile boolean activo;
+    private volatile boolean descarteAvisado;
+    private Thread escritor;
+
+    public AuditoriaService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${clinica.auditoria.capacidad:10000}") int capacidad,
+            @Value("${clinica.auditoria.tamano-lote:500}") int tamanoLote,
+            @Value("${clinica.auditoria.al-llenarse:BLOQUEAR}") AlLlenarse alLlenarse,
+            @Value("${clinica.auditoria.espera-maxima:100ms}") Duration esperaMaxima,
+            @Value("${clinica.auditoria.durabilidad:ASINCRONA}") Durabilidad durabilidad,
+            @Value("${clinica.auditoria.espera-confirmacion:2s}") Duration esperaConfirmacion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.alLlenarse = alLlenarse;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+        this.durabilidad = durabilidad;
+        this.esperaConfirmacion = esperaConfirmacion;
+
+        this.encolados = contador(meterRegistry, "encolado");
+        this.descartados = contador(meterRegistry, "descartado");
+        this.escritos = contador(meterRegistry, "escrito");
+        this.fallidos = contador(meterRegistry, "fallido");
+        this.sinConfirmar = contador(meterRegistry, "sin-confirmar");
+        this.tiempoLote = Timer.builder("clinica.auditoria.lote")
+            .description("Tiempo de escritura de cada lote de auditoría")
+            .register(meterRegistry);
+        Gauge.builder("clinica.auditoria.cola", cola, BlockingQueue::size)
+            .description("Cambios de auditoría pendientes de escribir")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Encola un cambio confirmado
+     * En modo CONFIRMADA, dentro de una petición de escritura, el cambio queda pendiente de confirmación
+     * hasta que ConfirmacionAuditoriaFilter llame a esperarConfirmaciones; si se descarta, queda como fallido
+     * @param entidad Nombre de la entidad (HistoriaClinica, Paciente, Medico)
+     * @param entidadId Identificador de la fila
+     * @param antes Estado anterior, null al crear
+     * @param despues Estado posterior, null al eliminar
+     * @return false si la cola estaba llena y el cambio se descartó
+     */
+    public boolean registrar(String entidad, Object entidadId, Operacion operacion,
+                             Map<String, Object> antes, Map<String, Object> despues) {
+        List<CompletableFuture<Void>> pendientes = durabilidad == Durabilidad.CONFIRMADA ? CONFIRMACIONES.get() : null;
+        CompletableFuture<Void> confirmacion = pendientes != null ? new CompletableFuture<>() : null;
+
+        boolean aceptado = encolar(new Cambio(Instant.now(), entidad, String.valueOf(entidadId), operacion,
+            antes, despues, confirmacion));
+        if (confirmacion != null) {
+            if (!aceptado) {
+                confirmacion.completeExceptionally(new IllegalStateException("Cola de auditoría llena"));
+            }
+            pendientes.add(confirmacion);
+        }
+        return aceptado;
+    }
+
+    boolean encolar(Cambio cambio) {
+        boolean aceptado;
+        if (alLlenarse == AlLlenarse.BLOQUEAR) {
+            try {
+                aceptado = cola.offer(cambio, esperaMaximaNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                aceptado = false;
+            }
+        } else {
+            aceptado = cola.offer(cambio);
+        }
+
+        if (aceptado) {
+            encolados.increment();
+        } else {
+            descartados.increment();
+            // Un aviso por episodio de saturación; el total queda en la métrica clinica.auditoria.cambios
+            if (!descarteAvisado) {
+                descarteAvisado = true;
+                log.warn("Cola de auditoría llena: se descartan cambios (primero: {} {} {})",
+                    cambio.operacion(), cambio.entidad(), cambio.entidadId());
+            }
+        }
+        return aceptado;
+    }
+
+    /**
+     * Comienza a reunir las confirmaciones de los cambios del hilo actual (modo CONFIRMADA)
+     */
+    public void abrirConfirmaciones() {
+        CONFIRMACIONES.set(new ArrayList<>());
+    }
+
+    /**
+     * Espera hasta espera-confirmacion a que se escriban los cambios registrados desde abrirConfirmaciones
+     * No espera si alguno ya se descartó: la petición no puede confirmarse de todos modos
+     * @return false si algún cambio se descartó, falló o no se escribió a tiempo
+     */
+    public boolean esperarConfirmaciones() {
+        List<CompletableFuture<Void>> pendientes = CONFIRMACIONES.get();
+        CONFIRMACIONES.remove();
+        if (pendientes == null || pendientes.isEmpty()) {
+            return true;
+        }
+
+        try {
+            if (pendientes.stream().noneMatch(CompletableFuture::isCompletedExceptionally)) {
+                CompletableFuture.allOf(pendientes.toArray(CompletableFuture[]::new))
+                    .get(esperaConfirmacion.toMillis(), TimeUnit.MILLISECONDS);
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Se cuentan abajo junto con los descartados
+        }
+
+        long sinEscribir = pendientes.stream()
+            .filter(confirmacion -> !confirmacion.isDone() || confirmacion.isCompletedExceptionally())
+            .count();
+        sinConfirmar.increment(sinEscribir);
+        log.warn("No se confirmó la escritura de {} de {} cambios de auditoría en {}",
+            sinEscribir, pendientes.size(), esperaConfirmacion);
+        return false;
+    }
+
+    @Override
+    public void start() {
+        activo = true;
+        escritor = Thread.ofPlatform().name("auditoria-escritor").start(this::escribirPendientes);
+    }
+
+    /**
+     * Detiene el escritor después de vaciar la cola (como máximo ESPERA_CIERRE)
+     */
+    @Override
+    public void stop() {
+        activo = false;
+        if (escritor == null) {
+            return;
+        }
+        try {
+            escritor.join(ESPERA_CIERRE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!cola.isEmpty()) {
+            log.warn("Se cerró la auditoría con {} cambios sin escribir", cola.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    /**
+     * Arranca antes y se detiene después del servidor web, para escribir los cambios de las últimas peticiones
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void escribirPendientes() {
+        List<Cambio> lote = new ArrayList<>(tamanoLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Cambio primero = cola.poll(200, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, tamanoLote - 1);
+                escribirLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void escribirLote(List<Cambio> lote) throws InterruptedException {
+        for (int intento = 1; ; intento++) {
+            try {
+                List<Object[]> filas = new ArrayList<>(lote.size());
+                for (Cambio cambio : lote) {
+                    filas.add(aFila(cambio));
+                }
+                tiempoLote.record(() -> transactionTemplate.executeWithoutResult(
+                    estado -> jdbcTemplate.batchUpdate(INSERTAR, filas)));
+                break;
+            } catch (RuntimeException e) {
+                if (intento == INTENTOS_POR_LOTE) {
+                    fallidos.increment(lote.size());
+                    log.error("No se pudo escribir un lote de {} cambios de auditoría", lote.size(), e);
+                    lote.forEach(cambio -> completar(cambio, e));
+                    return;
+                }
+                Thread.sleep(100L * intento);
+            }
+        }
+
+        escritos.increment(lote.size());
+        descarteAvisado = false;
+        lote.forEach(cambio -> completar(cambio, null));
+    }
+
+    private Object[] aFila(Cambio cambio) {
+        return new Object[] {
+            Timestamp.from(cambio.fecha()),
+            cambio.entidad(),
+            cambio.entidadId(),
+            cambio.operacion().name(),
+            aJson(cambio.antes()),
+            aJson(cambio.despues())
+        };
+    }
+
+    private String aJson(Map<String, Object> estado) {
+        if (estado == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(estado);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el estado auditado", e);
+        }
+    }
+
+    private static void completar(Cambio cambio, Throwable error) {
+        if (cambio.confirmacion() == null) {
+            return;
+        }
+        if (error == null) {
+            cambio.confirmacion().complete(null);
+        } else {
+            cambio.confirmacion().completeExceptionally(error);
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("clinica.auditoria.cambios")
+            .description("Cambios de auditoría por resultado")
+            .tag("resultado", resultado)
+            .register(meterRegistry);
+    }
+}
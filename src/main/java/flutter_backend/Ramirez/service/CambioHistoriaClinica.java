@@ -0,0 +1,18 @@
+package flutter_backend.Ramirez.service;
+
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+
+import java.util.Set;
+
+/**
+ * Evento de dominio que HistoriaClinicaService publica al registrar, actualizar o eliminar una historia
+ * EventosHistoriaService lo recibe después del commit y lo reenvía a los clientes suscritos
+ * @param historia Estado nuevo de la historia; null al eliminarla
+ * @param pacDnis Pacientes afectados (al cambiar el paciente de una historia, el anterior y el nuevo)
+ * @param medCmps Médicos afectados (al cambiar el médico de una historia, el anterior y el nuevo)
+ */
+public record CambioHistoriaClinica(Tipo tipo, Long histId, HistoriaClinicaResponseDTO historia,
+                                    Set<String> pacDnis, Set<String> medCmps) {
+
+    public enum Tipo { CREADA, ACTUALIZADA, ELIMINADA }
+}
@@ -0,0 +1,136 @@
+package flutter_backend.Ramirez.service;
+
+import flutter_backend.Ramirez.dto.AtencionesPorDiaDTO;
+import flutter_backend.Ramirez.dto.AtencionesPorEspecialidadDTO;
+import flutter_backend.Ramirez.dto.AtencionesPorMedicoDTO;
+import flutter_backend.Ramirez.dto.AtencionesPorMesDTO;
+import flutter_backend.Ramirez.dto.PacientesPorMedicoDTO;
+import flutter_backend.Ramirez.entity.ResumenDiarioHistoriaId;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.ResumenDiarioHistoriaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de estadísticas agregadas de atenciones
+ * Las consultas se resuelven en la base de datos con GROUP BY sobre el resumen diario,
+ * que este mismo servicio mantiene de forma incremental en la transacción de cada escritura
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class EstadisticaService {
+
+    private final ResumenDiarioHistoriaRepository resumenDiarioHistoriaRepository;
+    private final HistoriaClinicaRepository historiaClinicaRepository;
+
+    /**
+     * Cuenta las atenciones por médico en un rango de fechas
+     */
+    @Transactional(readOnly = true)
+    public List<AtencionesPorMedicoDTO> contarPorMedico(LocalDate inicio, LocalDate fin) {
+        return resumenDiarioHistoriaRepository.contarPorMedico(inicio, fin);
+    }
+
+    /**
+     * Cuenta las atenciones por especialidad en un rango de fechas
+     */
+    @Transactional(readOnly = true)
+    public List<AtencionesPorEspecialidadDTO> contarPorEspecialidad(LocalDate inicio, LocalDate fin) {
+        return resumenDiarioHistoriaRepository.contarPorEspecialidad(inicio, fin);
+    }
+
+    /**
+     * Cuenta las atenciones por día en un rango de fechas
+     */
+    @Transactional(readOnly = true)
+    public List<AtencionesPorDiaDTO> contarPorDia(LocalDate inicio, LocalDate fin) {
+        return resumenDiarioHistoriaRepository.contarPorDia(inicio, fin);
+    }
+
+    /**
+     * Cuenta las atenciones por mes en un rango de fechas
+     */
+    @Transactional(readOnly = true)
+    public List<AtencionesPorMesDTO> contarPorMes(LocalDate inicio, LocalDate fin) {
+        return resumenDiarioHistoriaRepository.contarPorMes(inicio, fin);
+    }
+
+    /**
+     * Cuenta los pacientes distintos atendidos por cada médico en un rango de fechas
+     */
+    @Transactional(readOnly = true)
+    public List<PacientesPorMedicoDTO> contarPacientesPorMedico(LocalDate inicio, LocalDate fin) {
+        return historiaClinicaRepository.contarPacientesDistintosPorMedico(inicio, fin);
+    }
+
+    /**
+     * Suma una atención al resumen del día y médico de una historia registrada
+     */
+    public void registrarAtencion(LocalDate fecha, String medCmp) {
+        resumenDiarioHistoriaRepository.sumarAtenciones(fecha, medCmp, 1);
+    }
+
+    /**
+     * Suma al resumen las atenciones de un lote, con una sentencia por día y médico distintos
+     * @param atenciones Cantidad de historias registradas por día y médico
+     */
+    public void registrarAtenciones(Map<ResumenDiarioHistoriaId, Long> atenciones) {
+        atenciones.forEach((clave, cantidad) ->
+            resumenDiarioHistoriaRepository.sumarAtenciones(clave.getFecha(), clave.getMedCmp(), cantidad));
+    }
+
+    /**
+     * Resta una atención del resumen del día y médico de una historia eliminada
+     */
+    public void quitarAtencion(LocalDate fecha, String medCmp) {
+        resumenDiarioHistoriaRepository.sumarAtenciones(fecha, medCmp, -1);
+    }
+
+    /**
+     * Mueve una atención en el resumen cuando una historia cambia de fecha o de médico
+     */
+    public void moverAtencion(LocalDate fechaAnterior, String medCmpAnterior, LocalDate fechaNueva, String medCmpNuevo) {
+        if (Objects.equals(fechaAnterior, fechaNueva) && Objects.equals(medCmpAnterior, medCmpNuevo)) {
+            return;
+        }
+        quitarAtencion(fechaAnterior, medCmpAnterior);
+        registrarAtencion(fechaNueva, medCmpNuevo);
+    }
+
+    /**
+     * Obtiene los días y médicos del resumen afectados por las historias de un paciente
+     * Se consulta antes de eliminar el paciente, cuyas historias se eliminan en cascada
+     */
+    @Transactional(readOnly = true)
+    public List<ResumenDiarioHistoriaId> obtenerClavesDePaciente(String pacDni) {
+        return resumenDiarioHistoriaRepository.findClavesByPacDni(pacDni)
+            .stream()
+            .map(fila -> new ResumenDiarioHistoriaId((LocalDate) fila[0], (String) fila[1]))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Vuelve a contar desde historias_clinicas las atenciones de los días y médicos indicados
+     * Es idempotente: el resultado es correcto aunque la eliminación previa haya fallado
+     */
+    public void recalcular(List<ResumenDiarioHistoriaId> claves) {
+        for (ResumenDiarioHistoriaId clave : claves) {
+            resumenDiarioHistoriaRepository.recalcularAtenciones(clave.getFecha(), clave.getMedCmp());
+        }
+    }
+
+    /**
+     * Elimina el resumen de un médico eliminado junto con sus historias
+     */
+    public void eliminarMedico(String medCmp) {
+        resumenDiarioHistoriaRepository.deleteByMedCmp(medCmp);
+    }
+}
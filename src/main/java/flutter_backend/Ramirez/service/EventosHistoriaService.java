@@ -0,0 +1,380 @@
+package flutter_backend.Ramirez.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import flutter_backend.Ramirez.dto.EventoHistoriaClinicaDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Canal Server-Sent Events de historias clínicas creadas, actualizadas y eliminadas, filtrado por médico o paciente
+ * Los eventos llegan de HistoriaClinicaService después del commit; cada uno se serializa una sola vez y se
+ * reparte a los suscriptores que le corresponden, sin consultas a la base de datos por suscriptor
+ *
+ * Cada suscriptor tiene un buffer acotado (capacidad-cliente) que vacía un hilo virtual propio, así un cliente
+ * lento no retrasa al resto ni a la petición que confirmó el cambio. Si su buffer se llena, se lo desconecta:
+ * al reconectarse con Last-Event-ID recibe lo que se perdió desde el historial de los últimos eventos, o un
+ * evento reinicio si ya no está en el historial y debe recargar las historias por la API REST
+ */
+@Slf4j
+@Service
+public class EventosHistoriaService implements SmartLifecycle {
+
+    /**
+     * Evento que pide al cliente recargar las historias porque no se pudo reanudar desde su Last-Event-ID
+     */
+    static final String EVENTO_REINICIO = "reinicio";
+
+    private static final Set<DataWithMediaType> LATIDO = SseEmitter.event().comment("latido").build();
+
+    /**
+     * Evento ya serializado con el formato de SSE, compartido por todos los suscriptores que lo reciben
+     */
+    private record Evento(long secuencia, CambioHistoriaClinica cambio, Set<DataWithMediaType> trama) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int capacidadCliente;
+    private final int tamanoHistorial;
+    private final Duration duracionMaxima;
+    private final Duration latido;
+    private final Duration reconexion;
+
+    /**
+     * Los IDs de evento llevan el instante de arranque: un Last-Event-ID de antes de un reinicio
+     * del servidor no se confunde con la numeración actual
+     */
+    private final String arranque = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Object candado = new Object();
+    private final ArrayDeque<Evento> historial;
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    /**
+     * Un permiso por suscriptor: se toma antes de crear la conexión y se devuelve al quitarlo,
+     * así las conexiones simultáneas no superan max-suscriptores
+     */
+    private final Semaphore cupos;
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter descartados;
+
+    private long ultimaSecuencia;
+    private volatile boolean activo;
+    private ScheduledExecutorService latidos;
+
+    public EventosHistoriaService(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${clinica.eventos.capacidad-cliente:256}") int capacidadCliente,
+            @Value("${clinica.eventos.historial:1000}") int tamanoHistorial,
+            @Value("${clinica.eventos.max-suscriptores:1000}") int maxSuscriptores,
+            @Value("${clinica.eventos.duracion-maxima:30m}") Duration duracionMaxima,
+            @Value("${clinica.eventos.latido:15s}") Duration latido,
+            @Value("${clinica.eventos.reconexion:3s}") Duration reconexion) {
+        this.objectMapper = objectMapper;
+        this.capacidadCliente = capacidadCliente;
+        this.tamanoHistorial = tamanoHistorial;
+        this.cupos = new Semaphore(maxSuscriptores);
+        this.duracionMaxima = duracionMaxima;
+        this.latido = latido;
+        this.reconexion = reconexion;
+        this.historial = new ArrayDeque<>(tamanoHistorial);
+
+        Gauge.builder("clinica.eventos.suscriptores", suscriptores, Set::size)
+            .description("Clientes suscritos al canal de eventos de historias clínicas")
+            .register(meterRegistry);
+        this.descartados = Counter.builder("clinica.eventos.descartados")
+            .description("Clientes desconectados por no consumir los eventos a tiempo")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Suscribe un cliente a los eventos de un médico, de un paciente o de ambos a la vez
+     * @param medCmp CMP del médico (opcional si se indica pacDni)
+     * @param pacDni DNI del paciente (opcional si se indica medCmp)
+     * @param ultimoEventoId Last-Event-ID enviado al reconectarse; se reenvían los eventos posteriores
+     */
+    public SseEmitter suscribir(String medCmp, String pacDni, String ultimoEventoId) {
+        if (!cupos.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Se alcanzó el máximo de suscriptores al canal de eventos");
+        }
+
+        SseEmitter emitter = new SseEmitter(duracionMaxima.toMillis());
+        Suscriptor suscriptor = new Suscriptor(medCmp, pacDni, emitter);
+        try {
+            emitter.onCompletion(() -> quitar(suscriptor));
+            emitter.onTimeout(() -> quitar(suscriptor));
+            emitter.onError(error -> quitar(suscriptor));
+
+            suscriptor.encolar(SseEmitter.event().reconnectTime(reconexion.toMillis()).comment("conectado").build());
+            // Con el candado tomado no se publica ningún evento: los reenviados y los nuevos no se repiten ni se pierden
+            synchronized (candado) {
+                if (ultimoEventoId != null && !ultimoEventoId.isBlank()) {
+                    reenviarDesde(suscriptor, ultimoEventoId.trim());
+                }
+                suscriptores.add(suscriptor);
+            }
+        } catch (RuntimeException e) {
+            cupos.release();
+            throw e;
+        }
+        suscriptor.programarEnvio();
+        return emitter;
+    }
+
+    /**
+     * Reparte un cambio confirmado a los suscriptores de sus médicos y pacientes
+     */
+    @TransactionalEventListener
+    public void publicar(CambioHistoriaClinica cambio) {
+        String datos = serializar(new EventoHistoriaClinicaDTO(
+            cambio.tipo().name().toLowerCase(Locale.ROOT), cambio.histId(), cambio.historia()));
+
+        List<Suscriptor> destinatarios = new ArrayList<>();
+        List<Suscriptor> lentos = new ArrayList<>();
+        synchronized (candado) {
+            long secuencia = ++ultimaSecuencia;
+            Evento evento = new Evento(secuencia, cambio, SseEmitter.event()
+                .id(idEvento(secuencia))
+                .name(cambio.tipo().name().toLowerCase(Locale.ROOT))
+                .data(datos, MediaType.APPLICATION_JSON)
+                .build());
+            if (historial.size() == tamanoHistorial) {
+                historial.removeFirst();
+            }
+            historial.addLast(evento);
+
+            for (Suscriptor suscriptor : suscriptores) {
+                if (suscriptor.recibe(cambio)) {
+                    (suscriptor.encolar(evento.trama()) ? destinatarios : lentos).add(suscriptor);
+                }
+            }
+        }
+        destinatarios.forEach(Suscriptor::programarEnvio);
+        lentos.forEach(this::descartar);
+    }
+
+    /**
+     * Cantidad de clientes suscritos
+     */
+    public int contarSuscriptores() {
+        return suscriptores.size();
+    }
+
+    /**
+     * Encola los eventos del historial posteriores a ultimoEventoId que le corresponden al suscriptor,
+     * o un evento reinicio si no se puede reanudar desde ese ID
+     */
+    private void reenviarDesde(Suscriptor suscriptor, String ultimoEventoId) {
+        Long desde = secuenciaDe(ultimoEventoId);
+        Evento masAntiguo = historial.peekFirst();
+        long primeraDisponible = masAntiguo != null ? masAntiguo.secuencia() : ultimaSecuencia + 1;
+        if (desde == null || desde > ultimaSecuencia || desde < primeraDisponible - 1) {
+            suscriptor.encolar(tramaReinicio());
+            return;
+        }
+        for (Evento evento : historial) {
+            if (evento.secuencia() > desde && suscriptor.recibe(evento.cambio()) && !suscriptor.encolar(evento.trama())) {
+                // Lo perdido no entra en el buffer: es más barato que el cliente recargue por la API REST
+                suscriptor.pendientes.clear();
+                suscriptor.encolar(tramaReinicio());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Secuencia de un ID de evento de este arranque del servidor
+     * @return null si el ID es de otro arranque o no tiene el formato esperado
+     */
+    private Long secuenciaDe(String idEvento) {
+        int separador = idEvento.indexOf('-');
+        if (separador < 0 || !idEvento.substring(0, separador).equals(arranque)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(idEvento.substring(separador + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String idEvento(long secuencia) {
+        return arranque + "-" + secuencia;
+    }
+
+    /**
+     * El reinicio lleva el ID del último evento publicado, desde el cual el cliente puede reanudar después de recargar
+     */
+    private Set<DataWithMediaType> tramaReinicio() {
+        return SseEmitter.event()
+            .id(idEvento(ultimaSecuencia))
+            .name(EVENTO_REINICIO)
+            .data(serializar(new EventoHistoriaClinicaDTO(EVENTO_REINICIO, null, null)), MediaType.APPLICATION_JSON)
+            .build();
+    }
+
+    private String serializar(EventoHistoriaClinicaDTO evento) {
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento de historia clínica", e);
+        }
+    }
+
+    private void descartar(Suscriptor suscriptor) {
+        if (quitar(suscriptor)) {
+            descartados.increment();
+            log.debug("Cliente de eventos desconectado por no consumir a tiempo (medCmp={}, pacDni={})",
+                suscriptor.medCmp, suscriptor.pacDni);
+            // complete() espera a que termine un envío en curso: se hace en el hilo de envíos, no en el que publica
+            envios.execute(suscriptor.emitter::complete);
+        }
+    }
+
+    private boolean quitar(Suscriptor suscriptor) {
+        if (!suscriptores.remove(suscriptor)) {
+            return false;
+        }
+        suscriptor.cerrado = true;
+        suscriptor.pendientes.clear();
+        cupos.release();
+        return true;
+    }
+
+    @Override
+    public void start() {
+        activo = true;
+        latidos = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("eventos-latido").factory());
+        latidos.scheduleWithFixedDelay(this::enviarLatidos, latido.toMillis(), latido.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cierra las conexiones abiertas para que los clientes se reconecten a otra instancia
+     * Con la fase por defecto se detiene antes que el servidor web, que de otro modo esperaría a que terminen
+     * El ejecutor de envíos sigue disponible: el contexto puede volver a iniciarse con start()
+     */
+    @Override
+    public void stop() {
+        activo = false;
+        if (latidos != null) {
+            latidos.shutdownNow();
+        }
+        for (Suscriptor suscriptor : List.copyOf(suscriptores)) {
+            if (quitar(suscriptor)) {
+                envios.execute(suscriptor.emitter::complete);
+            }
+        }
+    }
+
+    /**
+     * Al destruir el bean terminan los envíos pendientes, incluidos los cierres encolados por stop()
+     */
+    @PreDestroy
+    void cerrarEnvios() {
+        envios.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    /**
+     * Un comentario periódico mantiene abiertas las conexiones a través de proxies y detecta los clientes
+     * que se fueron sin cerrar la conexión (el envío falla y se los quita)
+     */
+    private void enviarLatidos() {
+        for (Suscriptor suscriptor : suscriptores) {
+            // Con el buffer lleno el cliente ya tiene eventos pendientes: el latido sobra
+            if (suscriptor.encolar(LATIDO)) {
+                suscriptor.programarEnvio();
+            }
+        }
+    }
+
+    /**
+     * Cliente suscrito: su filtro, su conexión y su buffer de eventos pendientes de enviar
+     */
+    private final class Suscriptor {
+
+        private final String medCmp;
+        private final String pacDni;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> pendientes = new ArrayBlockingQueue<>(capacidadCliente);
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private volatile boolean cerrado;
+
+        private Suscriptor(String medCmp, String pacDni, SseEmitter emitter) {
+            this.medCmp = medCmp;
+            this.pacDni = pacDni;
+            this.emitter = emitter;
+        }
+
+        boolean recibe(CambioHistoriaClinica cambio) {
+            return (medCmp == null || cambio.medCmps().contains(medCmp))
+                && (pacDni == null || cambio.pacDnis().contains(pacDni));
+        }
+
+        /**
+         * @return false si el buffer está lleno
+         */
+        boolean encolar(Set<DataWithMediaType> trama) {
+            return !cerrado && pendientes.offer(trama);
+        }
+
+        /**
+         * Inicia el envío de lo pendiente si no hay uno en curso
+         */
+        void programarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                envios.execute(this::enviarPendientes);
+            }
+        }
+
+        private void enviarPendientes() {
+            do {
+                Set<DataWithMediaType> trama;
+                while (!cerrado && (trama = pendientes.poll()) != null) {
+                    try {
+                        emitter.send(trama);
+                    } catch (IOException | IllegalStateException e) {
+                        // El cliente cerró la conexión o el emisor ya terminó
+                        quitar(this);
+                        return;
+                    }
+                }
+                enviando.set(false);
+                // Un evento encolado justo después del último poll no debe quedar esperando al siguiente
+            } while (!cerrado && !pendientes.isEmpty() && enviando.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package flutter_backend.Ramirez.service;
+
+import flutter_backend.Ramirez.dto.HistoriaClinicaBusquedaDTO;
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.repository.CampoHistoriaClinica;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.search.engine.search.common.BooleanOperator;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de búsqueda de texto completo sobre diagnóstico, análisis y tratamiento
+ * El índice Lucene se mantiene sincronizado automáticamente con cada escritura de
+ * HistoriaClinicaService (Hibernate Search indexa al confirmar la transacción)
+ */
+@Service
+@RequiredArgsConstructor
+public class HistoriaClinicaBusquedaService {
+
+    /**
+     * A partir de esta cantidad de coincidencias se deja de contar el total exacto,
+     * para que las búsquedas muy generales no recorran todo el índice
+     */
+    private static final int UMBRAL_CONTEO_TOTAL = 1000;
+
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final HistoriaClinicaRepository historiaClinicaRepository;
+
+    @Value("${clinica.busqueda.reindexar-al-iniciar:false}")
+    private boolean reindexarAlIniciar;
+
+    /**
+     * Busca historias clínicas por texto, ordenadas por relevancia
+     * Las coincidencias en el diagnóstico pesan el doble que en análisis y tratamiento
+     * @param texto Texto a buscar (admite la sintaxis simple: "frase exacta", -excluir, prefijo*)
+     * @param pagina Número de página (desde 0)
+     * @param tamano Cantidad de historias por página
+     * @return Página de resultados
+     */
+    @Transactional(readOnly = true)
+    public HistoriaClinicaBusquedaDTO<HistoriaClinicaResponseDTO> buscar(String texto, int pagina, int tamano) {
+        // El índice solo devuelve los IDs; los datos se obtienen en una sola consulta proyectada
+        SearchResult<Long> resultado = buscarIds(texto, pagina, tamano);
+        List<HistoriaClinicaResponseDTO> historias = ordenarPorRelevancia(resultado.hits(),
+            historiaClinicaRepository::findDtoByHistIdIn, HistoriaClinicaResponseDTO::getHistId);
+        return armarResultado(resultado, historias, pagina, tamano);
+    }
+
+    /**
+     * Igual que buscar, pero leyendo de la base de datos solo los campos indicados
+     * @param campos Campos a incluir (histId siempre forma parte de ellos)
+     */
+    @Transactional(readOnly = true)
+    public HistoriaClinicaBusquedaDTO<Map<String, Object>> buscar(String texto, int pagina, int tamano,
+                                                                 List<CampoHistoriaClinica> campos) {
+        SearchResult<Long> resultado = buscarIds(texto, pagina, tamano);
+        List<Map<String, Object>> historias = ordenarPorRelevancia(resultado.hits(),
+            ids -> historiaClinicaRepository.findCamposByHistIdIn(campos, ids),
+            historia -> (Long) historia.get(CampoHistoriaClinica.HIST_ID.getNombre()));
+        return armarResultado(resultado, historias, pagina, tamano);
+    }
+
+    private SearchResult<Long> buscarIds(String texto, int pagina, int tamano) {
+        return Search.session(entityManager)
+            .search(HistoriaClinica.class)
+            .select(f -> f.id(Long.class))
+            .where(f -> f.simpleQueryString()
+                .field("histDiagnostico").boost(2.0f)
+                .fields("histAnalisis", "histTratamiento")
+                .matching(texto)
+                .defaultOperator(BooleanOperator.AND))
+            .totalHitCountThreshold(UMBRAL_CONTEO_TOTAL)
+            .fetch(pagina * tamano, tamano);
+    }
+
+    /**
+     * Carga las historias de los IDs en una sola consulta y las devuelve en el orden del índice
+     */
+    private static <T> List<T> ordenarPorRelevancia(List<Long> ids, Function<List<Long>, List<T>> cargar,
+                                                    Function<T, Long> obtenerId) {
+        Map<Long, T> historiasPorId = ids.isEmpty()
+            ? Map.of()
+            : cargar.apply(ids).stream()
+                .collect(Collectors.toMap(obtenerId, Function.identity()));
+
+        return ids.stream()
+            .map(historiasPorId::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    private static <T> HistoriaClinicaBusquedaDTO<T> armarResultado(SearchResult<Long> resultado, List<T> historias,
+                                                                   int pagina, int tamano) {
+        long total = resultado.total().hitCountLowerBound();
+        boolean totalExacto = resultado.total().isHitCountExact();
+        boolean hayMas = (long) (pagina + 1) * tamano < total;
+        return new HistoriaClinicaBusquedaDTO<>(historias, total, totalExacto, pagina, hayMas);
+    }
+
+    /**
+     * Reconstruye el índice completo a partir de la base de datos
+     * Necesario la primera vez sobre una base con datos previos o si el índice se pierde
+     */
+    public void reindexar() throws InterruptedException {
+        Search.mapping(entityManagerFactory)
+            .scope(HistoriaClinica.class)
+            .massIndexer()
+            .startAndWait();
+    }
+
+    /**
+     * Reindexa al arrancar la aplicación si clinica.busqueda.reindexar-al-iniciar=true
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexarAlIniciar() throws InterruptedException {
+        if (reindexarAlIniciar) {
+            reindexar();
+        }
+    }
+}
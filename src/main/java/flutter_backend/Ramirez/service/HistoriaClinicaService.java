@@ -1,20 +1,39 @@
 package flutter_backend.Ramirez.service;
 
+import flutter_backend.Ramirez.config.EtiquetasVersion;
 import flutter_backend.Ramirez.dto.HistoriaClinicaDTO;
+import flutter_backend.Ramirez.dto.HistoriaClinicaPaginaDTO;
 import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.dto.ResultadoImportacionDTO;
 import flutter_backend.Ramirez.entity.HistoriaClinica;
 import flutter_backend.Ramirez.entity.Medico;
 import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.entity.ResumenDiarioHistoriaId;
+import flutter_backend.Ramirez.exception.PrecondicionFallidaException;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
+import flutter_backend.Ramirez.repository.CampoHistoriaClinica;
 import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
 import flutter_backend.Ramirez.repository.MedicoRepository;
 import flutter_backend.Ramirez.repository.PacienteRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio para la gestión de Historias Clínicas
@@ -23,29 +42,79 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed(value = "clinica.historias.servicio", histogram = true)
 public class HistoriaClinicaService {
 
     private final HistoriaClinicaRepository historiaClinicaRepository;
     private final PacienteRepository pacienteRepository;
     private final MedicoRepository medicoRepository;
+    private final Validator validator;
+    private final EstadisticaService estadisticaService;
+    private final LineaTiempoPacienteService lineaTiempoPacienteService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Lista todas las historias clínicas
+     * Lista una página de historias clínicas usando paginación por cursor sobre histId
+     * @param after ID de la última historia recibida (null para empezar desde el inicio)
+     * @param limit Cantidad máxima de historias de la página
      */
-    public List<HistoriaClinicaResponseDTO> listarTodas() {
-        return historiaClinicaRepository.findAll()
-            .stream()
-            .map(this::convertirAResponseDTO)
-            .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public HistoriaClinicaPaginaDTO<HistoriaClinicaResponseDTO> listarPagina(Long after, int limit) {
+        // Se pide un elemento extra para saber si existe una página siguiente
+        List<HistoriaClinicaResponseDTO> historias = historiaClinicaRepository.findDtoPaginaDespuesDe(
+            after != null ? after : 0L, Limit.of(limit + 1));
+        return armarPagina(historias, limit, HistoriaClinicaResponseDTO::getHistId);
+    }
+
+    /**
+     * Igual que listarPagina, pero leyendo de la base de datos solo los campos indicados
+     * @param campos Campos a incluir (histId siempre forma parte de ellos)
+     */
+    @Transactional(readOnly = true)
+    public HistoriaClinicaPaginaDTO<Map<String, Object>> listarPagina(Long after, int limit,
+                                                                     List<CampoHistoriaClinica> campos) {
+        List<Map<String, Object>> historias = historiaClinicaRepository.findCamposPaginaDespuesDe(
+            campos, after != null ? after : 0L, limit + 1);
+        return armarPagina(historias, limit, historia -> (Long) historia.get(CampoHistoriaClinica.HIST_ID.getNombre()));
+    }
+
+    private static <T> HistoriaClinicaPaginaDTO<T> armarPagina(List<T> historias, int limit, Function<T, Long> obtenerId) {
+        boolean hayMas = historias.size() > limit;
+        List<T> pagina = hayMas ? historias.subList(0, limit) : historias;
+
+        Long siguienteCursor = hayMas ? obtenerId.apply(pagina.get(pagina.size() - 1)) : null;
+        return new HistoriaClinicaPaginaDTO<>(pagina, siguienteCursor, hayMas);
+    }
+
+    /**
+     * Recorre todas las historias clínicas sin cargarlas a la vez en memoria
+     * Las filas se proyectan en DTOs, por lo que no se acumulan entidades en el contexto de persistencia
+     * @param consumidor Recibe cada historia como DTO
+     */
+    @Transactional(readOnly = true)
+    public void recorrerTodas(Consumer<HistoriaClinicaResponseDTO> consumidor) {
+        try (Stream<HistoriaClinicaResponseDTO> historias = historiaClinicaRepository.streamDtoTodas()) {
+            historias.forEach(consumidor);
+        }
+    }
+
+    /**
+     * Igual que recorrerTodas, pero leyendo de la base de datos solo los campos indicados
+     */
+    @Transactional(readOnly = true)
+    public void recorrerTodas(List<CampoHistoriaClinica> campos, Consumer<Map<String, Object>> consumidor) {
+        try (Stream<Map<String, Object>> historias = historiaClinicaRepository.streamCamposTodas(campos)) {
+            historias.forEach(consumidor);
+        }
     }
 
     /**
      * Obtiene una historia clínica por su ID
      */
+    @Transactional(readOnly = true)
     public HistoriaClinicaResponseDTO obtenerPorId(Long id) {
-        HistoriaClinica historia = historiaClinicaRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Historia clínica no encontrada con ID: " + id));
-        return convertirAResponseDTO(historia);
+        return historiaClinicaRepository.findDtoById(id)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id));
     }
 
     /**
@@ -54,11 +123,11 @@ public class HistoriaClinicaService {
     public HistoriaClinicaResponseDTO registrar(HistoriaClinicaDTO dto) {
         // Validar que el paciente existe
         Paciente paciente = pacienteRepository.findById(dto.getPacDni())
-            .orElseThrow(() -> new RuntimeException("Paciente no encontrado con DNI: " + dto.getPacDni()));
+            .orElseThrow(() -> new RecursoNoEncontradoException("Paciente no encontrado con DNI: " + dto.getPacDni()));
 
         // Validar que el médico existe
         Medico medico = medicoRepository.findById(dto.getMedCmp())
-            .orElseThrow(() -> new RuntimeException("Médico no encontrado con CMP: " + dto.getMedCmp()));
+            .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado con CMP: " + dto.getMedCmp()));
 
         // Crear y configurar la historia clínica
         HistoriaClinica historia = new HistoriaClinica();
@@ -69,26 +138,110 @@ public class HistoriaClinicaService {
         historia.setHistAnalisis(dto.getHistAnalisis());
         historia.setHistTratamiento(dto.getHistTratamiento());
 
-        // Guardar
+        // Guardar y sumar la atención al resumen diario en la misma transacción
         HistoriaClinica historiaGuardada = historiaClinicaRepository.save(historia);
-        return convertirAResponseDTO(historiaGuardada);
+        estadisticaService.registrarAtencion(historiaGuardada.getHistFechaAtencion(), medico.getMedCmp());
+        lineaTiempoPacienteService.invalidar(paciente.getPacDni());
+
+        HistoriaClinicaResponseDTO respuesta = convertirAResponseDTO(historiaGuardada);
+        eventPublisher.publishEvent(new CambioHistoriaClinica(CambioHistoriaClinica.Tipo.CREADA,
+            respuesta.getHistId(), respuesta, Set.of(paciente.getPacDni()), Set.of(medico.getMedCmp())));
+        return respuesta;
+    }
+
+    /**
+     * Registra un lote de historias clínicas en una sola transacción
+     * Las referencias a pacientes y médicos se validan con una consulta por tipo y los INSERT
+     * se agrupan en lotes JDBC según hibernate.jdbc.batch_size
+     * @param lote Historias a registrar
+     * @param indiceInicial Posición de la primera historia del lote dentro de la carga completa
+     * @return Resultado de cada historia en el mismo orden del lote
+     */
+    public List<ResultadoImportacionDTO> registrarLote(List<HistoriaClinicaDTO> lote, long indiceInicial) {
+        Set<String> dnis = lote.stream()
+            .map(HistoriaClinicaDTO::getPacDni)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Set<String> cmps = lote.stream()
+            .map(HistoriaClinicaDTO::getMedCmp)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+
+        // Validar todas las referencias del lote con una consulta por tabla
+        Set<String> dnisExistentes = dnis.isEmpty() ? Set.of() : pacienteRepository.findPacDniExistentes(dnis);
+        Set<String> cmpsExistentes = cmps.isEmpty() ? Set.of() : medicoRepository.findMedCmpExistentes(cmps);
+
+        List<ResultadoImportacionDTO> resultados = new ArrayList<>(lote.size());
+        Map<ResumenDiarioHistoriaId, Long> atenciones = new HashMap<>();
+        for (int i = 0; i < lote.size(); i++) {
+            HistoriaClinicaDTO dto = lote.get(i);
+            long indice = indiceInicial + i;
+
+            List<String> errores = validator.validate(dto)
+                .stream()
+                .map(error -> error.getPropertyPath() + ": " + error.getMessage())
+                .collect(Collectors.toCollection(ArrayList::new));
+            if (dto.getPacDni() != null && !dnisExistentes.contains(dto.getPacDni())) {
+                errores.add("Paciente no encontrado con DNI: " + dto.getPacDni());
+            }
+            if (dto.getMedCmp() != null && !cmpsExistentes.contains(dto.getMedCmp())) {
+                errores.add("Médico no encontrado con CMP: " + dto.getMedCmp());
+            }
+            if (!errores.isEmpty()) {
+                resultados.add(ResultadoImportacionDTO.rechazada(indice, errores));
+                continue;
+            }
+
+            // Las referencias ya fueron validadas, no es necesario cargar paciente ni médico
+            HistoriaClinica historia = new HistoriaClinica();
+            historia.setPaciente(pacienteRepository.getReferenceById(dto.getPacDni()));
+            historia.setMedico(medicoRepository.getReferenceById(dto.getMedCmp()));
+            historia.setHistFechaAtencion(dto.getHistFechaAtencion());
+            historia.setHistDiagnostico(dto.getHistDiagnostico());
+            historia.setHistAnalisis(dto.getHistAnalisis());
+            historia.setHistTratamiento(dto.getHistTratamiento());
+
+            // El ID se asigna desde la secuencia al persistir; el INSERT se envía en lote al confirmar
+            HistoriaClinica historiaGuardada = historiaClinicaRepository.save(historia);
+            resultados.add(ResultadoImportacionDTO.creada(indice, historiaGuardada.getHistId()));
+            atenciones.merge(new ResumenDiarioHistoriaId(historiaGuardada.getHistFechaAtencion(), dto.getMedCmp()), 1L, Long::sum);
+        }
+
+        // Una actualización del resumen por día y médico, después de todos los INSERT para no cortar los lotes JDBC
+        estadisticaService.registrarAtenciones(atenciones);
+        lineaTiempoPacienteService.invalidar(dnis);
+        return resultados;
     }
 
     /**
      * Actualiza una historia clínica existente
+     * Si se envía If-Match y no coincide con la ETag actual se lanza PrecondicionFallidaException;
+     * si otra transacción la modifica antes del commit, @Version produce un
+     * ObjectOptimisticLockingFailureException en lugar de sobrescribir el cambio ajeno
+     * @param ifMatch Encabezado If-Match recibido (opcional)
      */
-    public HistoriaClinicaResponseDTO actualizar(Long id, HistoriaClinicaDTO dto) {
+    public HistoriaClinicaResponseDTO actualizar(Long id, HistoriaClinicaDTO dto, String ifMatch) {
         // Verificar que la historia existe
         HistoriaClinica historia = historiaClinicaRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Historia clínica no encontrada con ID: " + id));
+            .orElseThrow(() -> new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id));
+
+        String etagActual = calcularEtiqueta(historia);
+        if (!EtiquetasVersion.coincide(ifMatch, etagActual)) {
+            throw new PrecondicionFallidaException(
+                "La historia clínica fue modificada; la versión enviada en If-Match ya no es la actual", etagActual);
+        }
 
         // Validar que el paciente existe
         Paciente paciente = pacienteRepository.findById(dto.getPacDni())
-            .orElseThrow(() -> new RuntimeException("Paciente no encontrado con DNI: " + dto.getPacDni()));
+            .orElseThrow(() -> new RecursoNoEncontradoException("Paciente no encontrado con DNI: " + dto.getPacDni()));
 
         // Validar que el médico existe
         Medico medico = medicoRepository.findById(dto.getMedCmp())
-            .orElseThrow(() -> new RuntimeException("Médico no encontrado con CMP: " + dto.getMedCmp()));
+            .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado con CMP: " + dto.getMedCmp()));
+
+        LocalDate fechaAnterior = historia.getHistFechaAtencion();
+        String medCmpAnterior = historia.getMedico().getMedCmp();
+        String pacDniAnterior = historia.getPaciente().getPacDni();
 
         // Actualizar campos
         historia.setPaciente(paciente);
@@ -100,53 +253,117 @@ public class HistoriaClinicaService {
 
         // Guardar cambios
         HistoriaClinica historiaActualizada = historiaClinicaRepository.save(historia);
-        return convertirAResponseDTO(historiaActualizada);
+        estadisticaService.moverAtencion(fechaAnterior, medCmpAnterior,
+            historiaActualizada.getHistFechaAtencion(), medico.getMedCmp());
+        lineaTiempoPacienteService.invalidar(pacDniAnterior);
+        lineaTiempoPacienteService.invalidar(paciente.getPacDni());
+
+        // También se avisa al médico y al paciente anteriores, para que la quiten de sus vistas
+        HistoriaClinicaResponseDTO respuesta = convertirAResponseDTO(historiaActualizada);
+        eventPublisher.publishEvent(new CambioHistoriaClinica(CambioHistoriaClinica.Tipo.ACTUALIZADA,
+            id, respuesta, Set.copyOf(List.of(pacDniAnterior, paciente.getPacDni())),
+            Set.copyOf(List.of(medCmpAnterior, medico.getMedCmp()))));
+        return respuesta;
     }
 
     /**
      * Elimina una historia clínica
      */
     public void eliminar(Long id) {
-        if (!historiaClinicaRepository.existsById(id)) {
-            throw new RuntimeException("Historia clínica no encontrada con ID: " + id);
-        }
-        historiaClinicaRepository.deleteById(id);
+        HistoriaClinica historia = historiaClinicaRepository.findById(id)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Historia clínica no encontrada con ID: " + id));
+        historiaClinicaRepository.delete(historia);
+        estadisticaService.quitarAtencion(historia.getHistFechaAtencion(), historia.getMedico().getMedCmp());
+        lineaTiempoPacienteService.invalidar(historia.getPaciente().getPacDni());
+        eventPublisher.publishEvent(new CambioHistoriaClinica(CambioHistoriaClinica.Tipo.ELIMINADA,
+            id, null, Set.of(historia.getPaciente().getPacDni()), Set.of(historia.getMedico().getMedCmp())));
     }
 
     /**
      * Busca historias clínicas por DNI del paciente
      */
+    @Transactional(readOnly = true)
     public List<HistoriaClinicaResponseDTO> buscarPorPaciente(String pacDni) {
-        return historiaClinicaRepository.findByPacientePacDni(pacDni)
-            .stream()
-            .map(this::convertirAResponseDTO)
-            .collect(Collectors.toList());
+        return historiaClinicaRepository.findDtoByPacDni(pacDni);
+    }
+
+    /**
+     * Igual que buscarPorPaciente, pero leyendo de la base de datos solo los campos indicados
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> buscarPorPaciente(String pacDni, List<CampoHistoriaClinica> campos) {
+        return historiaClinicaRepository.findCamposByPacDni(campos, pacDni);
+    }
+
+    /**
+     * Calcula la ETag de una historia clínica sin leer sus campos de texto
+     * @return ETag o null si la historia no existe
+     */
+    @Transactional(readOnly = true)
+    public String calcularEtiqueta(Long id) {
+        List<Object[]> versiones = historiaClinicaRepository.findVersionesById(id);
+        if (versiones.isEmpty()) {
+            return null;
+        }
+        Object[] fila = versiones.get(0);
+        return EtiquetasVersion.deVersion((Long) fila[0], (Long) fila[1], (Long) fila[2]);
+    }
+
+    /**
+     * ETag de una historia cargada: su versión y las de su paciente y médico,
+     * porque los nombres de ambos forman parte de la respuesta
+     */
+    private static String calcularEtiqueta(HistoriaClinica historia) {
+        return EtiquetasVersion.deVersion(historia.getHistVersion(),
+            historia.getPaciente().getPacVersion(), historia.getMedico().getMedVersion());
+    }
+
+    /**
+     * Calcula la ETag del listado de historias de un paciente a partir de las versiones de fila,
+     * sin leer los campos de texto de las historias
+     */
+    @Transactional(readOnly = true)
+    public String calcularEtiquetaPorPaciente(String pacDni) {
+        return EtiquetasVersion.deVersiones(historiaClinicaRepository.findVersionesByPacDni(pacDni));
     }
 
     /**
      * Busca historias clínicas por CMP del médico
      */
+    @Transactional(readOnly = true)
     public List<HistoriaClinicaResponseDTO> buscarPorMedico(String medCmp) {
-        return historiaClinicaRepository.findByMedicoMedCmp(medCmp)
-            .stream()
-            .map(this::convertirAResponseDTO)
-            .collect(Collectors.toList());
+        return historiaClinicaRepository.findDtoByMedCmp(medCmp);
+    }
+
+    /**
+     * Igual que buscarPorMedico, pero leyendo de la base de datos solo los campos indicados
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> buscarPorMedico(String medCmp, List<CampoHistoriaClinica> campos) {
+        return historiaClinicaRepository.findCamposByMedCmp(campos, medCmp);
     }
 
     /**
      * Busca historias clínicas por rango de fechas
      */
+    @Transactional(readOnly = true)
     public List<HistoriaClinicaResponseDTO> buscarPorRangoFechas(LocalDate fechaInicio, LocalDate fechaFin) {
-        return historiaClinicaRepository.findByFechaAtencionBetween(fechaInicio, fechaFin)
-            .stream()
-            .map(this::convertirAResponseDTO)
-            .collect(Collectors.toList());
+        return historiaClinicaRepository.findDtoByFechaAtencionBetween(fechaInicio, fechaFin);
+    }
+
+    /**
+     * Igual que buscarPorRangoFechas, pero leyendo de la base de datos solo los campos indicados
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> buscarPorRangoFechas(LocalDate fechaInicio, LocalDate fechaFin, List<CampoHistoriaClinica> campos) {
+        return historiaClinicaRepository.findCamposByFechaAtencionBetween(campos, fechaInicio, fechaFin);
     }
 
     /**
      * Convierte una entidad HistoriaClinica a HistoriaClinicaResponseDTO
+     * Es estático y visible en el paquete para poder medirlo con los benchmarks JMH
      */
-    private HistoriaClinicaResponseDTO convertirAResponseDTO(HistoriaClinica historia) {
+    static HistoriaClinicaResponseDTO convertirAResponseDTO(HistoriaClinica historia) {
         HistoriaClinicaResponseDTO dto = new HistoriaClinicaResponseDTO();
         dto.setHistId(historia.getHistId());
         
@@ -157,7 +374,7 @@ public class HistoriaClinicaService {
         
         // Información del médico
         dto.setMedCmp(historia.getMedico().getMedCmp());
-        dto.setMedNombreCompleto(historia.getMedico().getMedNombre() + " " + historia.getMedico().getMedApellidos());
+        dto.setMedNombreCompleto(historia.getMedico().getNombreCompleto());
         dto.setMedEspecialidad(historia.getMedico().getEspeNombre());
         
         // Información de la historia clínica
@@ -0,0 +1,268 @@
+package flutter_backend.Ramirez.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Almacén de claves de idempotencia (cabecera Idempotency-Key) de los POST de la API
+ * La primera petición con una clave la reserva y, al terminar, guarda su respuesta; los reintentos
+ * con la misma clave reciben esa respuesta sin volver a ejecutar la escritura
+ * Las claves viven en una caché acotada por cantidad que las descarta al vencer el plazo configurado;
+ * con clinica.idempotencia.persistente=true también se guardan en claves_idempotencia, de modo que
+ * un reintento que llega a otra instancia o después de un reinicio tampoco repite la escritura
+ * Una reserva sin respuesta solo dura reserva-maxima: si la petición original se perdió (caída de la
+ * instancia, conexión cortada), un reintento posterior toma la clave en lugar de recibir 409 hasta que venza
+ */
+@Slf4j
+@Service
+public class IdempotenciaService {
+
+    /**
+     * NUEVA: la clave quedó reservada para esta petición, que debe ejecutarse y luego guardar o liberar
+     * REPETIDA: la clave ya tiene una respuesta guardada para el mismo cuerpo
+     * EN_CURSO: otra petición con la misma clave todavía no terminó
+     * CLAVE_REUTILIZADA: la clave se usó antes con un cuerpo distinto
+     */
+    public enum Estado { NUEVA, REPETIDA, EN_CURSO, CLAVE_REUTILIZADA }
+
+    /**
+     * Respuesta guardada de una petición: código HTTP, Content-Type, cabeceras (Location, ETag...) y cuerpo
+     */
+    public record Respuesta(int estado, String tipoContenido, Map<String, List<String>> cabeceras, byte[] cuerpo) {
+    }
+
+    /**
+     * Resultado de reservar una clave; respuesta solo se informa con estado REPETIDA
+     */
+    public record Reserva(Estado estado, Respuesta respuesta) {
+    }
+
+    /**
+     * Entrada de la caché: huella del cuerpo de la petición y su respuesta, null mientras está en curso
+     */
+    private record Entrada(String huella, Respuesta respuesta) {
+    }
+
+    private static final Duration INTERVALO_LIMPIEZA = Duration.ofMinutes(1);
+    private static final TypeReference<Map<String, List<String>>> TIPO_CABECERAS = new TypeReference<>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean persistente;
+    private final Duration vigencia;
+    private final Duration reservaMaxima;
+    private final Cache<String, Entrada> cache;
+    private final Map<Estado, Counter> contadores = new EnumMap<>(Estado.class);
+    private final AtomicLong ultimaLimpieza = new AtomicLong();
+
+    public IdempotenciaService(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${clinica.idempotencia.max-claves:10000}") long maxClaves,
+            @Value("${clinica.idempotencia.vigencia:24h}") Duration vigencia,
+            @Value("${clinica.idempotencia.reserva-maxima:30s}") Duration reservaMaxima,
+            @Value("${clinica.idempotencia.persistente:false}") boolean persistente) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.persistente = persistente;
+        this.vigencia = vigencia;
+        this.reservaMaxima = reservaMaxima;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxClaves)
+            .expireAfter(new Expiry<String, Entrada>() {
+                @Override
+                public long expireAfterCreate(String id, Entrada entrada, long ahora) {
+                    return duracion(entrada).toNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(String id, Entrada entrada, long ahora, long restante) {
+                    return duracion(entrada).toNanos();
+                }
+
+                @Override
+                public long expireAfterRead(String id, Entrada entrada, long ahora, long restante) {
+                    return restante;
+                }
+            })
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "clavesIdempotencia");
+        for (Estado estado : Estado.values()) {
+            contadores.put(estado, Counter.builder("clinica.idempotencia.peticiones")
+                .description("Peticiones con Idempotency-Key por resultado de la reserva")
+                .tag("resultado", estado.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Reserva una clave para la petición actual o informa por qué no se puede ejecutar
+     * @param alcance Método y ruta de la petición; la misma clave en otra ruta es una clave distinta
+     * @param clave Valor de la cabecera Idempotency-Key
+     * @param huella Resumen del cuerpo de la petición, para detectar una clave reutilizada con otro cuerpo
+     */
+    public Reserva reservar(String alcance, String clave, String huella) {
+        String id = alcance + " " + clave;
+        Entrada reservada = new Entrada(huella, null);
+        Entrada existente = cache.asMap().putIfAbsent(id, reservada);
+        if (existente == null && persistente) {
+            try {
+                existente = reservarEnBase(alcance, clave, huella);
+            } catch (RuntimeException e) {
+                cache.asMap().remove(id, reservada);
+                throw e;
+            }
+            // Si la fila es de otra instancia o de antes de un reinicio, la reserva local no aplica
+            if (existente != null && existente.respuesta() != null) {
+                cache.asMap().replace(id, reservada, existente);
+            } else if (existente != null) {
+                cache.asMap().remove(id, reservada);
+            }
+        }
+
+        Reserva reserva;
+        if (existente == null) {
+            reserva = new Reserva(Estado.NUEVA, null);
+        } else if (!existente.huella().equals(huella)) {
+            reserva = new Reserva(Estado.CLAVE_REUTILIZADA, null);
+        } else if (existente.respuesta() == null) {
+            reserva = new Reserva(Estado.EN_CURSO, null);
+        } else {
+            reserva = new Reserva(Estado.REPETIDA, existente.respuesta());
+        }
+        contadores.get(reserva.estado()).increment();
+        return reserva;
+    }
+
+    /**
+     * Guarda la respuesta de una petición que reservó su clave
+     */
+    public void guardar(String alcance, String clave, String huella, Respuesta respuesta) {
+        cache.put(alcance + " " + clave, new Entrada(huella, respuesta));
+        if (persistente) {
+            try {
+                // Solo se completa la propia reserva: si venció y otro reintento tomó la clave, su fila no se pisa
+                jdbcTemplate.update("""
+                    UPDATE claves_idempotencia
+                    SET IDE_Estado = ?, IDE_Tipo_Contenido = ?, IDE_Cabeceras = ?, IDE_Cuerpo = ?, IDE_Expira = ?
+                    WHERE IDE_Alcance = ? AND IDE_Clave = ? AND IDE_Huella = ? AND IDE_Estado IS NULL""",
+                    respuesta.estado(), respuesta.tipoContenido(), objectMapper.writeValueAsString(respuesta.cabeceras()),
+                    new String(respuesta.cuerpo(), StandardCharsets.UTF_8), Timestamp.from(Instant.now().plus(vigencia)),
+                    alcance, clave, huella);
+            } catch (DataAccessException | JsonProcessingException e) {
+                // La respuesta sigue en memoria; solo otras instancias repetirían la escritura
+                log.warn("No se pudo guardar la respuesta de la clave de idempotencia {}", clave, e);
+            }
+        }
+    }
+
+    /**
+     * Libera una clave cuya petición falló, para que un reintento vuelva a ejecutarla
+     */
+    public void liberar(String alcance, String clave) {
+        cache.asMap().computeIfPresent(alcance + " " + clave, (id, entrada) -> entrada.respuesta() == null ? null : entrada);
+        if (persistente) {
+            try {
+                // Una respuesta ya guardada (por otro reintento que tomó la clave vencida) se conserva
+                jdbcTemplate.update(
+                    "DELETE FROM claves_idempotencia WHERE IDE_Alcance = ? AND IDE_Clave = ? AND IDE_Estado IS NULL",
+                    alcance, clave);
+            } catch (DataAccessException e) {
+                log.warn("No se pudo liberar la clave de idempotencia {}", clave, e);
+            }
+        }
+    }
+
+    /**
+     * Inserta la reserva en claves_idempotencia; si la clave ya existe devuelve la fila vigente
+     * El INSERT es la reserva: la clave primaria impide que dos instancias reserven la misma clave.
+     * La reserva vence a los reserva-maxima; al guardar la respuesta se extiende hasta vigencia.
+     * Una fila vencida, con o sin respuesta, se borra antes del INSERT y la clave se vuelve a reservar
+     * @return null si la clave quedó reservada
+     */
+    private Entrada reservarEnBase(String alcance, String clave, String huella) {
+        Instant ahora = Instant.now();
+        limpiarVencidas(ahora);
+        jdbcTemplate.update("DELETE FROM claves_idempotencia WHERE IDE_Alcance = ? AND IDE_Clave = ? AND IDE_Expira < ?",
+            alcance, clave, Timestamp.from(ahora));
+        try {
+            jdbcTemplate.update("""
+                INSERT INTO claves_idempotencia (IDE_Alcance, IDE_Clave, IDE_Huella, IDE_Expira)
+                VALUES (?, ?, ?, ?)""",
+                alcance, clave, huella, Timestamp.from(ahora.plus(reservaMaxima)));
+            return null;
+        } catch (DuplicateKeyException e) {
+            List<Entrada> filas = jdbcTemplate.query("""
+                SELECT IDE_Huella, IDE_Estado, IDE_Tipo_Contenido, IDE_Cabeceras, IDE_Cuerpo FROM claves_idempotencia
+                WHERE IDE_Alcance = ? AND IDE_Clave = ?""",
+                (rs, fila) -> {
+                    int estado = rs.getInt("IDE_Estado");
+                    Respuesta respuesta = rs.wasNull() ? null : new Respuesta(estado,
+                        rs.getString("IDE_Tipo_Contenido"), leerCabeceras(rs.getString("IDE_Cabeceras")),
+                        rs.getString("IDE_Cuerpo").getBytes(StandardCharsets.UTF_8));
+                    return new Entrada(rs.getString("IDE_Huella"), respuesta);
+                },
+                alcance, clave);
+            // Se liberó entre el INSERT y la consulta: se trata como en curso y el cliente reintenta
+            return filas.isEmpty() ? new Entrada(huella, null) : filas.getFirst();
+        }
+    }
+
+    /**
+     * Borra las filas vencidas como máximo una vez por INTERVALO_LIMPIEZA
+     */
+    private void limpiarVencidas(Instant ahora) {
+        long anterior = ultimaLimpieza.get();
+        if (ahora.toEpochMilli() - anterior < INTERVALO_LIMPIEZA.toMillis()
+                || !ultimaLimpieza.compareAndSet(anterior, ahora.toEpochMilli())) {
+            return;
+        }
+        int borradas = jdbcTemplate.update("DELETE FROM claves_idempotencia WHERE IDE_Expira < ?", Timestamp.from(ahora));
+        log.debug("Claves de idempotencia vencidas borradas: {}", borradas);
+    }
+
+    private Map<String, List<String>> leerCabeceras(String json) {
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, TIPO_CABECERAS);
+        } catch (JsonProcessingException e) {
+            log.warn("Cabeceras guardadas de una clave de idempotencia ilegibles; se reenvía la respuesta sin ellas", e);
+            return Map.of();
+        }
+    }
+
+    /**
+     * Una reserva en curso vence a los reserva-maxima; una respuesta guardada, a los vigencia
+     */
+    private Duration duracion(Entrada entrada) {
+        return entrada.respuesta() == null ? reservaMaxima : vigencia;
+    }
+}
@@ -0,0 +1,162 @@
+package flutter_backend.Ramirez.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import flutter_backend.Ramirez.dto.HistoriaClinicaResponseDTO;
+import flutter_backend.Ramirez.dto.LineaTiempoPacienteDTO;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Línea de tiempo de un paciente (sus datos y sus historias clínicas, de la más reciente a la más antigua)
+ * con una caché por DNI
+ * La caché se acota por peso, aproximado por la longitud de los textos clínicos, para que pocos pacientes
+ * con historias extensas no desplacen a muchos con historias breves
+ * Las escrituras sobre historias, pacientes y médicos invalidan las entradas afectadas al confirmarse
+ */
+@Service
+public class LineaTiempoPacienteService {
+
+    /**
+     * Peso fijo por historia y por paciente (IDs, fechas, nombres), en caracteres
+     */
+    private static final int PESO_BASE = 256;
+
+    private final HistoriaClinicaRepository historiaClinicaRepository;
+    private final PacienteRepository pacienteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, LineaTiempo> cache;
+
+    /**
+     * Paciente e historias completas de una entrada de la caché, más el peso calculado al cargarla
+     */
+    private record LineaTiempo(Paciente paciente, List<HistoriaClinicaResponseDTO> historias, int peso) {
+    }
+
+    public LineaTiempoPacienteService(
+            HistoriaClinicaRepository historiaClinicaRepository,
+            PacienteRepository pacienteRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${clinica.linea-tiempo.peso-maximo:20000000}") long pesoMaximo,
+            @Value("${clinica.linea-tiempo.expiracion:30m}") Duration expiracion) {
+        this.historiaClinicaRepository = historiaClinicaRepository;
+        this.pacienteRepository = pacienteRepository;
+        // Sin readOnly: con réplica de lectura, la carga se hace en la primaria para no volver a guardar
+        // en la caché, recién invalidada, un estado que la réplica todavía no recibió
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(pesoMaximo)
+            .weigher((String dni, LineaTiempo lineaTiempo) -> lineaTiempo.peso())
+            .expireAfterWrite(expiracion)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "lineaTiempoPacientes");
+    }
+
+    /**
+     * Obtiene una página de la línea de tiempo de un paciente
+     * @param pagina Número de página (desde 0)
+     * @param tamano Historias por página
+     * @throws RecursoNoEncontradoException si el paciente no existe
+     */
+    public LineaTiempoPacienteDTO obtenerPagina(String dni, int pagina, int tamano) {
+        // La carga se ejecuta con la entrada bloqueada: una invalidación concurrente espera a que
+        // termine y la descarta, así no queda guardado un estado anterior a la escritura
+        LineaTiempo lineaTiempo = cache.get(dni, this::cargar);
+
+        List<HistoriaClinicaResponseDTO> historias = lineaTiempo.historias();
+        int desde = (int) Math.min((long) pagina * tamano, historias.size());
+        int hasta = Math.min(desde + tamano, historias.size());
+        return new LineaTiempoPacienteDTO(lineaTiempo.paciente(), historias.subList(desde, hasta),
+            historias.size(), pagina, hasta < historias.size());
+    }
+
+    /**
+     * Descarta la línea de tiempo de un paciente; dentro de una transacción, al confirmarse
+     */
+    public void invalidar(String dni) {
+        alConfirmar(() -> cache.invalidate(dni));
+    }
+
+    /**
+     * Descarta las líneas de tiempo de varios pacientes; dentro de una transacción, al confirmarse
+     */
+    public void invalidar(Collection<String> dnis) {
+        List<String> copia = List.copyOf(dnis);
+        alConfirmar(() -> cache.invalidateAll(copia));
+    }
+
+    /**
+     * Descarta todas las líneas de tiempo (cambios de un médico, que aparece en las historias de muchos pacientes)
+     */
+    public void invalidarTodas() {
+        alConfirmar(cache::invalidateAll);
+    }
+
+    public CacheStats obtenerEstadisticas() {
+        return cache.stats();
+    }
+
+    private LineaTiempo cargar(String dni) {
+        return transactionTemplate.execute(estado -> {
+            Paciente paciente = pacienteRepository.findById(dni)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Paciente no encontrado con DNI: " + dni));
+            List<HistoriaClinicaResponseDTO> historias = historiaClinicaRepository.findDtoByPacDni(dni);
+
+            int peso = PESO_BASE;
+            for (HistoriaClinicaResponseDTO historia : historias) {
+                peso += PESO_BASE + longitud(historia.getHistDiagnostico()) + longitud(historia.getHistAnalisis())
+                    + longitud(historia.getHistTratamiento());
+            }
+            return new LineaTiempo(copiar(paciente), List.copyOf(historias), peso);
+        });
+    }
+
+    /**
+     * Copia desvinculada de la sesión: la entrada de la caché se comparte entre peticiones
+     */
+    private static Paciente copiar(Paciente paciente) {
+        Paciente copia = new Paciente();
+        copia.setPacDni(paciente.getPacDni());
+        copia.setPacNombre(paciente.getPacNombre());
+        copia.setPacApellidoPaterno(paciente.getPacApellidoPaterno());
+        copia.setPacApellidoMaterno(paciente.getPacApellidoMaterno());
+        copia.setPacDireccion(paciente.getPacDireccion());
+        copia.setPacTelefono(paciente.getPacTelefono());
+        copia.setPacVersion(paciente.getPacVersion());
+        return copia;
+    }
+
+    private static int longitud(String texto) {
+        return texto == null ? 0 : texto.length();
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
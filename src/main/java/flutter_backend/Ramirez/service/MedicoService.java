@@ -0,0 +1,33 @@
+package flutter_backend.Ramirez.service;
+
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Servicio para las escrituras sobre médicos que afectan a otras tablas
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class MedicoService {
+
+    private final MedicoRepository medicoRepository;
+    private final EstadisticaService estadisticaService;
+    private final LineaTiempoPacienteService lineaTiempoPacienteService;
+
+    /**
+     * Elimina un médico junto con sus historias (en cascada) y su resumen diario, en la misma transacción
+     * La fila del médico queda bloqueada, de modo que no se le registran historias entre ambos pasos
+     */
+    public void eliminar(String cmp) {
+        Medico medico = medicoRepository.findParaEliminar(cmp)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado con CMP: " + cmp));
+        medicoRepository.delete(medico);
+        estadisticaService.eliminarMedico(cmp);
+        lineaTiempoPacienteService.invalidarTodas();
+    }
+}
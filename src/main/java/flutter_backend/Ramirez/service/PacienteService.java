@@ -0,0 +1,40 @@
+package flutter_backend.Ramirez.service;
+
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.entity.ResumenDiarioHistoriaId;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Servicio para las escrituras sobre pacientes que afectan a otras tablas
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class PacienteService {
+
+    private final PacienteRepository pacienteRepository;
+    private final EstadisticaService estadisticaService;
+    private final LineaTiempoPacienteService lineaTiempoPacienteService;
+
+    /**
+     * Elimina un paciente junto con sus historias (en cascada) y recalcula el resumen diario
+     * de los días y médicos afectados, todo en la misma transacción
+     */
+    public void eliminar(String dni) {
+        // Con la fila bloqueada no se le pueden registrar historias: las claves leídas son todas las que se eliminan
+        Paciente paciente = pacienteRepository.findParaEliminar(dni)
+            .orElseThrow(() -> new RecursoNoEncontradoException("Paciente no encontrado con DNI: " + dni));
+        List<ResumenDiarioHistoriaId> clavesAfectadas = estadisticaService.obtenerClavesDePaciente(dni);
+        pacienteRepository.delete(paciente);
+        // El recálculo cuenta sobre historias_clinicas: las eliminaciones deben estar ya en la base de datos
+        pacienteRepository.flush();
+        estadisticaService.recalcular(clavesAfectadas);
+        lineaTiempoPacienteService.invalidar(dni);
+    }
+}
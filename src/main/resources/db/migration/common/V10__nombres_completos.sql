@@ -0,0 +1,12 @@
+-- Nombres para mostrar de pacientes y médicos guardados junto a sus partes, para que los listados
+-- y las proyecciones los lean en lugar de concatenarlos en cada fila. Las entidades los recalculan
+-- en cada INSERT y UPDATE; aquí se rellenan las filas existentes con la misma regla
+
+ALTER TABLE pacientes ADD COLUMN PAC_Nombre_Completo VARCHAR(302) NOT NULL DEFAULT '';
+
+UPDATE pacientes SET PAC_Nombre_Completo = CONCAT(PAC_Nombre, ' ', PAC_Apellido_Paterno,
+    CASE WHEN PAC_Apellido_Materno IS NULL OR PAC_Apellido_Materno = '' THEN '' ELSE CONCAT(' ', PAC_Apellido_Materno) END);
+
+ALTER TABLE medicos ADD COLUMN MED_Nombre_Completo VARCHAR(301) NOT NULL DEFAULT '';
+
+UPDATE medicos SET MED_Nombre_Completo = CONCAT(MED_Nombre, ' ', MED_Apellidos);
@@ -0,0 +1,17 @@
+-- Claves de idempotencia (cabecera Idempotency-Key) de los POST de historias clínicas, pacientes y médicos
+-- Solo se usa con clinica.idempotencia.persistente=true: IdempotenciaService guarda aquí, además de en memoria,
+-- la respuesta de cada clave para reenviarla a los reintentos aunque lleguen a otra instancia o tras un reinicio
+-- IDE_Estado es null mientras la petición original está en curso; las filas vencidas se borran periódicamente
+
+CREATE TABLE claves_idempotencia (
+    IDE_Alcance        VARCHAR(100) NOT NULL,
+    IDE_Clave          VARCHAR(255) NOT NULL,
+    IDE_Huella         VARCHAR(64)  NOT NULL,
+    IDE_Estado         INT,
+    IDE_Tipo_Contenido VARCHAR(100),
+    IDE_Cuerpo         TEXT,
+    IDE_Expira         TIMESTAMP(3) NOT NULL,
+    PRIMARY KEY (IDE_Alcance, IDE_Clave)
+);
+
+CREATE INDEX idx_claves_idempotencia_expira ON claves_idempotencia (IDE_Expira);
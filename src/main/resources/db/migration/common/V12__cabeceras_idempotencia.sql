@@ -0,0 +1,4 @@
+-- Cabeceras de la respuesta guardada de cada clave de idempotencia (Location, ETag...), en JSON,
+-- para reenviarlas junto con el código y el cuerpo a los reintentos
+
+ALTER TABLE claves_idempotencia ADD COLUMN IDE_Cabeceras TEXT;
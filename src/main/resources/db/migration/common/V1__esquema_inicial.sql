@@ -0,0 +1,33 @@
+-- Esquema inicial tal como lo generaba spring.jpa.hibernate.ddl-auto=update
+-- En bases de datos existentes esta versión se marca como línea base y no se ejecuta
+
+CREATE TABLE pacientes (
+    PAC_DNI              VARCHAR(8)   NOT NULL,
+    PAC_Nombre           VARCHAR(100) NOT NULL,
+    PAC_Apellido_Paterno VARCHAR(100) NOT NULL,
+    PAC_Apellido_Materno VARCHAR(100),
+    PAC_Direccion        VARCHAR(255),
+    PAC_Telefono         VARCHAR(15),
+    PRIMARY KEY (PAC_DNI)
+);
+
+CREATE TABLE medicos (
+    MED_Cmp       VARCHAR(10)  NOT NULL,
+    MED_Nombre    VARCHAR(100) NOT NULL,
+    MED_Apellidos VARCHAR(200) NOT NULL,
+    ESPE_Nombre   VARCHAR(100) NOT NULL,
+    PRIMARY KEY (MED_Cmp)
+);
+
+CREATE TABLE historias_clinicas (
+    HIST_Id             BIGINT      NOT NULL AUTO_INCREMENT,
+    PAC_DNI             VARCHAR(8)  NOT NULL,
+    MED_Cmp             VARCHAR(10) NOT NULL,
+    HIST_Fecha_Atencion DATE        NOT NULL,
+    HIST_Diagnostico    TEXT        NOT NULL,
+    HIST_Analisis       TEXT,
+    HIST_Tratamiento    TEXT        NOT NULL,
+    PRIMARY KEY (HIST_Id),
+    CONSTRAINT fk_historias_paciente FOREIGN KEY (PAC_DNI) REFERENCES pacientes (PAC_DNI),
+    CONSTRAINT fk_historias_medico FOREIGN KEY (MED_Cmp) REFERENCES medicos (MED_Cmp)
+);
@@ -0,0 +1,10 @@
+-- Índices para las consultas de HistoriaClinicaRepository y MedicoRepository
+-- Los índices compuestos cubren el filtro y el ORDER BY histFechaAtencion DESC sin filesort
+
+CREATE INDEX idx_historias_paciente_fecha ON historias_clinicas (PAC_DNI, HIST_Fecha_Atencion);
+
+CREATE INDEX idx_historias_medico_fecha ON historias_clinicas (MED_Cmp, HIST_Fecha_Atencion);
+
+CREATE INDEX idx_historias_fecha ON historias_clinicas (HIST_Fecha_Atencion);
+
+CREATE INDEX idx_medicos_especialidad ON medicos (ESPE_Nombre);
@@ -0,0 +1,8 @@
+-- Versión de fila para el bloqueo optimista (@Version) y las ETags de las lecturas
+-- Las filas existentes empiezan en la versión 0
+
+ALTER TABLE pacientes ADD COLUMN PAC_Version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE medicos ADD COLUMN MED_Version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE historias_clinicas ADD COLUMN HIST_Version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,23 @@
+-- Resumen diario de atenciones por médico, mantenido de forma incremental por HistoriaClinicaService
+-- Las estadísticas por médico, especialidad, día y mes se calculan sobre esta tabla, cuyo tamaño
+-- depende de los días y médicos del rango y no de la cantidad de historias
+
+CREATE TABLE resumen_diario_historias (
+    RES_Fecha      DATE        NOT NULL,
+    MED_Cmp        VARCHAR(10) NOT NULL,
+    RES_Atenciones BIGINT      NOT NULL,
+    PRIMARY KEY (RES_Fecha, MED_Cmp)
+);
+
+CREATE INDEX idx_resumen_medico_fecha ON resumen_diario_historias (MED_Cmp, RES_Fecha);
+
+INSERT INTO resumen_diario_historias (RES_Fecha, MED_Cmp, RES_Atenciones)
+SELECT HIST_Fecha_Atencion, MED_Cmp, COUNT(*)
+FROM historias_clinicas
+GROUP BY HIST_Fecha_Atencion, MED_Cmp;
+
+-- Los pacientes distintos por médico no se pueden sumar por día y se cuentan sobre historias_clinicas:
+-- el índice por médico y fecha incluye ahora el DNI para resolver el conteo solo con el índice
+CREATE INDEX idx_historias_medico_fecha_paciente ON historias_clinicas (MED_Cmp, HIST_Fecha_Atencion, PAC_DNI);
+
+DROP INDEX idx_historias_medico_fecha ON historias_clinicas;
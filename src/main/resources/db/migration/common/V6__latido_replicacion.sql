@@ -0,0 +1,10 @@
+-- Latido de replicación: la aplicación escribe la hora actual en la primaria y la lee en la réplica
+-- para medir su retraso sin depender de comandos propios de cada motor (SHOW REPLICA STATUS)
+
+CREATE TABLE latido_replicacion (
+    LAT_Id           INT    NOT NULL,
+    LAT_Milisegundos BIGINT NOT NULL,
+    PRIMARY KEY (LAT_Id)
+);
+
+INSERT INTO latido_replicacion (LAT_Id, LAT_Milisegundos) VALUES (1, 0);
@@ -0,0 +1,16 @@
+-- Registro de auditoría de historias clínicas, pacientes y médicos
+-- Solo se inserta: AuditoriaService escribe por lotes las instantáneas de cada cambio confirmado
+-- (estado anterior y posterior en JSON) y ninguna parte de la aplicación actualiza ni borra filas
+
+CREATE TABLE auditoria_cambios (
+    AUD_Id         BIGINT       NOT NULL AUTO_INCREMENT,
+    AUD_Fecha      TIMESTAMP(3) NOT NULL,
+    AUD_Entidad    VARCHAR(40)  NOT NULL,
+    AUD_Entidad_Id VARCHAR(20)  NOT NULL,
+    AUD_Operacion  VARCHAR(10)  NOT NULL,
+    AUD_Antes      TEXT,
+    AUD_Despues    TEXT,
+    PRIMARY KEY (AUD_Id)
+);
+
+CREATE INDEX idx_auditoria_entidad ON auditoria_cambios (AUD_Entidad, AUD_Entidad_Id, AUD_Id);
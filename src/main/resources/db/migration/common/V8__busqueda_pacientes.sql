@@ -0,0 +1,13 @@
+-- Columnas de búsqueda de pacientes: nombre y apellidos en minúsculas y sin tildes (TextoBusqueda),
+-- mantenidas por la entidad Paciente en cada INSERT y UPDATE y rellenadas para las filas existentes
+-- por la migración V9. La búsqueda por prefijo (LIKE 'texto%') y el orden del directorio usan estos índices
+
+ALTER TABLE pacientes ADD COLUMN PAC_Nombre_Busqueda VARCHAR(100);
+ALTER TABLE pacientes ADD COLUMN PAC_Apellido_Paterno_Busqueda VARCHAR(100);
+ALTER TABLE pacientes ADD COLUMN PAC_Apellido_Materno_Busqueda VARCHAR(100);
+
+-- Orden por apellidos (paterno, materno, nombre) y prefijo del apellido paterno
+CREATE INDEX idx_pacientes_busqueda_apellidos
+    ON pacientes (PAC_Apellido_Paterno_Busqueda, PAC_Apellido_Materno_Busqueda, PAC_Nombre_Busqueda, PAC_DNI);
+CREATE INDEX idx_pacientes_busqueda_materno ON pacientes (PAC_Apellido_Materno_Busqueda, PAC_DNI);
+CREATE INDEX idx_pacientes_busqueda_nombre ON pacientes (PAC_Nombre_Busqueda, PAC_DNI);
@@ -0,0 +1,3 @@
+-- Secuencia para los IDs de historias clínicas (incremento igual al allocationSize de la entidad)
+
+CREATE SEQUENCE historias_clinicas_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,12 @@
+-- MySQL no tiene secuencias: Hibernate emula historias_clinicas_seq con una tabla de una fila
+-- El valor inicial se ubica por encima de los IDs existentes (más un bloque de asignación de 50)
+-- para que los IDs generados nunca choquen con los asignados antes por AUTO_INCREMENT
+
+CREATE TABLE IF NOT EXISTS historias_clinicas_seq (
+    next_val BIGINT
+);
+
+DELETE FROM historias_clinicas_seq;
+
+INSERT INTO historias_clinicas_seq (next_val)
+SELECT COALESCE(MAX(HIST_Id), 0) + 51 FROM historias_clinicas;
@@ -0,0 +1,90 @@
+package flutter_backend.Ramirez.carga;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carga en la base de datos embebida los volúmenes configurados de pacientes, médicos e historias
+ * Inserta directamente por JDBC en lotes para que la preparación no domine el tiempo de la prueba
+ */
+class DatosCarga {
+
+	static final String[] ESPECIALIDADES = {
+		"Cardiología", "Pediatría", "Neurología", "Dermatología", "Traumatología",
+		"Medicina General", "Ginecología", "Oftalmología", "Psiquiatría", "Endocrinología"
+	};
+
+	static final LocalDate FECHA_INICIAL = LocalDate.of(2020, 1, 1);
+	static final int DIAS_DE_HISTORIAS = 5 * 365;
+
+	private static final int TAMANO_LOTE = 1000;
+	private static final String TEXTO_CLINICO = "Paciente refiere cefalea holocraneana de moderada intensidad, "
+		+ "sin signos de alarma neurológica. Se indica control de presión arterial y analgesia. ";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final int longitudTexto;
+
+	DatosCarga(JdbcTemplate jdbcTemplate, int longitudTexto) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.longitudTexto = longitudTexto;
+	}
+
+	static String dni(int indice) {
+		return String.format("%08d", 10_000_000 + indice);
+	}
+
+	static String cmp(int indice) {
+		return String.format("%06d", 100_000 + indice);
+	}
+
+	void cargar(int pacientes, int medicos, int historias) {
+		insertarEnLotes(pacientes, "INSERT INTO pacientes (PAC_DNI, PAC_Nombre, PAC_Apellido_Paterno, "
+				+ "PAC_Apellido_Materno, PAC_Direccion, PAC_Telefono, PAC_Nombre_Busqueda, PAC_Apellido_Paterno_Busqueda, "
+				+ "PAC_Apellido_Materno_Busqueda, PAC_Nombre_Completo) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+			i -> new Object[] {dni(i), "Nombre" + i, "Paterno" + i, "Materno" + i, "Av. Principal " + i, "987654321",
+				"nombre" + i, "paterno" + i, "materno" + i, "Nombre" + i + " Paterno" + i + " Materno" + i});
+
+		insertarEnLotes(medicos, "INSERT INTO medicos (MED_Cmp, MED_Nombre, MED_Apellidos, ESPE_Nombre, "
+				+ "MED_Nombre_Completo) VALUES (?, ?, ?, ?, ?)",
+			i -> new Object[] {cmp(i), "Medico" + i, "Apellidos " + i, ESPECIALIDADES[i % ESPECIALIDADES.length],
+				"Medico" + i + " Apellidos " + i});
+
+		String texto = texto();
+		insertarEnLotes(historias, "INSERT INTO historias_clinicas (HIST_Id, PAC_DNI, MED_Cmp, HIST_Fecha_Atencion, "
+				+ "HIST_Diagnostico, HIST_Analisis, HIST_Tratamiento) VALUES (?, ?, ?, ?, ?, ?, ?)",
+			i -> new Object[] {
+				(long) i + 1, dni(i % pacientes), cmp(i % medicos),
+				Date.valueOf(FECHA_INICIAL.plusDays(i % DIAS_DE_HISTORIAS)), texto, texto, texto
+			});
+
+		// La secuencia debe continuar después de los IDs insertados explícitamente; con el optimizador
+		// pooled el valor leído es el extremo superior del bloque, por eso se suma el allocationSize (50)
+		jdbcTemplate.execute("ALTER SEQUENCE historias_clinicas_seq RESTART WITH " + (historias + 51));
+	}
+
+	private String texto() {
+		StringBuilder texto = new StringBuilder(longitudTexto);
+		while (texto.length() < longitudTexto) {
+			texto.append(TEXTO_CLINICO);
+		}
+		return texto.substring(0, longitudTexto);
+	}
+
+	private void insertarEnLotes(int cantidad, String sql, java.util.function.IntFunction<Object[]> fila) {
+		List<Object[]> lote = new ArrayList<>(TAMANO_LOTE);
+		for (int i = 0; i < cantidad; i++) {
+			lote.add(fila.apply(i));
+			if (lote.size() == TAMANO_LOTE) {
+				jdbcTemplate.batchUpdate(sql, lote);
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty()) {
+			jdbcTemplate.batchUpdate(sql, lote);
+		}
+	}
+}
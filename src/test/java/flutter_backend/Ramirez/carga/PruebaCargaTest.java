@@ -0,0 +1,239 @@
+package flutter_backend.Ramirez.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga de la API REST completa sobre una base de datos H2 embebida en modo MySQL
+ * Siembra los volúmenes configurados y ejecuta concurrentemente los endpoints de los tres controladores,
+ * informando p50/p99/p999 y peticiones por segundo por endpoint.
+ *
+ * No forma parte de la suite normal: se ejecuta con mvn -P carga test
+ * y los parámetros se ajustan con -Dcarga.hilos=64 -Dcarga.historias=200000, etc.
+ * Para comparar los modos de ejecución se agrega -Dspring.threads.virtual.enabled=true
+ * El resultado se guarda en target/carga/resultados.json
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "carga"})
+class PruebaCargaTest {
+
+	@LocalServerPort
+	private int puerto;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${carga.pacientes}")
+	private int pacientes;
+
+	@Value("${carga.medicos}")
+	private int medicos;
+
+	@Value("${carga.historias}")
+	private int historias;
+
+	@Value("${carga.longitud-texto}")
+	private int longitudTexto;
+
+	@Value("${carga.hilos}")
+	private int hilos;
+
+	@Value("${carga.calentamiento-segundos}")
+	private int calentamientoSegundos;
+
+	@Value("${carga.duracion-segundos}")
+	private int duracionSegundos;
+
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean hilosVirtuales;
+
+	private final HttpClient cliente = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.connectTimeout(Duration.ofSeconds(5))
+		.build();
+
+	private final AtomicInteger siguientePaciente = new AtomicInteger();
+
+	/**
+	 * Endpoint medido: un nombre para el informe y un generador de peticiones con parámetros aleatorios
+	 */
+	private record Endpoint(String nombre, Supplier<HttpRequest> peticion) {
+	}
+
+	@Test
+	void medirEndpoints() throws Exception {
+		new DatosCarga(jdbcTemplate, longitudTexto).cargar(pacientes, medicos, historias);
+		siguientePaciente.set(pacientes);
+
+		List<Endpoint> endpoints = definirEndpoints();
+		ejecutarFase(endpoints, calentamientoSegundos, new ConcurrentHashMap<>());
+
+		Map<String, RegistroLatencias> registros = new ConcurrentHashMap<>();
+		long duracionNanos = ejecutarFase(endpoints, duracionSegundos, registros);
+
+		Map<String, Object> resultados = new LinkedHashMap<>();
+		long errores = 0;
+		for (Endpoint endpoint : endpoints) {
+			RegistroLatencias registro = registros.getOrDefault(endpoint.nombre(), new RegistroLatencias());
+			Map<String, Object> resumen = registro.resumir(duracionNanos);
+			errores += (long) resumen.get("errores");
+			resultados.put(endpoint.nombre(), resumen);
+		}
+		publicar(resultados);
+
+		assertThat(errores).as("peticiones con error").isZero();
+	}
+
+	private List<Endpoint> definirEndpoints() {
+		return List.of(
+			new Endpoint("GET /api/historias-clinicas",
+				() -> get("/api/historias-clinicas?limit=100&after=" + aleatorio(historias))),
+			new Endpoint("GET /api/historias-clinicas/{id}",
+				() -> get("/api/historias-clinicas/" + (aleatorio(historias) + 1))),
+			new Endpoint("GET /api/historias-clinicas/paciente/{pacDni}",
+				() -> get("/api/historias-clinicas/paciente/" + DatosCarga.dni(aleatorio(pacientes)))),
+			new Endpoint("GET /api/historias-clinicas/medico/{medCmp}",
+				() -> get("/api/historias-clinicas/medico/" + DatosCarga.cmp(aleatorio(medicos)))),
+			new Endpoint("GET /api/historias-clinicas/fechas", () -> {
+				LocalDate inicio = DatosCarga.FECHA_INICIAL.plusDays(aleatorio(DatosCarga.DIAS_DE_HISTORIAS));
+				return get("/api/historias-clinicas/fechas?inicio=" + inicio + "&fin=" + inicio.plusDays(7));
+			}),
+			new Endpoint("POST /api/historias-clinicas",
+				() -> post("/api/historias-clinicas", """
+					{"pacDni":"%s","medCmp":"%s","histFechaAtencion":"2025-01-15",
+					 "histDiagnostico":"Diagnóstico registrado en prueba de carga",
+					 "histTratamiento":"Tratamiento registrado en prueba de carga"}"""
+					.formatted(DatosCarga.dni(aleatorio(pacientes)), DatosCarga.cmp(aleatorio(medicos))))),
+			new Endpoint("GET /api/pacientes/{dni}",
+				() -> get("/api/pacientes/" + DatosCarga.dni(aleatorio(pacientes)))),
+			new Endpoint("GET /api/pacientes?q={texto}",
+				() -> get("/api/pacientes?size=20&q=paterno" + aleatorio(pacientes / 10 + 1))),
+			new Endpoint("GET /api/pacientes/sugerencias",
+				() -> get("/api/pacientes/sugerencias?q=paterno" + aleatorio(pacientes / 1000 + 1))),
+			new Endpoint("POST /api/pacientes",
+				() -> post("/api/pacientes", """
+					{"pacDni":"%s","pacNombre":"Nuevo","pacApellidoPaterno":"Paciente","pacTelefono":"987654321"}"""
+					.formatted(DatosCarga.dni(siguientePaciente.getAndIncrement())))),
+			new Endpoint("GET /api/medicos",
+				() -> get("/api/medicos")),
+			new Endpoint("GET /api/medicos/{cmp}",
+				() -> get("/api/medicos/" + DatosCarga.cmp(aleatorio(medicos)))),
+			new Endpoint("GET /api/medicos/especialidad/{especialidad}",
+				() -> get("/api/medicos/especialidad/" + DatosCarga.ESPECIALIDADES[aleatorio(DatosCarga.ESPECIALIDADES.length)]))
+		);
+	}
+
+	/**
+	 * Ejecuta la mezcla de endpoints con la cantidad de hilos configurada durante el tiempo indicado
+	 * @return Duración real de la fase en nanosegundos
+	 */
+	private long ejecutarFase(List<Endpoint> endpoints, int segundos, Map<String, RegistroLatencias> registros)
+			throws InterruptedException {
+		long inicio = System.nanoTime();
+		long limite = inicio + TimeUnit.SECONDS.toNanos(segundos);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		for (int i = 0; i < hilos; i++) {
+			int desplazamiento = i;
+			ejecutor.submit(() -> {
+				int indice = desplazamiento;
+				while (System.nanoTime() < limite) {
+					Endpoint endpoint = endpoints.get(indice++ % endpoints.size());
+					long antes = System.nanoTime();
+					boolean exitoso = enviar(endpoint.peticion().get());
+					registros.computeIfAbsent(endpoint.nombre(), nombre -> new RegistroLatencias())
+						.registrar(System.nanoTime() - antes, exitoso);
+				}
+			});
+		}
+		ejecutor.shutdown();
+		ejecutor.awaitTermination(segundos + 60L, TimeUnit.SECONDS);
+		return System.nanoTime() - inicio;
+	}
+
+	private boolean enviar(HttpRequest peticion) {
+		try {
+			HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+			return respuesta.statusCode() < 400;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	private void publicar(Map<String, Object> resultados) throws Exception {
+		Map<String, Object> configuracion = new LinkedHashMap<>();
+		configuracion.put("pacientes", pacientes);
+		configuracion.put("medicos", medicos);
+		configuracion.put("historias", historias);
+		configuracion.put("longitudTexto", longitudTexto);
+		configuracion.put("hilos", hilos);
+		configuracion.put("duracionSegundos", duracionSegundos);
+		configuracion.put("hilosVirtuales", hilosVirtuales);
+
+		Map<String, Object> informe = new LinkedHashMap<>();
+		informe.put("configuracion", configuracion);
+		informe.put("endpoints", resultados);
+
+		Path archivo = Path.of("target", "carga", "resultados.json");
+		Files.createDirectories(archivo.getParent());
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(archivo.toFile(), informe);
+
+		System.out.printf("%n%-48s %10s %8s %10s %10s %10s%n", "Endpoint", "req/s", "errores", "p50 ms", "p99 ms", "p999 ms");
+		resultados.forEach((nombre, valor) -> {
+			Map<?, ?> resumen = (Map<?, ?>) valor;
+			System.out.printf("%-48s %10s %8s %10s %10s %10s%n", nombre, resumen.get("peticionesPorSegundo"),
+				resumen.get("errores"), resumen.get("p50Ms"), resumen.get("p99Ms"), resumen.get("p999Ms"));
+		});
+		System.out.println("Resultados guardados en " + archivo.toAbsolutePath());
+	}
+
+	private HttpRequest get(String ruta) {
+		return HttpRequest.newBuilder(uri(ruta)).GET().build();
+	}
+
+	private HttpRequest post(String ruta, String cuerpo) {
+		return HttpRequest.newBuilder(uri(ruta))
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+			.build();
+	}
+
+	private URI uri(String ruta) {
+		return URI.create("http://localhost:" + puerto + ruta);
+	}
+
+	private static int aleatorio(int limite) {
+		return ThreadLocalRandom.current().nextInt(limite);
+	}
+}
@@ -0,0 +1,183 @@
+package flutter_backend.Ramirez.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de contención: N editores actualizan el mismo paciente a la vez con GET + PUT If-Match,
+ * reintentando ante 412/409, como varias terminales de admisión editando el mismo registro.
+ * Informa por cada N las ediciones confirmadas por segundo, los conflictos y la latencia de una
+ * edición completa (incluidos los reintentos), y verifica que no se pierda ninguna actualización.
+ *
+ * Se ejecuta con mvn -P carga test -Dtest=PruebaContencionTest
+ * y se ajusta con -Dcarga.contencion.editores=1,4,16 -Dcarga.contencion.segundos=10
+ * El resultado se guarda en target/carga/contencion.json
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "carga"})
+class PruebaContencionTest {
+
+	private static final String DNI = "99999999";
+
+	@LocalServerPort
+	private int puerto;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${carga.contencion.editores}")
+	private List<Integer> editores;
+
+	@Value("${carga.contencion.segundos}")
+	private int segundos;
+
+	private final HttpClient cliente = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.connectTimeout(Duration.ofSeconds(5))
+		.build();
+
+	@Test
+	void medirContencion() throws Exception {
+		jdbcTemplate.update("INSERT INTO pacientes (PAC_DNI, PAC_Nombre, PAC_Apellido_Paterno, PAC_Nombre_Completo) "
+				+ "VALUES (?, ?, ?, ?)",
+			DNI, "Contencion", "Paciente", "Contencion Paciente");
+
+		Map<String, Object> resultados = new LinkedHashMap<>();
+		for (int cantidad : editores) {
+			long versionInicial = versionActual();
+			AtomicLong confirmadas = new AtomicLong();
+			AtomicLong conflictos = new AtomicLong();
+			AtomicLong errores = new AtomicLong();
+			RegistroLatencias registro = new RegistroLatencias();
+
+			long duracionNanos = ejecutar(cantidad, confirmadas, conflictos, errores, registro);
+
+			// Cada edición confirmada incrementa la versión exactamente una vez: ninguna se perdió
+			assertThat(versionActual() - versionInicial).as("ediciones perdidas con %d editores", cantidad)
+				.isEqualTo(confirmadas.get());
+			assertThat(errores.get()).as("peticiones con error con %d editores", cantidad).isZero();
+
+			Map<String, Object> resumen = registro.resumir(duracionNanos);
+			resumen.put("conflictos", conflictos.get());
+			resumen.put("conflictosPorEdicion", confirmadas.get() == 0
+				? 0.0 : Math.round(conflictos.get() * 1000.0 / confirmadas.get()) / 1000.0);
+			resultados.put(cantidad + " editores", resumen);
+		}
+		publicar(resultados);
+	}
+
+	/**
+	 * Lanza los editores durante la duración configurada
+	 * @return Duración real en nanosegundos
+	 */
+	private long ejecutar(int cantidad, AtomicLong confirmadas, AtomicLong conflictos, AtomicLong errores,
+			RegistroLatencias registro) throws InterruptedException {
+		long inicio = System.nanoTime();
+		long limite = inicio + TimeUnit.SECONDS.toNanos(segundos);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(cantidad);
+		for (int i = 0; i < cantidad; i++) {
+			String editor = "Editor" + i;
+			ejecutor.submit(() -> {
+				long edicion = 0;
+				while (System.nanoTime() < limite) {
+					// Cada edición cambia el nombre; una edición sin cambios no genera UPDATE ni nueva versión
+					String nombre = editor + "-" + edicion++;
+					long antes = System.nanoTime();
+					int estado;
+					do {
+						estado = editar(nombre);
+						if (estado == 412 || estado == 409) {
+							conflictos.incrementAndGet();
+						}
+					} while ((estado == 412 || estado == 409) && System.nanoTime() < limite);
+
+					if (estado == 200) {
+						confirmadas.incrementAndGet();
+						registro.registrar(System.nanoTime() - antes, true);
+					} else if (estado != 412 && estado != 409) {
+						errores.incrementAndGet();
+					}
+				}
+			});
+		}
+		ejecutor.shutdown();
+		ejecutor.awaitTermination(segundos + 60L, TimeUnit.SECONDS);
+		return System.nanoTime() - inicio;
+	}
+
+	/**
+	 * Lee el paciente y lo actualiza enviando la ETag recibida en If-Match
+	 * @return Código de estado del PUT, o -1 si falló la comunicación
+	 */
+	private int editar(String nombre) {
+		try {
+			HttpResponse<Void> lectura = cliente.send(
+				HttpRequest.newBuilder(uri("/api/pacientes/" + DNI)).GET().build(),
+				HttpResponse.BodyHandlers.discarding());
+			String etag = lectura.headers().firstValue("ETag").orElseThrow();
+
+			HttpResponse<Void> escritura = cliente.send(
+				HttpRequest.newBuilder(uri("/api/pacientes/" + DNI))
+					.header("Content-Type", "application/json")
+					.header("If-Match", etag)
+					.PUT(HttpRequest.BodyPublishers.ofString(
+						"{\"pacNombre\":\"%s\",\"pacApellidoPaterno\":\"Paciente\"}".formatted(nombre)))
+					.build(),
+				HttpResponse.BodyHandlers.discarding());
+			return escritura.statusCode();
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	private long versionActual() {
+		return jdbcTemplate.queryForObject("SELECT PAC_Version FROM pacientes WHERE PAC_DNI = ?", Long.class, DNI);
+	}
+
+	private void publicar(Map<String, Object> resultados) throws Exception {
+		Path archivo = Path.of("target", "carga", "contencion.json");
+		Files.createDirectories(archivo.getParent());
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(archivo.toFile(), resultados);
+
+		System.out.printf("%n%-14s %12s %12s %14s %10s %10s%n",
+			"Editores", "ediciones/s", "conflictos", "confl/edición", "p50 ms", "p99 ms");
+		resultados.forEach((nombre, valor) -> {
+			Map<?, ?> resumen = (Map<?, ?>) valor;
+			System.out.printf("%-14s %12s %12s %14s %10s %10s%n", nombre, resumen.get("peticionesPorSegundo"),
+				resumen.get("conflictos"), resumen.get("conflictosPorEdicion"), resumen.get("p50Ms"), resumen.get("p99Ms"));
+		});
+		System.out.println("Resultados guardados en " + archivo.toAbsolutePath());
+	}
+
+	private URI uri(String ruta) {
+		return URI.create("http://localhost:" + puerto + ruta);
+	}
+}
@@ -0,0 +1,56 @@
+package flutter_backend.Ramirez.carga;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Acumula las latencias de un endpoint durante la prueba de carga y calcula sus percentiles
+ */
+class RegistroLatencias {
+
+	private long[] latenciasNanos = new long[1024];
+	private int cantidad;
+	private long errores;
+
+	synchronized void registrar(long nanos, boolean exitoso) {
+		if (!exitoso) {
+			errores++;
+		}
+		if (cantidad == latenciasNanos.length) {
+			latenciasNanos = Arrays.copyOf(latenciasNanos, cantidad * 2);
+		}
+		latenciasNanos[cantidad++] = nanos;
+	}
+
+	/**
+	 * Resume las latencias registradas en milisegundos junto con el throughput
+	 * @param duracionNanos Duración de la fase medida
+	 */
+	synchronized Map<String, Object> resumir(long duracionNanos) {
+		long[] ordenadas = Arrays.copyOf(latenciasNanos, cantidad);
+		Arrays.sort(ordenadas);
+
+		Map<String, Object> resumen = new LinkedHashMap<>();
+		resumen.put("peticiones", cantidad);
+		resumen.put("errores", errores);
+		resumen.put("peticionesPorSegundo", redondear(cantidad / (duracionNanos / 1e9)));
+		resumen.put("p50Ms", percentilMs(ordenadas, 0.50));
+		resumen.put("p99Ms", percentilMs(ordenadas, 0.99));
+		resumen.put("p999Ms", percentilMs(ordenadas, 0.999));
+		resumen.put("maxMs", ordenadas.length == 0 ? 0.0 : redondear(ordenadas[ordenadas.length - 1] / 1e6));
+		return resumen;
+	}
+
+	private static double percentilMs(long[] ordenadas, double percentil) {
+		if (ordenadas.length == 0) {
+			return 0.0;
+		}
+		int posicion = (int) Math.ceil(percentil * ordenadas.length) - 1;
+		return redondear(ordenadas[Math.max(posicion, 0)] / 1e6);
+	}
+
+	private static double redondear(double valor) {
+		return Math.round(valor * 1000) / 1000.0;
+	}
+}
@@ -0,0 +1,124 @@
+package flutter_backend.Ramirez.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica la compresión gzip de las respuestas contra el servidor embebido
+ * (MockMvc no pasa por el conector de Tomcat, que es quien comprime)
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class CompresionRespuestasTest {
+
+	private static final String TEXTO = "Paciente refiere cefalea holocraneana de tres días de evolución, "
+		+ "sin fiebre ni signos de alarma; examen neurológico sin alteraciones. ";
+
+	@LocalServerPort
+	private int puerto;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	private final HttpClient cliente = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void preparar() {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni("50000001");
+		paciente.setPacNombre("Lucía");
+		paciente.setPacApellidoPaterno("Mendoza");
+		paciente = pacienteRepository.save(paciente);
+
+		Medico medico = new Medico();
+		medico.setMedCmp("90001");
+		medico.setMedNombre("Raúl");
+		medico.setMedApellidos("Castro León");
+		medico.setEspeNombre("Neurología");
+		medico = medicoRepository.save(medico);
+
+		for (int i = 0; i < 20; i++) {
+			HistoriaClinica historia = new HistoriaClinica();
+			historia.setPaciente(paciente);
+			historia.setMedico(medico);
+			historia.setHistFechaAtencion(LocalDate.of(2025, 4, 1).plusDays(i));
+			historia.setHistDiagnostico("Cefalea tensional");
+			historia.setHistAnalisis(TEXTO.repeat(5));
+			historia.setHistTratamiento(TEXTO.repeat(3));
+			historiaClinicaRepository.save(historia);
+		}
+	}
+
+	@AfterEach
+	void limpiar() {
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void listadoGrandeSeComprimeConGzip() throws Exception {
+		HttpResponse<InputStream> respuesta = pedir("/api/historias-clinicas");
+
+		assertThat(respuesta.statusCode()).isEqualTo(200);
+		assertThat(respuesta.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).hasValue("gzip");
+		try (InputStream cuerpo = new GZIPInputStream(respuesta.body())) {
+			JsonNode json = objectMapper.readTree(cuerpo);
+			assertThat(json.get("success").asBoolean()).isTrue();
+			assertThat(json.get("count").asInt()).isEqualTo(20);
+			assertThat(json.has("error")).isFalse();
+		}
+	}
+
+	@Test
+	void respuestaPequenaNoSeComprime() throws Exception {
+		HttpResponse<InputStream> respuesta = pedir("/api/medicos/90001");
+
+		assertThat(respuesta.statusCode()).isEqualTo(200);
+		assertThat(respuesta.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+		try (InputStream cuerpo = respuesta.body()) {
+			assertThat(objectMapper.readTree(cuerpo).get("data").get("medCmp").asText()).isEqualTo("90001");
+		}
+	}
+
+	private HttpResponse<InputStream> pedir(String ruta) throws Exception {
+		HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+			.header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+			.GET()
+			.build();
+		return cliente.send(peticion, HttpResponse.BodyHandlers.ofInputStream());
+	}
+}
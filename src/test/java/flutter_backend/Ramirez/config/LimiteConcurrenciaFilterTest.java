@@ -0,0 +1,65 @@
+package flutter_backend.Ramirez.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica el rechazo por saturación, el aislamiento entre compartimentos del bulkhead
+ * y que las rutas excluidas no ocupen permisos
+ */
+class LimiteConcurrenciaFilterTest {
+
+	private final LimiteConcurrenciaFilter filtro =
+		new LimiteConcurrenciaFilter(1, 1, List.of("/api/historias-clinicas/fechas"),
+			List.of("/api/historias-clinicas/eventos"), 0);
+
+	@Test
+	void rechazaCuandoElCompartimentoEstaLleno() throws Exception {
+		MockHttpServletResponse respuestaInterna = new MockHttpServletResponse();
+
+		filtro.doFilter(peticion("/api/medicos"), new MockHttpServletResponse(),
+			(request, response) -> filtro.doFilter(peticion("/api/pacientes"), respuestaInterna, (r, s) -> { }));
+
+		assertThat(respuestaInterna.getStatus()).isEqualTo(503);
+		assertThat(respuestaInterna.getHeader("Retry-After")).isEqualTo("1");
+	}
+
+	@Test
+	void rutasPesadasNoConsumenElCompartimentoGeneral() throws Exception {
+		MockHttpServletResponse respuestaInterna = new MockHttpServletResponse();
+
+		filtro.doFilter(peticion("/api/historias-clinicas/fechas"), new MockHttpServletResponse(),
+			(request, response) -> filtro.doFilter(peticion("/api/medicos/12345"), respuestaInterna, (r, s) -> { }));
+
+		assertThat(respuestaInterna.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void rutasExcluidasNoOcupanPermiso() throws Exception {
+		MockHttpServletResponse respuestaInterna = new MockHttpServletResponse();
+
+		filtro.doFilter(peticion("/api/historias-clinicas/eventos"), new MockHttpServletResponse(),
+			(request, response) -> filtro.doFilter(peticion("/api/medicos"), respuestaInterna, (r, s) -> { }));
+
+		assertThat(respuestaInterna.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void liberaElPermisoAlTerminar() throws Exception {
+		filtro.doFilter(peticion("/api/medicos"), new MockHttpServletResponse(), (r, s) -> { });
+
+		MockHttpServletResponse respuesta = new MockHttpServletResponse();
+		filtro.doFilter(peticion("/api/medicos"), respuesta, (r, s) -> { });
+
+		assertThat(respuesta.getStatus()).isEqualTo(200);
+	}
+
+	private static MockHttpServletRequest peticion(String uri) {
+		return new MockHttpServletRequest("GET", uri);
+	}
+}
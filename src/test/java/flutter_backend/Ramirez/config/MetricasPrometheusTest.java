@@ -0,0 +1,47 @@
+package flutter_backend.Ramirez.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que /actuator/prometheus publique las métricas de endpoints, servicio,
+ * repositorios, tamaño de listados, HikariCP e Hibernate
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricasPrometheusTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void publicaMetricasEnFormatoPrometheus() throws Exception {
+		mockMvc.perform(get("/api/medicos")).andExpect(status().isOk());
+		mockMvc.perform(get("/api/historias-clinicas")).andExpect(status().isOk());
+
+		String metricas = mockMvc.perform(get("/actuator/prometheus"))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+
+		assertThat(metricas)
+			.contains("http_server_requests_seconds_bucket")
+			.contains("clinica_historias_servicio_seconds_count{")
+			.contains("method=\"listarPagina\"")
+			.contains("spring_data_repository_invocations_seconds_count{")
+			.contains("clinica_listado_tamano_elementos_count{")
+			.contains("listado=\"medicos\"")
+			.contains("hikaricp_connections_active")
+			.contains("hibernate_statements_total");
+	}
+}
@@ -0,0 +1,188 @@
+package flutter_backend.Ramirez.config;
+
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica el enrutamiento a la réplica con dos bases H2 independientes: las filas que solo existen
+ * en una de ellas muestran a cuál fue cada consulta, y lo leído de la réplica no queda en la caché de segundo nivel
+ */
+@SpringBootTest(properties = {
+	"clinica.replica.url=jdbc:h2:mem:clinica_replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+	"clinica.replica.username=sa",
+	"clinica.replica.intervalo-latido=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaLecturaTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MonitorRetrasoReplica monitor;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private DataSource replicaDataSource;
+
+	@Autowired
+	@Qualifier("primariaDataSource")
+	private DataSource dataSourcePrimaria;
+
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	void preparar() {
+		Flyway.configure()
+			.dataSource(replicaDataSource)
+			.locations("classpath:db/migration/common", "classpath:db/migration/h2")
+			.load()
+			.migrate();
+		replica = new JdbcTemplate(replicaDataSource);
+
+		replica.update("INSERT INTO pacientes (PAC_DNI, PAC_Nombre, PAC_Apellido_Paterno, PAC_Nombre_Completo, PAC_Version) "
+			+ "VALUES ('70000001', 'Marta', 'Rojas', 'Marta Rojas', 0)");
+		replica.update("INSERT INTO medicos (MED_Cmp, MED_Nombre, MED_Apellidos, ESPE_Nombre, MED_Nombre_Completo, MED_Version) "
+			+ "VALUES ('70001', 'Luis', 'Paredes', 'Pediatría', 'Luis Paredes', 0)");
+		replica.update("INSERT INTO historias_clinicas (HIST_Id, PAC_DNI, MED_Cmp, HIST_Fecha_Atencion, "
+			+ "HIST_Diagnostico, HIST_Analisis, HIST_Tratamiento, HIST_Version) "
+			+ "VALUES (900001, '70000001', '70001', ?, 'Control de niño sano', 'Peso adecuado', 'Ninguno', 0)",
+			Date.valueOf(LocalDate.of(2025, 6, 10)));
+	}
+
+	@AfterEach
+	void limpiar() {
+		replica.update("DELETE FROM historias_clinicas");
+		replica.update("DELETE FROM medicos");
+		replica.update("DELETE FROM pacientes");
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void replicaAlDiaAtiendeLasLecturas() throws Exception {
+		replicarLatido(0);
+
+		assertThat(monitor.isReplicaDisponible()).isTrue();
+		mockMvc.perform(get("/api/historias-clinicas/fechas")
+				.param("inicio", "2025-06-01")
+				.param("fin", "2025-06-30"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.data[0].histDiagnostico").value("Control de niño sano"));
+	}
+
+	@Test
+	void replicaAtrasadaDevuelveLasLecturasALaPrimaria() throws Exception {
+		replicarLatido(60_000);
+
+		assertThat(monitor.isReplicaDisponible()).isFalse();
+		assertThat(monitor.getRetrasoMs()).isGreaterThanOrEqualTo(60_000);
+		mockMvc.perform(get("/api/historias-clinicas/fechas")
+				.param("inicio", "2025-06-01")
+				.param("fin", "2025-06-30"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(0));
+	}
+
+	@Test
+	void escrituraLeeDeLaPrimaria() throws Exception {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni("70000002");
+		paciente.setPacNombre("Iris");
+		paciente.setPacApellidoPaterno("Campos");
+		pacienteRepository.save(paciente);
+		entityManagerFactory.getCache().evictAll();
+		replicarLatido(0);
+
+		// La réplica todavía no tiene al paciente: una lectura suelta no lo encuentra...
+		mockMvc.perform(get("/api/pacientes/{dni}", "70000002"))
+			.andExpect(status().isNotFound());
+
+		// ...pero la actualización lo lee de la primaria
+		mockMvc.perform(put("/api/pacientes/{dni}", "70000002")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacDni\":\"70000002\",\"pacNombre\":\"Iris\",\"pacApellidoPaterno\":\"Campos\","
+					+ "\"pacTelefono\":\"987654321\"}"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data.pacTelefono").value("987654321"));
+	}
+
+	@Test
+	void lecturasDeLaReplicaNoLlenanLaCacheDeSegundoNivel() throws Exception {
+		entityManagerFactory.getCache().evictAll();
+		replicarLatido(0);
+
+		mockMvc.perform(get("/api/pacientes/{dni}", "70000001"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data.pacNombre").value("Marta"));
+		assertThat(enLectura(() -> medicoRepository.findById("70001"))).isPresent();
+		assertThat(entityManagerFactory.getCache().contains(Paciente.class, "70000001")).isFalse();
+		assertThat(entityManagerFactory.getCache().contains(Medico.class, "70001")).isFalse();
+
+		// La consulta cacheable lee de la primaria aunque se llame dentro de una transacción que va a la réplica
+		assertThat(enLectura(() -> medicoRepository.findByEspeNombre("Pediatría"))).isEmpty();
+
+		// Con la réplica atrasada las lecturas van a la primaria, que no tiene al paciente
+		replicarLatido(60_000);
+		mockMvc.perform(get("/api/pacientes/{dni}", "70000001"))
+			.andExpect(status().isNotFound());
+	}
+
+	/**
+	 * Ejecuta una lectura en una transacción de solo lectura, como los servicios
+	 */
+	private <T> T enLectura(Supplier<T> lectura) {
+		TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+		transaccion.setReadOnly(true);
+		return transaccion.execute(estado -> lectura.get());
+	}
+
+	/**
+	 * Copia a la réplica un latido con el retraso indicado y vuelve a medir
+	 */
+	private void replicarLatido(long retrasoMs) {
+		replica.update("UPDATE latido_replicacion SET LAT_Milisegundos = ? WHERE LAT_Id = 1",
+			System.currentTimeMillis() - retrasoMs);
+		monitor.comprobar();
+	}
+}
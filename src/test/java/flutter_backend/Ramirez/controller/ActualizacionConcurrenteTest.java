@@ -0,0 +1,161 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica el control de concurrencia optimista: If-Match con 412 y @Version sin pérdida de cambios
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ActualizacionConcurrenteTest {
+
+	private static final String DNI = "40000001";
+	private static final String CMP = "80001";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	private Long historiaId;
+
+	@BeforeEach
+	void preparar() {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni(DNI);
+		paciente.setPacNombre("Elena");
+		paciente.setPacApellidoPaterno("Castro");
+		paciente = pacienteRepository.save(paciente);
+
+		Medico medico = new Medico();
+		medico.setMedCmp(CMP);
+		medico.setMedNombre("Mario");
+		medico.setMedApellidos("Benites Cruz");
+		medico.setEspeNombre("Traumatología");
+		medico = medicoRepository.save(medico);
+
+		HistoriaClinica historia = new HistoriaClinica();
+		historia.setPaciente(paciente);
+		historia.setMedico(medico);
+		historia.setHistFechaAtencion(LocalDate.of(2025, 4, 2));
+		historia.setHistDiagnostico("Esguince de tobillo grado I");
+		historia.setHistTratamiento("Inmovilización y antiinflamatorios");
+		historiaId = historiaClinicaRepository.save(historia).getHistId();
+	}
+
+	@AfterEach
+	void limpiar() {
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void pacienteConIfMatchVigenteSeActualiza() throws Exception {
+		mockMvc.perform(put("/api/pacientes/{dni}", DNI)
+				.header(HttpHeaders.IF_MATCH, "\"v0\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacNombre\":\"Elena María\",\"pacApellidoPaterno\":\"Castro\"}"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"v1\""));
+	}
+
+	@Test
+	void pacienteConIfMatchObsoletoRespondePrecondicionFallida() throws Exception {
+		mockMvc.perform(put("/api/pacientes/{dni}", DNI)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacNombre\":\"Elena María\",\"pacApellidoPaterno\":\"Castro\"}"))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(put("/api/pacientes/{dni}", DNI)
+				.header(HttpHeaders.IF_MATCH, "\"v0\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacNombre\":\"Elena\",\"pacApellidoPaterno\":\"Castro Díaz\"}"))
+			.andExpect(status().isPreconditionFailed())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"v1\""));
+
+		assertThat(pacienteRepository.findById(DNI).orElseThrow().getPacNombre()).isEqualTo("Elena María");
+	}
+
+	@Test
+	void medicoConIfMatchObsoletoRespondePrecondicionFallida() throws Exception {
+		mockMvc.perform(put("/api/medicos/{cmp}", CMP)
+				.header(HttpHeaders.IF_MATCH, "\"v7\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"medNombre\":\"Mario\",\"medApellidos\":\"Benites\",\"espeNombre\":\"Traumatología\"}"))
+			.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	void historiaSeActualizaConLaEtagDelGetYRechazaLaObsoleta() throws Exception {
+		String etag = mockMvc.perform(get("/api/historias-clinicas/{id}", historiaId))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		String cuerpo = """
+			{"pacDni":"%s","medCmp":"%s","histFechaAtencion":"2025-04-02",
+			 "histDiagnostico":"Esguince de tobillo grado II",
+			 "histTratamiento":"Inmovilización y antiinflamatorios"}""".formatted(DNI, CMP);
+
+		String nuevaEtag = mockMvc.perform(put("/api/historias-clinicas/{id}", historiaId)
+				.header(HttpHeaders.IF_MATCH, etag)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(nuevaEtag).isNotEqualTo(etag);
+
+		// Un segundo editor que leyó la misma versión no sobrescribe el cambio
+		mockMvc.perform(put("/api/historias-clinicas/{id}", historiaId)
+				.header(HttpHeaders.IF_MATCH, etag)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isPreconditionFailed())
+			.andExpect(header().string(HttpHeaders.ETAG, nuevaEtag));
+	}
+
+	@Test
+	void guardarUnaCopiaObsoletaFallaPorBloqueoOptimista() {
+		Paciente copiaA = pacienteRepository.findById(DNI).orElseThrow();
+		Paciente copiaB = pacienteRepository.findById(DNI).orElseThrow();
+
+		copiaA.setPacNombre("Editor A");
+		pacienteRepository.save(copiaA);
+
+		copiaB.setPacNombre("Editor B");
+		assertThatThrownBy(() -> pacienteRepository.save(copiaB))
+			.isInstanceOf(OptimisticLockingFailureException.class);
+		assertThat(pacienteRepository.findById(DNI).orElseThrow().getPacNombre()).isEqualTo("Editor A");
+	}
+}
@@ -0,0 +1,201 @@
+package flutter_backend.Ramirez.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import flutter_backend.Ramirez.config.ConfirmacionAuditoriaFilter;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import flutter_backend.Ramirez.service.AuditoriaService;
+import flutter_backend.Ramirez.service.AuditoriaService.AlLlenarse;
+import flutter_backend.Ramirez.service.AuditoriaService.Durabilidad;
+import flutter_backend.Ramirez.service.AuditoriaService.Operacion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el registro de auditoría: instantáneas antes y después de cada cambio confirmado,
+ * descarte con la cola llena y espera de la escritura en modo CONFIRMADA (503 si no se confirma)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuditoriaTest {
+
+	private static final String CONSULTA_CAMBIOS = "SELECT AUD_Operacion, AUD_Antes, AUD_Despues FROM auditoria_cambios "
+		+ "WHERE AUD_Entidad = ? AND AUD_Entidad_Id = ? ORDER BY AUD_Id";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@AfterEach
+	void limpiar() {
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void cambiosDePacienteQuedanAuditadosConSusInstantaneas() throws Exception {
+		mockMvc.perform(post("/api/pacientes")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacDni\":\"61000001\",\"pacNombre\":\"Julia\",\"pacApellidoPaterno\":\"Torres\"}"))
+			.andExpect(status().isCreated());
+		mockMvc.perform(put("/api/pacientes/{dni}", "61000001")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacNombre\":\"Julia\",\"pacApellidoPaterno\":\"Torres\",\"pacTelefono\":\"912345678\"}"))
+			.andExpect(status().isOk());
+		mockMvc.perform(delete("/api/pacientes/{dni}", "61000001"))
+			.andExpect(status().isOk());
+
+		List<Map<String, Object>> cambios = esperarCambios("Paciente", "61000001", 3);
+
+		assertThat(cambios).extracting(cambio -> cambio.get("AUD_Operacion"))
+			.containsExactly("CREAR", "ACTUALIZAR", "ELIMINAR");
+		assertThat(cambios.get(0).get("AUD_Antes")).isNull();
+		assertThat((String) cambios.get(1).get("AUD_Antes")).contains("\"pacTelefono\":null");
+		assertThat((String) cambios.get(1).get("AUD_Despues")).contains("\"pacTelefono\":\"912345678\"");
+		assertThat((String) cambios.get(2).get("AUD_Antes")).contains("\"pacNombre\":\"Julia\"");
+		assertThat(cambios.get(2).get("AUD_Despues")).isNull();
+	}
+
+	@Test
+	void colaLlenaDescartaSinBloquearLaPeticion() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		// Sin iniciar el escritor, la cola de capacidad 1 queda llena con el primer cambio
+		AuditoriaService auditoria = new AuditoriaService(jdbcTemplate, transactionManager, objectMapper, meterRegistry,
+			1, 10, AlLlenarse.DESCARTAR, Duration.ZERO, Durabilidad.ASINCRONA, Duration.ofSeconds(1));
+
+		assertThat(auditoria.registrar("Medico", "91001", Operacion.CREAR, null, Map.of())).isTrue();
+		assertThat(auditoria.registrar("Medico", "91002", Operacion.CREAR, null, Map.of())).isFalse();
+		assertThat(meterRegistry.get("clinica.auditoria.cambios").tag("resultado", "descartado").counter().count())
+			.isEqualTo(1);
+	}
+
+	@Test
+	void modoConfirmadaEsperaLaEscrituraDelLote() {
+		AuditoriaService auditoria = new AuditoriaService(jdbcTemplate, transactionManager, objectMapper,
+			new SimpleMeterRegistry(), 100, 10, AlLlenarse.BLOQUEAR, Duration.ofMillis(100), Durabilidad.CONFIRMADA,
+			Duration.ofSeconds(5));
+		auditoria.start();
+		try {
+			auditoria.abrirConfirmaciones();
+			auditoria.registrar("Medico", "91003", Operacion.CREAR, null, Map.of("medNombre", "Ana"));
+			assertThat(auditoria.esperarConfirmaciones()).isTrue();
+
+			assertThat(jdbcTemplate.queryForList(CONSULTA_CAMBIOS, "Medico", "91003"))
+				.singleElement()
+				.satisfies(cambio -> assertThat(cambio.get("AUD_Despues")).isEqualTo("{\"medNombre\":\"Ana\"}"));
+		} finally {
+			auditoria.stop();
+		}
+	}
+
+	@Test
+	void modoConfirmadaDevuelveLaRespuestaDelControladorTrasEscribir() throws Exception {
+		AuditoriaService auditoria = new AuditoriaService(jdbcTemplate, transactionManager, objectMapper,
+			new SimpleMeterRegistry(), 100, 10, AlLlenarse.BLOQUEAR, Duration.ofMillis(100), Durabilidad.CONFIRMADA,
+			Duration.ofSeconds(5));
+		auditoria.start();
+		try {
+			MockHttpServletResponse respuesta = filtrar(auditoria, "91004");
+
+			assertThat(respuesta.getStatus()).isEqualTo(201);
+			assertThat(respuesta.getContentAsString()).isEqualTo("{\"success\":true}");
+			assertThat(jdbcTemplate.queryForList(CONSULTA_CAMBIOS, "Medico", "91004")).hasSize(1);
+		} finally {
+			auditoria.stop();
+		}
+	}
+
+	@Test
+	void modoConfirmadaRespondeNoDisponibleSiLaEscrituraNoLlegaATiempo() throws Exception {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		// Sin iniciar el escritor, ningún cambio llega a escribirse
+		AuditoriaService auditoria = new AuditoriaService(jdbcTemplate, transactionManager, objectMapper, meterRegistry,
+			100, 10, AlLlenarse.BLOQUEAR, Duration.ofMillis(100), Durabilidad.CONFIRMADA, Duration.ofMillis(100));
+
+		MockHttpServletResponse respuesta = filtrar(auditoria, "91005");
+
+		assertThat(respuesta.getStatus()).isEqualTo(503);
+		assertThat(respuesta.getContentAsString()).contains("\"success\":false").doesNotContain("true");
+		assertThat(meterRegistry.get("clinica.auditoria.cambios").tag("resultado", "sin-confirmar").counter().count())
+			.isEqualTo(1);
+	}
+
+	@Test
+	void modoConfirmadaRespondeNoDisponibleSiLaColaLlenaDescartaElCambio() throws Exception {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		AuditoriaService auditoria = new AuditoriaService(jdbcTemplate, transactionManager, objectMapper, meterRegistry,
+			1, 10, AlLlenarse.DESCARTAR, Duration.ZERO, Durabilidad.CONFIRMADA, Duration.ofSeconds(30));
+		assertThat(auditoria.registrar("Medico", "91006", Operacion.CREAR, null, Map.of())).isTrue();
+
+		long inicio = System.nanoTime();
+		MockHttpServletResponse respuesta = filtrar(auditoria, "91007");
+
+		// El descarte se conoce de inmediato: no se espera espera-confirmacion
+		assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(5));
+		assertThat(respuesta.getStatus()).isEqualTo(503);
+		assertThat(meterRegistry.get("clinica.auditoria.cambios").tag("resultado", "descartado").counter().count())
+			.isEqualTo(1);
+		assertThat(meterRegistry.get("clinica.auditoria.cambios").tag("resultado", "sin-confirmar").counter().count())
+			.isEqualTo(1);
+	}
+
+	/**
+	 * Pasa por ConfirmacionAuditoriaFilter una petición cuyo controlador registra un cambio y responde 201
+	 */
+	private static MockHttpServletResponse filtrar(AuditoriaService auditoria, String medCmp) throws Exception {
+		MockHttpServletRequest peticion = new MockHttpServletRequest("POST", "/api/medicos");
+		MockHttpServletResponse respuesta = new MockHttpServletResponse();
+		FilterChain controlador = (request, response) -> {
+			auditoria.registrar("Medico", medCmp, Operacion.CREAR, null, Map.of("medNombre", "Ana"));
+			response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+			((HttpServletResponse) response).setStatus(201);
+			response.getOutputStream().write("{\"success\":true}".getBytes(StandardCharsets.UTF_8));
+		};
+
+		new ConfirmacionAuditoriaFilter(auditoria).doFilter(peticion, respuesta, controlador);
+		assertThat(respuesta.isCommitted()).isTrue();
+		return respuesta;
+	}
+
+	private List<Map<String, Object>> esperarCambios(String entidad, String id, int cantidad) throws InterruptedException {
+		long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		List<Map<String, Object>> cambios = jdbcTemplate.queryForList(CONSULTA_CAMBIOS, entidad, id);
+		while (cambios.size() < cantidad && System.nanoTime() < limite) {
+			Thread.sleep(20);
+			cambios = jdbcTemplate.queryForList(CONSULTA_CAMBIOS, entidad, id);
+		}
+		return cambios;
+	}
+}
@@ -0,0 +1,130 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica que médicos y consultas por especialidad se sirvan desde la caché de segundo nivel
+ * y que las modificaciones por PUT y DELETE la invaliden
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CacheSegundoNivelTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void preparar() {
+		Medico medico = new Medico();
+		medico.setMedCmp("77777");
+		medico.setMedNombre("Laura");
+		medico.setMedApellidos("Quispe Rojas");
+		medico.setEspeNombre("Cardiología");
+		medicoRepository.save(medico);
+
+		// Con @Version, el bloqueo que deja en la caché el médico eliminado por la prueba anterior
+		// impediría volver a cachear el mismo CMP recreado con versión 0
+		entityManagerFactory.getCache().evictAll();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void limpiar() {
+		medicoRepository.deleteAll();
+	}
+
+	@Test
+	void obtenerPorCmpSeSirveDesdeCache() throws Exception {
+		mockMvc.perform(get("/api/medicos/{cmp}", "77777")).andExpect(status().isOk());
+		statistics.clear();
+
+		mockMvc.perform(get("/api/medicos/{cmp}", "77777")).andExpect(status().isOk());
+		mockMvc.perform(get("/api/medicos/{cmp}", "77777")).andExpect(status().isOk());
+
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+	}
+
+	@Test
+	void buscarPorEspecialidadSeSirveDesdeCacheDeConsultas() throws Exception {
+		mockMvc.perform(get("/api/medicos/especialidad/{especialidad}", "Cardiología"))
+			.andExpect(jsonPath("$.count").value(1));
+		mockMvc.perform(get("/api/medicos/especialidad/{especialidad}", "Cardiología"))
+			.andExpect(jsonPath("$.count").value(1));
+
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void actualizarInvalidaEntidadYConsultas() throws Exception {
+		mockMvc.perform(get("/api/medicos/especialidad/{especialidad}", "Cardiología"))
+			.andExpect(jsonPath("$.count").value(1));
+
+		String cuerpo = """
+			{
+			  "medNombre": "Laura",
+			  "medApellidos": "Quispe Rojas",
+			  "espeNombre": "Neurología"
+			}
+			""";
+		mockMvc.perform(put("/api/medicos/{cmp}", "77777")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/medicos/{cmp}", "77777"))
+			.andExpect(jsonPath("$.data.espeNombre").value("Neurología"));
+		mockMvc.perform(get("/api/medicos/especialidad/{especialidad}", "Cardiología"))
+			.andExpect(jsonPath("$.count").value(0));
+	}
+
+	@Test
+	void eliminarInvalidaEntidad() throws Exception {
+		mockMvc.perform(get("/api/medicos/{cmp}", "77777")).andExpect(status().isOk());
+		mockMvc.perform(delete("/api/medicos/{cmp}", "77777")).andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/medicos/{cmp}", "77777"))
+			.andExpect(jsonPath("$.success").value(false));
+	}
+
+	@Test
+	void estadisticasExponenAciertosYFallos() throws Exception {
+		mockMvc.perform(get("/api/medicos/{cmp}", "77777")).andExpect(status().isOk());
+		statistics.clear();
+		mockMvc.perform(get("/api/medicos/{cmp}", "77777")).andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/cache/estadisticas"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data.regiones.medicos.aciertos").value(1))
+			.andExpect(jsonPath("$.data.regiones.medicos.fallos").value(0))
+			.andExpect(jsonPath("$.data.consultas.aciertos").exists());
+	}
+}
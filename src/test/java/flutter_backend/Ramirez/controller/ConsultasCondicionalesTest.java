@@ -0,0 +1,150 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica las ETags basadas en la versión de fila y las respuestas 304 ante If-None-Match
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConsultasCondicionalesTest {
+
+	private static final String DNI = "30000001";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void preparar() {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni(DNI);
+		paciente.setPacNombre("Carmen");
+		paciente.setPacApellidoPaterno("Torres");
+		paciente = pacienteRepository.save(paciente);
+
+		Medico medico = new Medico();
+		medico.setMedCmp("70001");
+		medico.setMedNombre("Luis");
+		medico.setMedApellidos("Paredes Soto");
+		medico.setEspeNombre("Pediatría");
+		medico = medicoRepository.save(medico);
+
+		HistoriaClinica historia = new HistoriaClinica();
+		historia.setPaciente(paciente);
+		historia.setMedico(medico);
+		historia.setHistFechaAtencion(LocalDate.of(2025, 2, 1));
+		historia.setHistDiagnostico("Faringitis aguda viral");
+		historia.setHistTratamiento("Reposo e hidratación");
+		historiaClinicaRepository.save(historia);
+	}
+
+	@AfterEach
+	void limpiar() {
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void pacienteSinCambiosRespondeNoModificado() throws Exception {
+		String etag = mockMvc.perform(get("/api/pacientes/{dni}", DNI))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"v0\""))
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/api/pacientes/{dni}", DNI).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isNotModified())
+			.andExpect(content().string(""));
+
+		mockMvc.perform(put("/api/pacientes/{dni}", DNI)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacNombre\":\"Carmen Rosa\",\"pacApellidoPaterno\":\"Torres\"}"))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/pacientes/{dni}", DNI).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"v1\""))
+			.andExpect(jsonPath("$.data.pacNombre").value("Carmen Rosa"));
+	}
+
+	@Test
+	void listadoDeMedicosCambiaDeEtagAlAgregarUno() throws Exception {
+		String etag = mockMvc.perform(get("/api/medicos"))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/api/medicos").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isNotModified());
+
+		Medico medico = new Medico();
+		medico.setMedCmp("70002");
+		medico.setMedNombre("Ana");
+		medico.setMedApellidos("Ríos Mejía");
+		medico.setEspeNombre("Pediatría");
+		medicoRepository.save(medico);
+
+		mockMvc.perform(get("/api/medicos").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(2));
+	}
+
+	@Test
+	void historiasDelPacienteNoModificadasSoloConsultanVersiones() throws Exception {
+		String etag = mockMvc.perform(get("/api/historias-clinicas/paciente/{pacDni}", DNI))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		mockMvc.perform(get("/api/historias-clinicas/paciente/{pacDni}", DNI).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isNotModified());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+		// Cambiar el nombre del paciente modifica el contenido del listado aunque las historias no cambien
+		mockMvc.perform(put("/api/pacientes/{dni}", DNI)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacNombre\":\"Carmen\",\"pacApellidoPaterno\":\"Torres Vidal\"}"))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/historias-clinicas/paciente/{pacDni}", DNI).header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data[0].pacNombreCompleto").value("Carmen Torres Vidal"));
+	}
+}
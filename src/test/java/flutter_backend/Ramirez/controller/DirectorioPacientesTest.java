@@ -0,0 +1,134 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica el directorio paginado de pacientes y las sugerencias por prefijo,
+ * sin distinguir mayúsculas ni tildes
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DirectorioPacientesTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@BeforeEach
+	void preparar() {
+		guardar("63000001", "José", "Ñáñez", "Rojas");
+		guardar("63000002", "Ana", "Rojas", "Nanez");
+		guardar("63000003", "Nancy", "Pérez", "Soto");
+		guardar("63000004", "Jorge", "Nano", "Díaz");
+		guardar("63100001", "Carmen", "Quispe", null);
+	}
+
+	@AfterEach
+	void limpiar() {
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void directorioFiltraPorPrefijoSinTildesYOrdenaPorApellidos() throws Exception {
+		mockMvc.perform(get("/api/pacientes").param("q", "NAN"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(4))
+			.andExpect(jsonPath("$.page").value(0))
+			.andExpect(jsonPath("$.hasMore").value(false))
+			.andExpect(jsonPath("$.data[0].pacApellidoPaterno").value("Ñáñez"))
+			.andExpect(jsonPath("$.data[1].pacApellidoPaterno").value("Nano"))
+			.andExpect(jsonPath("$.data[2].pacApellidoPaterno").value("Pérez"))
+			.andExpect(jsonPath("$.data[3].pacApellidoPaterno").value("Rojas"))
+			.andExpect(jsonPath("$.data[0].pacNombreBusqueda").doesNotExist());
+
+		mockMvc.perform(get("/api/pacientes").param("q", "jose nan"))
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.data[0].pacDni").value("63000001"));
+
+		mockMvc.perform(get("/api/pacientes").param("q", "631"))
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.data[0].pacNombre").value("Carmen"));
+
+		mockMvc.perform(get("/api/pacientes").param("q", "n%"))
+			.andExpect(jsonPath("$.count").value(0));
+	}
+
+	@Test
+	void directorioPaginaSinContarYRechazaOrdenesDesconocidos() throws Exception {
+		mockMvc.perform(get("/api/pacientes").param("size", "2").param("sort", "pacNombre,desc"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(2))
+			.andExpect(jsonPath("$.hasMore").value(true))
+			.andExpect(jsonPath("$.total").doesNotExist())
+			.andExpect(jsonPath("$.data[0].pacNombre").value("Nancy"))
+			.andExpect(jsonPath("$.data[1].pacNombre").value("José"));
+
+		mockMvc.perform(get("/api/pacientes").param("size", "2").param("page", "2").param("sort", "pacNombre,desc"))
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.page").value(2))
+			.andExpect(jsonPath("$.hasMore").value(false))
+			.andExpect(jsonPath("$.data[0].pacNombre").value("Ana"));
+
+		mockMvc.perform(get("/api/pacientes").param("sort", "pacTelefono"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.message").value(containsString("pacTelefono")));
+	}
+
+	@Test
+	void sugerenciasPriorizanApellidoPaternoSinRepetirPacientes() throws Exception {
+		mockMvc.perform(get("/api/pacientes/sugerencias").param("q", "nan").param("limit", "3"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(3))
+			.andExpect(jsonPath("$.data[0].pacDni").value("63000001"))
+			.andExpect(jsonPath("$.data[1].pacDni").value("63000004"))
+			.andExpect(jsonPath("$.data[2].pacDni").value("63000002"))
+			.andExpect(jsonPath("$.data[0].pacTelefono").doesNotExist());
+
+		mockMvc.perform(get("/api/pacientes/sugerencias").param("q", "rojas"))
+			.andExpect(jsonPath("$.count").value(2))
+			.andExpect(jsonPath("$.data[0].pacDni").value("63000002"))
+			.andExpect(jsonPath("$.data[1].pacDni").value("63000001"));
+	}
+
+	@Test
+	void actualizarNombreActualizaLaColumnaDeBusqueda() throws Exception {
+		mockMvc.perform(put("/api/pacientes/{dni}", "63100001")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacNombre\":\"Carmen\",\"pacApellidoPaterno\":\"Ávila\"}"))
+			.andExpect(status().isOk());
+
+		assertThat(pacienteRepository.findById("63100001").orElseThrow().getPacApellidoPaternoBusqueda())
+			.isEqualTo("avila");
+		mockMvc.perform(get("/api/pacientes/sugerencias").param("q", "AVI"))
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.data[0].pacApellidoPaterno").value("Ávila"));
+	}
+
+	private void guardar(String dni, String nombre, String apellidoPaterno, String apellidoMaterno) {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni(dni);
+		paciente.setPacNombre(nombre);
+		paciente.setPacApellidoPaterno(apellidoPaterno);
+		paciente.setPacApellidoMaterno(apellidoMaterno);
+		pacienteRepository.save(paciente);
+	}
+}
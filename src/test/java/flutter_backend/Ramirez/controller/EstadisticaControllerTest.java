@@ -0,0 +1,250 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.dto.HistoriaClinicaDTO;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import flutter_backend.Ramirez.repository.ResumenDiarioHistoriaRepository;
+import flutter_backend.Ramirez.service.HistoriaClinicaService;
+import flutter_backend.Ramirez.service.PacienteService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica las estadísticas agregadas y que el resumen diario se mantenga igual al conteo
+ * sobre historias_clinicas al registrar, actualizar, eliminar e importar historias
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EstadisticaControllerTest {
+
+	private static final LocalDate DIA_1 = LocalDate.of(2023, 5, 10);
+	private static final LocalDate DIA_2 = LocalDate.of(2023, 6, 2);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HistoriaClinicaService historiaClinicaService;
+
+	@Autowired
+	private PacienteService pacienteService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private ResumenDiarioHistoriaRepository resumenDiarioHistoriaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Long historiaMovidaId;
+
+	@BeforeEach
+	void preparar() {
+		resumenDiarioHistoriaRepository.deleteAllInBatch();
+		guardarPaciente("50000001", "Pedro");
+		guardarPaciente("50000002", "Lucía");
+		guardarMedico("90001", "Cardiología");
+		guardarMedico("90002", "Dermatología");
+
+		historiaMovidaId = historiaClinicaService.registrar(historia("50000001", "90001", DIA_1)).getHistId();
+		historiaClinicaService.registrar(historia("50000002", "90001", DIA_1));
+		historiaClinicaService.registrar(historia("50000001", "90001", DIA_2));
+		historiaClinicaService.registrar(historia("50000002", "90002", DIA_2));
+	}
+
+	@AfterEach
+	void limpiar() {
+		historiaClinicaRepository.deleteAllInBatch();
+		resumenDiarioHistoriaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void calculaAtencionesPorMedicoEspecialidadDiaYMes() throws Exception {
+		mockMvc.perform(get("/api/estadisticas/medicos").param("inicio", "2023-01-01").param("fin", "2023-12-31"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data[0].medCmp").value("90001"))
+			.andExpect(jsonPath("$.data[0].atenciones").value(3))
+			.andExpect(jsonPath("$.data[1].atenciones").value(1));
+
+		mockMvc.perform(get("/api/estadisticas/especialidades").param("inicio", "2023-06-01").param("fin", "2023-06-30"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(2))
+			.andExpect(jsonPath("$.data[0].espeNombre").value("Cardiología"))
+			.andExpect(jsonPath("$.data[0].atenciones").value(1));
+
+		mockMvc.perform(get("/api/estadisticas/dias").param("inicio", "2023-01-01").param("fin", "2023-12-31"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data[0].fecha").value("2023-05-10"))
+			.andExpect(jsonPath("$.data[0].atenciones").value(2))
+			.andExpect(jsonPath("$.data[1].fecha").value("2023-06-02"));
+
+		mockMvc.perform(get("/api/estadisticas/meses").param("inicio", "2023-01-01").param("fin", "2023-12-31"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data[0].anio").value(2023))
+			.andExpect(jsonPath("$.data[0].mes").value(5))
+			.andExpect(jsonPath("$.data[1].mes").value(6));
+
+		mockMvc.perform(get("/api/estadisticas/pacientes-por-medico").param("inicio", "2023-01-01").param("fin", "2023-12-31"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data[0].medCmp").value("90001"))
+			.andExpect(jsonPath("$.data[0].pacientesDistintos").value(2));
+	}
+
+	@Test
+	void rechazaRangoInvertido() throws Exception {
+		mockMvc.perform(get("/api/estadisticas/dias").param("inicio", "2023-12-31").param("fin", "2023-01-01"))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void resumenSigueAActualizarEliminarEImportar() {
+		historiaClinicaService.actualizar(historiaMovidaId, historia("50000001", "90002", DIA_2), null);
+		historiaClinicaService.eliminar(historiaClinicaRepository.findDtoByMedCmp("90001").get(0).getHistId());
+		historiaClinicaService.registrarLote(List.of(
+			historia("50000001", "90002", DIA_1),
+			historia("50000002", "90002", DIA_1)), 0);
+
+		assertThat(resumen()).isEqualTo(conteoSobreHistorias());
+	}
+
+	@Test
+	void eliminarLaUnicaHistoriaDelRangoQuitaMedicoYEspecialidad() throws Exception {
+		historiaClinicaService.eliminar(historiaClinicaRepository.findDtoByMedCmp("90002").get(0).getHistId());
+
+		// La fila del resumen puede quedar con cero atenciones; no debe aparecer en las estadísticas
+		mockMvc.perform(get("/api/estadisticas/medicos").param("inicio", "2023-06-01").param("fin", "2023-06-30"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.data[0].medCmp").value("90001"))
+			.andExpect(jsonPath("$.data[?(@.medCmp == '90002')]").isEmpty());
+
+		mockMvc.perform(get("/api/estadisticas/especialidades").param("inicio", "2023-06-01").param("fin", "2023-06-30"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.data[0].espeNombre").value("Cardiología"))
+			.andExpect(jsonPath("$.data[?(@.espeNombre == 'Dermatología')]").isEmpty());
+	}
+
+	@Test
+	void eliminarPacienteYMedicoMantieneElResumen() throws Exception {
+		mockMvc.perform(delete("/api/pacientes/{dni}", "50000002")).andExpect(status().isOk());
+		assertThat(resumen()).isEqualTo(conteoSobreHistorias());
+
+		mockMvc.perform(delete("/api/medicos/{cmp}", "90001")).andExpect(status().isOk());
+		assertThat(resumen()).isEqualTo(conteoSobreHistorias());
+	}
+
+	@Test
+	void eliminarPacienteYRecalcularElResumenSeConfirmanJuntos() {
+		Map<String, Long> antes = resumen();
+
+		// Si la transacción no se confirma, no queda ni la eliminación ni el recálculo
+		transactionTemplate.executeWithoutResult(estado -> {
+			pacienteService.eliminar("50000002");
+			assertThat(resumen()).isEqualTo(conteoSobreHistorias()).isNotEqualTo(antes);
+			estado.setRollbackOnly();
+		});
+		assertThat(pacienteRepository.existsById("50000002")).isTrue();
+		assertThat(resumen()).isEqualTo(antes).isEqualTo(conteoSobreHistorias());
+	}
+
+	@Test
+	void actualizarElResumenNoInvalidaLaCacheDeMedicos() throws Exception {
+		mockMvc.perform(get("/api/medicos/{cmp}", "90001")).andExpect(status().isOk());
+		historiaClinicaService.registrar(historia("50000001", "90001", DIA_2));
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		mockMvc.perform(get("/api/medicos/{cmp}", "90001")).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	/**
+	 * Filas del resumen con atenciones, como "fecha/cmp" -> cantidad
+	 */
+	private Map<String, Long> resumen() {
+		Map<String, Long> filas = new TreeMap<>();
+		jdbcTemplate.query("SELECT RES_Fecha, MED_Cmp, RES_Atenciones FROM resumen_diario_historias WHERE RES_Atenciones > 0",
+			fila -> {
+				filas.put(fila.getDate(1).toLocalDate() + "/" + fila.getString(2), fila.getLong(3));
+			});
+		return filas;
+	}
+
+	private Map<String, Long> conteoSobreHistorias() {
+		Map<String, Long> filas = new TreeMap<>();
+		jdbcTemplate.query("SELECT HIST_Fecha_Atencion, MED_Cmp, COUNT(*) FROM historias_clinicas "
+				+ "GROUP BY HIST_Fecha_Atencion, MED_Cmp",
+			fila -> {
+				filas.put(fila.getDate(1).toLocalDate() + "/" + fila.getString(2), fila.getLong(3));
+			});
+		return filas;
+	}
+
+	private void guardarPaciente(String dni, String nombre) {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni(dni);
+		paciente.setPacNombre(nombre);
+		paciente.setPacApellidoPaterno("Prueba");
+		pacienteRepository.save(paciente);
+	}
+
+	private void guardarMedico(String cmp, String especialidad) {
+		Medico medico = new Medico();
+		medico.setMedCmp(cmp);
+		medico.setMedNombre("Medico" + cmp);
+		medico.setMedApellidos("Apellidos" + cmp);
+		medico.setEspeNombre(especialidad);
+		medicoRepository.save(medico);
+	}
+
+	private static HistoriaClinicaDTO historia(String dni, String cmp, LocalDate fecha) {
+		HistoriaClinicaDTO dto = new HistoriaClinicaDTO();
+		dto.setPacDni(dni);
+		dto.setMedCmp(cmp);
+		dto.setHistFechaAtencion(fecha);
+		dto.setHistDiagnostico("Diagnóstico de estadística");
+		dto.setHistTratamiento("Tratamiento de estadística");
+		return dto;
+	}
+}
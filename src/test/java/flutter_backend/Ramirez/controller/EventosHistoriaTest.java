@@ -0,0 +1,298 @@
+package flutter_backend.Ramirez.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import flutter_backend.Ramirez.dto.HistoriaClinicaDTO;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import flutter_backend.Ramirez.service.CambioHistoriaClinica;
+import flutter_backend.Ramirez.service.EventosHistoriaService;
+import flutter_backend.Ramirez.service.HistoriaClinicaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Verifica el canal Server-Sent Events de historias clínicas contra el servidor embebido:
+ * filtrado por médico y paciente, eventos solo después del commit y reanudación con Last-Event-ID
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class EventosHistoriaTest {
+
+	private static final String DNI = "63000001";
+	private static final String CMP = "63001";
+	private static final String OTRO_CMP = "63002";
+
+	@LocalServerPort
+	private int puerto;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private HistoriaClinicaService historiaClinicaService;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	private final HttpClient cliente = HttpClient.newHttpClient();
+	private final List<Canal> canales = new ArrayList<>();
+
+	/**
+	 * Evento recibido: id, nombre (event:) y datos JSON
+	 */
+	private record Evento(String id, String nombre, String datos) {
+	}
+
+	/**
+	 * Conexión abierta al canal; un hilo interpreta las líneas y deja los eventos en una cola
+	 */
+	private static final class Canal {
+
+		private final BlockingQueue<Evento> eventos = new LinkedBlockingQueue<>();
+		private final CountDownLatch conectado = new CountDownLatch(1);
+		private volatile Stream<String> lineas;
+
+		void leer(HttpResponse<Stream<String>> respuesta) {
+			lineas = respuesta.body();
+			conectado.countDown();
+			String id = null;
+			String nombre = null;
+			StringBuilder datos = new StringBuilder();
+			try {
+				for (String linea : (Iterable<String>) lineas::iterator) {
+					if (linea.isEmpty()) {
+						if (nombre != null) {
+							eventos.add(new Evento(id, nombre, datos.toString()));
+						}
+						id = null;
+						nombre = null;
+						datos.setLength(0);
+					} else if (linea.startsWith("id:")) {
+						id = linea.substring(3);
+					} else if (linea.startsWith("event:")) {
+						nombre = linea.substring(6);
+					} else if (linea.startsWith("data:")) {
+						datos.append(linea.substring(5));
+					}
+				}
+			} catch (RuntimeException e) {
+				// La conexión se cerró desde la prueba
+			}
+		}
+
+		Evento siguiente() throws InterruptedException {
+			Evento evento = eventos.poll(5, TimeUnit.SECONDS);
+			assertThat(evento).as("evento recibido").isNotNull();
+			return evento;
+		}
+
+		void cerrar() {
+			if (lineas != null) {
+				lineas.close();
+			}
+		}
+	}
+
+	@BeforeEach
+	void preparar() {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni(DNI);
+		paciente.setPacNombre("Lucía");
+		paciente.setPacApellidoPaterno("Ñahui");
+		pacienteRepository.save(paciente);
+
+		for (String cmp : List.of(CMP, OTRO_CMP)) {
+			Medico medico = new Medico();
+			medico.setMedCmp(cmp);
+			medico.setMedNombre("Andrés");
+			medico.setMedApellidos("Cáceres " + cmp);
+			medico.setEspeNombre("Medicina General");
+			medicoRepository.save(medico);
+		}
+	}
+
+	@AfterEach
+	void limpiar() {
+		canales.forEach(Canal::cerrar);
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void soloLlegaLoDelMedicoSuscrito() throws Exception {
+		Canal canal = abrir("medCmp=" + CMP, null);
+
+		historiaClinicaService.registrar(historia(OTRO_CMP, "Lumbalgia mecánica"));
+		Long histId = historiaClinicaService.registrar(historia(CMP, "Faringitis aguda")).getHistId();
+
+		Evento creada = canal.siguiente();
+		assertThat(creada.nombre()).isEqualTo("creada");
+		JsonNode datos = objectMapper.readTree(creada.datos());
+		assertThat(datos.get("histId").asLong()).isEqualTo(histId);
+		assertThat(datos.get("historia").get("pacNombreCompleto").asText()).isEqualTo("Lucía Ñahui");
+
+		// Al pasar la historia a otro médico, el anterior recibe la actualización para quitarla de su vista
+		historiaClinicaService.actualizar(histId, historia(OTRO_CMP, "Faringitis bacteriana"), null);
+		Evento actualizada = canal.siguiente();
+		assertThat(actualizada.nombre()).isEqualTo("actualizada");
+		assertThat(objectMapper.readTree(actualizada.datos()).get("historia").get("medCmp").asText()).isEqualTo(OTRO_CMP);
+
+		historiaClinicaService.eliminar(histId);
+		Long otraId = historiaClinicaService.registrar(historia(CMP, "Conjuntivitis viral")).getHistId();
+		Evento siguiente = canal.siguiente();
+		assertThat(siguiente.nombre()).isEqualTo("creada");
+		assertThat(objectMapper.readTree(siguiente.datos()).get("histId").asLong()).isEqualTo(otraId);
+	}
+
+	@Test
+	void seReanudaDesdeElUltimoEventoRecibido() throws Exception {
+		Canal canal = abrir("pacDni=" + DNI, null);
+		historiaClinicaService.registrar(historia(CMP, "Control de rutina 1"));
+		Evento primero = canal.siguiente();
+		canal.cerrar();
+
+		Long segundaId = historiaClinicaService.registrar(historia(CMP, "Control de rutina 2")).getHistId();
+		historiaClinicaService.eliminar(segundaId);
+
+		Canal reconectado = abrir("pacDni=" + DNI, primero.id());
+		Evento creada = reconectado.siguiente();
+		Evento eliminada = reconectado.siguiente();
+		assertThat(creada.nombre()).isEqualTo("creada");
+		assertThat(eliminada.nombre()).isEqualTo("eliminada");
+		assertThat(objectMapper.readTree(eliminada.datos()).get("histId").asLong()).isEqualTo(segundaId);
+		assertThat(objectMapper.readTree(eliminada.datos()).has("historia")).isFalse();
+
+		// Un ID desconocido (por ejemplo, de antes de reiniciar el servidor) pide recargar el listado
+		Evento reinicio = abrir("pacDni=" + DNI, "xyz-15").siguiente();
+		assertThat(reinicio.nombre()).isEqualTo("reinicio");
+		assertThat(reinicio.id()).isEqualTo(eliminada.id());
+	}
+
+	@Test
+	void sinFiltroRespondeSolicitudIncorrecta() throws Exception {
+		HttpResponse<String> respuesta = cliente.send(
+			HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/historias-clinicas/eventos")).build(),
+			HttpResponse.BodyHandlers.ofString());
+
+		assertThat(respuesta.statusCode()).isEqualTo(400);
+		assertThat(respuesta.body()).contains("medCmp o pacDni");
+	}
+
+	@Test
+	void suscripcionesSimultaneasNoSuperanElMaximo() throws Exception {
+		EventosHistoriaService eventos = servicioConMaximo(3);
+		CountDownLatch salida = new CountDownLatch(1);
+		List<Future<Boolean>> intentos = new ArrayList<>();
+		try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < 20; i++) {
+				intentos.add(hilos.submit(() -> {
+					salida.await();
+					try {
+						eventos.suscribir(CMP, null, null);
+						return true;
+					} catch (ResponseStatusException e) {
+						return false;
+					}
+				}));
+			}
+			salida.countDown();
+		}
+
+		long aceptadas = 0;
+		for (Future<Boolean> intento : intentos) {
+			aceptadas += intento.get() ? 1 : 0;
+		}
+		assertThat(aceptadas).isEqualTo(3);
+		assertThat(eventos.contarSuscriptores()).isEqualTo(3);
+
+		// stop() cierra las conexiones y devuelve sus cupos
+		eventos.stop();
+		assertThat(eventos.contarSuscriptores()).isZero();
+		eventos.start();
+		eventos.suscribir(CMP, null, null);
+		eventos.stop();
+	}
+
+	@Test
+	void trasDetenerseYReiniciarseSigueEnviando() {
+		EventosHistoriaService eventos = servicioConMaximo(10);
+		eventos.start();
+		eventos.stop();
+		eventos.start();
+		try {
+			eventos.suscribir(CMP, null, null);
+			assertThat(eventos.contarSuscriptores()).isEqualTo(1);
+			assertThatCode(() -> eventos.publicar(new CambioHistoriaClinica(
+				CambioHistoriaClinica.Tipo.ELIMINADA, 1L, null, Set.of(DNI), Set.of(CMP))))
+				.doesNotThrowAnyException();
+		} finally {
+			eventos.stop();
+		}
+	}
+
+	private EventosHistoriaService servicioConMaximo(int maxSuscriptores) {
+		return new EventosHistoriaService(objectMapper, new SimpleMeterRegistry(), 256, 1000, maxSuscriptores,
+			Duration.ofMinutes(30), Duration.ofSeconds(15), Duration.ofSeconds(3));
+	}
+
+	private Canal abrir(String filtro, String ultimoEventoId) throws Exception {
+		HttpRequest.Builder peticion = HttpRequest.newBuilder(
+				URI.create("http://localhost:" + puerto + "/api/historias-clinicas/eventos?" + filtro))
+			.header("Accept", "text/event-stream");
+		if (ultimoEventoId != null) {
+			peticion.header("Last-Event-ID", ultimoEventoId);
+		}
+
+		Canal canal = new Canal();
+		canales.add(canal);
+		cliente.sendAsync(peticion.build(), HttpResponse.BodyHandlers.ofLines())
+			.thenAccept(respuesta -> Thread.ofVirtual().start(() -> canal.leer(respuesta)));
+		// Los encabezados llegan cuando el servidor ya registró al suscriptor
+		assertThat(canal.conectado.await(5, TimeUnit.SECONDS)).isTrue();
+		return canal;
+	}
+
+	private static HistoriaClinicaDTO historia(String medCmp, String diagnostico) {
+		return new HistoriaClinicaDTO(null, DNI, medCmp, LocalDate.of(2025, 8, 1), diagnostico,
+			null, "Reposo e hidratación");
+	}
+}
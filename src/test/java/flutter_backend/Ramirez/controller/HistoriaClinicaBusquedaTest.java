@@ -0,0 +1,145 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import flutter_backend.Ramirez.service.HistoriaClinicaBusquedaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica la búsqueda de texto completo: coincidencia sin tildes y por raíz,
+ * orden por relevancia, paginación y sincronización del índice al eliminar
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HistoriaClinicaBusquedaTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private HistoriaClinicaBusquedaService historiaClinicaBusquedaService;
+
+	private Paciente paciente;
+	private Medico medico;
+	private Long historiaNeumoniaId;
+
+	@BeforeEach
+	void preparar() throws Exception {
+		// Otras clases de prueba borran con deleteAllInBatch, que no pasa por el índice
+		historiaClinicaBusquedaService.reindexar();
+
+		paciente = new Paciente();
+		paciente.setPacDni("20000001");
+		paciente.setPacNombre("Rosa");
+		paciente.setPacApellidoPaterno("Huamán");
+		paciente = pacienteRepository.save(paciente);
+
+		medico = new Medico();
+		medico.setMedCmp("60001");
+		medico.setMedNombre("Jorge");
+		medico.setMedApellidos("Salas Vega");
+		medico.setEspeNombre("Neumología");
+		medico = medicoRepository.save(medico);
+
+		historiaNeumoniaId = guardar("Neumonía adquirida en la comunidad", null, "Amoxicilina por siete días").getHistId();
+		guardar("Control de hipertensión arterial", "Paciente refiere antecedente de neumonía", "Enalapril diario");
+		guardar("Gastritis crónica", null, "Omeprazol en ayunas");
+	}
+
+	@AfterEach
+	void limpiar() throws Exception {
+		historiaClinicaRepository.deleteAll();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void encuentraSinTildesYPorRaiz() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/buscar").param("q", "neumonias"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(2))
+			.andExpect(jsonPath("$.total").value(2))
+			.andExpect(jsonPath("$.totalExact").value(true))
+			.andExpect(jsonPath("$.data[0].pacDni").value("20000001"));
+
+		mockMvc.perform(get("/api/historias-clinicas/buscar").param("q", "HIPERTENSION"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.data[0].histDiagnostico", containsString("hipertensión")));
+	}
+
+	@Test
+	void ordenaPorRelevanciaPriorizandoElDiagnostico() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/buscar").param("q", "neumonía"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data[0].histId").value(historiaNeumoniaId));
+	}
+
+	@Test
+	void paginaLosResultados() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/buscar").param("q", "neumonia").param("size", "1"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.hasMore").value(true));
+
+		mockMvc.perform(get("/api/historias-clinicas/buscar").param("q", "neumonia").param("size", "1").param("page", "1"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(1))
+			.andExpect(jsonPath("$.hasMore").value(false));
+	}
+
+	@Test
+	void eliminarQuitaLaHistoriaDelIndice() throws Exception {
+		mockMvc.perform(delete("/api/historias-clinicas/{id}", historiaNeumoniaId))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/historias-clinicas/buscar").param("q", "amoxicilina"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(0))
+			.andExpect(jsonPath("$.total").value(0));
+	}
+
+	@Test
+	void rechazaTextoVacio() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/buscar").param("q", " "))
+			.andExpect(status().isBadRequest());
+	}
+
+	private HistoriaClinica guardar(String diagnostico, String analisis, String tratamiento) {
+		HistoriaClinica historia = new HistoriaClinica();
+		historia.setPaciente(paciente);
+		historia.setMedico(medico);
+		historia.setHistFechaAtencion(LocalDate.of(2025, 3, 1));
+		historia.setHistDiagnostico(diagnostico);
+		historia.setHistAnalisis(analisis);
+		historia.setHistTratamiento(tratamiento);
+		return historiaClinicaRepository.save(historia);
+	}
+}
@@ -0,0 +1,175 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica view=summary y fields= en los listados de historias clínicas:
+ * solo se devuelven y se consultan los campos pedidos, y los nombres completos guardados siguen a las ediciones
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HistoriaClinicaCamposTest {
+
+	private static final String DNI = "40000001";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void preparar() {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni(DNI);
+		paciente.setPacNombre("Rosa");
+		paciente.setPacApellidoPaterno("Quispe");
+		paciente.setPacApellidoMaterno("Huamán");
+		paciente = pacienteRepository.save(paciente);
+
+		Medico medico = new Medico();
+		medico.setMedCmp("80001");
+		medico.setMedNombre("Jorge");
+		medico.setMedApellidos("Salas Vega");
+		medico.setEspeNombre("Cardiología");
+		medico = medicoRepository.save(medico);
+
+		for (int dia = 1; dia <= 3; dia++) {
+			HistoriaClinica historia = new HistoriaClinica();
+			historia.setPaciente(paciente);
+			historia.setMedico(medico);
+			historia.setHistFechaAtencion(LocalDate.of(2025, 3, dia));
+			historia.setHistDiagnostico("Hipertensión arterial control " + dia);
+			historia.setHistAnalisis("Presión 140/90");
+			historia.setHistTratamiento("Enalapril 10 mg");
+			historiaClinicaRepository.save(historia);
+		}
+	}
+
+	@AfterEach
+	void limpiar() {
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void vistaResumenNoConsultaNiDevuelveLosCamposDeTexto() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		mockMvc.perform(get("/api/historias-clinicas/paciente/{pacDni}", DNI).param("view", "summary"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(3))
+			.andExpect(jsonPath("$.data[0].histFechaAtencion").value("2025-03-03"))
+			.andExpect(jsonPath("$.data[0].pacNombreCompleto").value("Rosa Quispe Huamán"))
+			.andExpect(jsonPath("$.data[0].medNombreCompleto").value("Jorge Salas Vega"))
+			.andExpect(jsonPath("$.data[0].medEspecialidad").value("Cardiología"))
+			.andExpect(jsonPath("$.data[0].histDiagnostico").doesNotExist())
+			.andExpect(jsonPath("$.data[0].histAnalisis").doesNotExist())
+			.andExpect(jsonPath("$.data[0].histTratamiento").doesNotExist())
+			.andExpect(jsonPath("$.data[0].pacTelefono").doesNotExist());
+
+		assertThat(statistics.getQueries())
+			.isNotEmpty()
+			.noneMatch(consulta -> consulta.contains("histDiagnostico")
+				|| consulta.contains("histAnalisis")
+				|| consulta.contains("histTratamiento"));
+	}
+
+	@Test
+	void camposPedidosIncluyenSiempreElCursor() throws Exception {
+		Long primerId = historiaClinicaRepository.findAll().stream()
+			.map(HistoriaClinica::getHistId)
+			.min(Long::compare)
+			.orElseThrow();
+
+		mockMvc.perform(get("/api/historias-clinicas")
+				.param("limit", "2")
+				.param("fields", "histFechaAtencion, histDiagnostico"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(2))
+			.andExpect(jsonPath("$.hasMore").value(true))
+			.andExpect(jsonPath("$.nextCursor").value(primerId + 1))
+			.andExpect(jsonPath("$.data[0].histId").value(primerId))
+			.andExpect(jsonPath("$.data[0].histDiagnostico").value("Hipertensión arterial control 1"))
+			.andExpect(jsonPath("$.data[0].histAnalisis").doesNotExist())
+			.andExpect(jsonPath("$.data[0].medCmp").doesNotExist());
+	}
+
+	@Test
+	void sinVistaNiCamposSeMantieneLaRespuestaCompleta() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/medico/{medCmp}", "80001"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data[0].histTratamiento").value("Enalapril 10 mg"))
+			.andExpect(jsonPath("$.data[0].pacTelefono").hasJsonPath());
+	}
+
+	@Test
+	void nombresCompletosGuardadosSeActualizanAlEditar() throws Exception {
+		mockMvc.perform(put("/api/pacientes/{dni}", DNI)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacNombre\":\"Rosa María\",\"pacApellidoPaterno\":\"Quispe\"}"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data.nombreCompleto").value("Rosa María Quispe"));
+		mockMvc.perform(put("/api/medicos/{cmp}", "80001")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"medNombre\":\"Jorge Luis\",\"medApellidos\":\"Salas Vega\",\"espeNombre\":\"Cardiología\"}"))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/historias-clinicas/paciente/{pacDni}", DNI).param("view", "summary"))
+			.andExpect(jsonPath("$.data[0].pacNombreCompleto").value("Rosa María Quispe"))
+			.andExpect(jsonPath("$.data[0].medNombreCompleto").value("Jorge Luis Salas Vega"));
+		mockMvc.perform(get("/api/historias-clinicas/medico/{medCmp}", "80001"))
+			.andExpect(jsonPath("$.data[0].pacNombreCompleto").value("Rosa María Quispe"))
+			.andExpect(jsonPath("$.data[0].medNombreCompleto").value("Jorge Luis Salas Vega"));
+	}
+
+	@Test
+	void campoDesconocidoRespondeSolicitudIncorrecta() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/fechas")
+				.param("inicio", "2025-03-01")
+				.param("fin", "2025-03-31")
+				.param("fields", "histFechaAtencion,contrasena"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.message").value(containsString("contrasena")));
+
+		mockMvc.perform(get("/api/historias-clinicas").param("view", "compacta"))
+			.andExpect(status().isBadRequest());
+	}
+}
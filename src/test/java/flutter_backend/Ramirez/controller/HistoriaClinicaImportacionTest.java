@@ -0,0 +1,138 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica la carga masiva de historias clínicas en formato JSON y NDJSON
+ */
+@SpringBootTest(properties = "clinica.importacion.tamano-lote=50")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HistoriaClinicaImportacionTest {
+
+	private static final String FILA = """
+		{"pacDni":"%s","medCmp":"%s","histFechaAtencion":"2025-03-01","histDiagnostico":"Diagnóstico de prueba","histTratamiento":"Tratamiento de prueba"}""";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void preparar() {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni("20000000");
+		paciente.setPacNombre("Carmen");
+		paciente.setPacApellidoPaterno("Flores");
+		pacienteRepository.save(paciente);
+
+		Medico medico = new Medico();
+		medico.setMedCmp("60000");
+		medico.setMedNombre("Jorge");
+		medico.setMedApellidos("Salas");
+		medico.setEspeNombre("Pediatría");
+		medicoRepository.save(medico);
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void limpiar() {
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void importaArregloJsonEnLotes() throws Exception {
+		StringJoiner cuerpo = new StringJoiner(",", "[", "]");
+		for (int i = 0; i < 120; i++) {
+			cuerpo.add(FILA.formatted("20000000", "60000"));
+		}
+
+		String respuesta = mockMvc.perform(post("/api/historias-clinicas/lote")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo.toString()))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+			.andReturn().getResponse().getContentAsString();
+
+		assertThat(respuesta.lines()).hasSize(120).allMatch(linea -> linea.contains("\"CREADA\""));
+		assertThat(historiaClinicaRepository.count()).isEqualTo(120);
+		// 3 lotes: validación de referencias, secuencia e INSERT reutilizan pocas sentencias preparadas
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+	}
+
+	@Test
+	void importaNdjsonInformandoFilasRechazadas() throws Exception {
+		String cuerpo = String.join("\n",
+			FILA.formatted("20000000", "60000"),
+			FILA.formatted("99999999", "60000"),
+			FILA.formatted("20000000", "99999"),
+			"{\"pacDni\":\"20000000\",\"medCmp\":\"60000\",\"histFechaAtencion\":\"2025-03-01\",\"histDiagnostico\":\"corto\",\"histTratamiento\":\"Tratamiento de prueba\"}");
+
+		String respuesta = mockMvc.perform(post("/api/historias-clinicas/lote")
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.content(cuerpo))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+
+		assertThat(respuesta.lines()).hasSize(4);
+		assertThat(respuesta.lines().toList().get(0)).contains("\"indice\":0", "\"CREADA\"");
+		assertThat(respuesta.lines().toList().get(1)).contains("\"indice\":1", "\"RECHAZADA\"", "Paciente no encontrado");
+		assertThat(respuesta.lines().toList().get(2)).contains("\"indice\":2", "\"RECHAZADA\"", "Médico no encontrado");
+		assertThat(respuesta.lines().toList().get(3)).contains("\"indice\":3", "\"RECHAZADA\"", "histDiagnostico");
+		assertThat(historiaClinicaRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	void detieneLaCargaAnteJsonInvalido() throws Exception {
+		String cuerpo = FILA.formatted("20000000", "60000") + "\n{\"pacDni\": ";
+
+		String respuesta = mockMvc.perform(post("/api/historias-clinicas/lote")
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.content(cuerpo))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+
+		assertThat(respuesta.lines()).hasSize(2);
+		assertThat(respuesta.lines().toList().get(1)).contains("\"indice\":1", "JSON inválido");
+		assertThat(historiaClinicaRepository.count()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,225 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica la cantidad de sentencias SQL por endpoint de historias clínicas
+ * para evitar que vuelvan a aparecer consultas N+1 sobre paciente y médico
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HistoriaClinicaSentenciasTest {
+
+	private static final int CANTIDAD_PACIENTES = 4;
+	private static final int CANTIDAD_MEDICOS = 4;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Long primeraHistoriaId;
+
+	@BeforeEach
+	void preparar() {
+		List<Paciente> pacientes = new java.util.ArrayList<>();
+		for (int i = 0; i < CANTIDAD_PACIENTES; i++) {
+			Paciente paciente = new Paciente();
+			paciente.setPacDni("1000000" + i);
+			paciente.setPacNombre("Paciente" + i);
+			paciente.setPacApellidoPaterno("Paterno" + i);
+			paciente.setPacApellidoMaterno("Materno" + i);
+			pacientes.add(pacienteRepository.save(paciente));
+		}
+
+		List<Medico> medicos = new java.util.ArrayList<>();
+		for (int i = 0; i < CANTIDAD_MEDICOS; i++) {
+			Medico medico = new Medico();
+			medico.setMedCmp("5000" + i);
+			medico.setMedNombre("Medico" + i);
+			medico.setMedApellidos("Apellidos" + i);
+			medico.setEspeNombre("Especialidad" + i);
+			medicos.add(medicoRepository.save(medico));
+		}
+
+		// Cada paciente es atendido por todos los médicos
+		for (Paciente paciente : pacientes) {
+			for (Medico medico : medicos) {
+				HistoriaClinica historia = new HistoriaClinica();
+				historia.setPaciente(paciente);
+				historia.setMedico(medico);
+				historia.setHistFechaAtencion(LocalDate.of(2025, 1, 10));
+				historia.setHistDiagnostico("Diagnóstico de prueba");
+				historia.setHistTratamiento("Tratamiento de prueba");
+				HistoriaClinica guardada = historiaClinicaRepository.save(historia);
+				if (primeraHistoriaId == null) {
+					primeraHistoriaId = guardada.getHistId();
+				}
+			}
+		}
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@AfterEach
+	void limpiar() {
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void listarTodasEjecutaUnaSentencia() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(CANTIDAD_PACIENTES * CANTIDAD_MEDICOS));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void streamTodasEjecutaUnaSentencia() throws Exception {
+		MvcResult resultado = mockMvc.perform(get("/api/historias-clinicas/stream"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		String cuerpo = mockMvc.perform(asyncDispatch(resultado))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+			.andReturn().getResponse().getContentAsString();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		// Una línea por historia, cada una terminada en salto de línea y sin líneas en blanco
+		assertThat(cuerpo).endsWith("}\n");
+		assertThat(cuerpo.split("\n")).hasSize(CANTIDAD_PACIENTES * CANTIDAD_MEDICOS).doesNotContain("");
+	}
+
+	@Test
+	void streamSinHistoriasDevuelveCuerpoVacio() throws Exception {
+		historiaClinicaRepository.deleteAllInBatch();
+		MvcResult resultado = mockMvc.perform(get("/api/historias-clinicas/stream"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(resultado))
+			.andExpect(status().isOk())
+			.andExpect(content().string(""));
+	}
+
+	@Test
+	void obtenerPorIdEjecutaDosSentencias() throws Exception {
+		// Una para calcular la ETag con las versiones de fila y otra para la historia
+		mockMvc.perform(get("/api/historias-clinicas/{id}", primeraHistoriaId))
+			.andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void buscarPorPacienteEjecutaDosSentencias() throws Exception {
+		// Una para calcular la ETag con las versiones de fila y otra para las historias
+		mockMvc.perform(get("/api/historias-clinicas/paciente/{pacDni}", "10000000"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(CANTIDAD_MEDICOS));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void buscarPorMedicoEjecutaUnaSentencia() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/medico/{medCmp}", "50000"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(CANTIDAD_PACIENTES));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void buscarPorRangoFechasEjecutaUnaSentencia() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/fechas")
+				.param("inicio", "2025-01-01")
+				.param("fin", "2025-01-31"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.count").value(CANTIDAD_PACIENTES * CANTIDAD_MEDICOS));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void actualizarNoCargaAsociacionesPorSeparado() throws Exception {
+		String cuerpo = """
+			{
+			  "pacDni": "10000000",
+			  "medCmp": "50000",
+			  "histFechaAtencion": "2025-01-11",
+			  "histDiagnostico": "Diagnóstico actualizado",
+			  "histTratamiento": "Tratamiento actualizado"
+			}
+			""";
+		mockMvc.perform(put("/api/historias-clinicas/{id}", primeraHistoriaId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isOk());
+		// Una consulta con paciente y médico incluidos, el UPDATE, dos sentencias para mover la atención
+		// en el resumen diario (cambia la fecha) y la consulta de versiones para la nueva ETag
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+	}
+
+	@Test
+	void consultasDeEntidadesTraenAsociacionesEnUnaSentencia() {
+		transactionTemplate.executeWithoutResult(estado -> {
+			List<HistoriaClinica> historias = historiaClinicaRepository.findByFechaAtencionBetween(
+				LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+			historias.forEach(historia -> {
+				historia.getPaciente().getNombreCompleto();
+				historia.getMedico().getNombreCompletoConEspecialidad();
+			});
+		});
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void historiaSeparadaSePuedeImprimirYCompararSinCargarAsociaciones() {
+		HistoriaClinica historia = historiaClinicaRepository.findById(primeraHistoriaId).orElseThrow();
+		HistoriaClinica mismaHistoria = historiaClinicaRepository.findById(primeraHistoriaId).orElseThrow();
+		statistics.clear();
+
+		assertThat(historia.toString()).contains("histId=" + primeraHistoriaId).doesNotContain("paciente");
+		assertThat(historia).isEqualTo(mismaHistoria).hasSameHashCodeAs(mismaHistoria);
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+}
@@ -0,0 +1,219 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica la cabecera Idempotency-Key en los POST de creación: los reintentos reciben la respuesta
+ * original sin repetir la escritura, también desde la tabla claves_idempotencia, y el registro
+ * de pacientes y médicos responde 409 ante un duplicado con un único INSERT
+ * Una reserva abandonada (la petición original nunca guardó su respuesta) solo bloquea la clave hasta que vence
+ */
+@SpringBootTest(properties = {
+	"clinica.idempotencia.persistente=true",
+	"clinica.idempotencia.tamano-maximo-cuerpo=4KB"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotenciaTest {
+
+	private static final String HISTORIA = """
+		{"pacDni":"64000001","medCmp":"64001","histFechaAtencion":"2025-09-01",
+		 "histDiagnostico":"Gastroenteritis aguda","histTratamiento":"Sales de rehidratación oral"}""";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@AfterEach
+	void limpiar() {
+		jdbcTemplate.update("DELETE FROM claves_idempotencia");
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void reintentoDeHistoriaNoLaDuplica() throws Exception {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni("64000001");
+		paciente.setPacNombre("Tomás");
+		paciente.setPacApellidoPaterno("Ccori");
+		pacienteRepository.save(paciente);
+		Medico medico = new Medico();
+		medico.setMedCmp("64001");
+		medico.setMedNombre("Inés");
+		medico.setMedApellidos("Paredes Ruiz");
+		medico.setEspeNombre("Gastroenterología");
+		medicoRepository.save(medico);
+
+		MockHttpServletResponse original = mockMvc.perform(post("/api/historias-clinicas")
+				.header("Idempotency-Key", "historia-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(HISTORIA))
+			.andExpect(status().isCreated())
+			.andExpect(header().doesNotExist("Idempotent-Replayed"))
+			.andExpect(header().exists(HttpHeaders.LOCATION))
+			.andExpect(header().exists(HttpHeaders.ETAG))
+			.andReturn().getResponse();
+
+		// El reintento recibe también las cabeceras originales
+		MockHttpServletResponse repetida = mockMvc.perform(post("/api/historias-clinicas")
+				.header("Idempotency-Key", "historia-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(HISTORIA))
+			.andExpect(status().isCreated())
+			.andExpect(header().string("Idempotent-Replayed", "true"))
+			.andExpect(header().string(HttpHeaders.LOCATION, original.getHeader(HttpHeaders.LOCATION)))
+			.andExpect(header().string(HttpHeaders.ETAG, original.getHeader(HttpHeaders.ETAG)))
+			.andReturn().getResponse();
+
+		assertThat(repetida.getContentAsString()).isEqualTo(original.getContentAsString());
+		assertThat(historiaClinicaRepository.count()).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForObject(
+			"SELECT IDE_Estado FROM claves_idempotencia WHERE IDE_Clave = 'historia-1'", Integer.class)).isEqualTo(201);
+
+		// La misma clave con otro cuerpo es un error del cliente, no un reintento
+		mockMvc.perform(post("/api/historias-clinicas")
+				.header("Idempotency-Key", "historia-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(HISTORIA.replace("Gastroenteritis", "Colitis")))
+			.andExpect(status().isUnprocessableEntity());
+		assertThat(historiaClinicaRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	void pacienteDuplicadoSinClaveRespondeConflictoYConClaveSeRepite() throws Exception {
+		String cuerpo = "{\"pacDni\":\"64000002\",\"pacNombre\":\"Mónica\",\"pacApellidoPaterno\":\"Llerena\"}";
+
+		mockMvc.perform(post("/api/pacientes")
+				.header("Idempotency-Key", "paciente-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isCreated());
+
+		mockMvc.perform(post("/api/pacientes")
+				.header("Idempotency-Key", "paciente-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isCreated())
+			.andExpect(header().string("Idempotent-Replayed", "true"))
+			.andExpect(jsonPath("$.data.pacNombre").value("Mónica"));
+
+		mockMvc.perform(post("/api/pacientes")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isConflict())
+			.andExpect(jsonPath("$.message").value("Ya existe un paciente con el DNI: 64000002"));
+	}
+
+	@Test
+	void respuestaGuardadaEnLaTablaSeRepiteSinRegistrar() throws Exception {
+		String cuerpo = "{\"medCmp\":\"64002\",\"medNombre\":\"Raúl\",\"medApellidos\":\"Soto\",\"espeNombre\":\"Pediatría\"}";
+		String huella = huella(cuerpo);
+		// Como si otra instancia hubiera atendido la petición original
+		jdbcTemplate.update("""
+			INSERT INTO claves_idempotencia (IDE_Alcance, IDE_Clave, IDE_Huella, IDE_Estado, IDE_Tipo_Contenido, IDE_Cuerpo, IDE_Expira)
+			VALUES ('POST /api/medicos', 'medico-1', ?, 201, 'application/json', '{"success":true,"message":"original"}', ?)""",
+			huella, Timestamp.from(Instant.now().plus(1, ChronoUnit.HOURS)));
+
+		mockMvc.perform(post("/api/medicos")
+				.header("Idempotency-Key", "medico-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isCreated())
+			.andExpect(header().string("Idempotent-Replayed", "true"))
+			.andExpect(jsonPath("$.message").value("original"));
+		assertThat(medicoRepository.existsById("64002")).isFalse();
+
+		mockMvc.perform(post("/api/medicos")
+				.header("Idempotency-Key", " ")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void reservaAbandonadaLaTomaElSiguienteReintento() throws Exception {
+		String cuerpo = "{\"medCmp\":\"64003\",\"medNombre\":\"Julia\",\"medApellidos\":\"Rojas\",\"espeNombre\":\"Neurología\"}";
+		String sql = """
+			INSERT INTO claves_idempotencia (IDE_Alcance, IDE_Clave, IDE_Huella, IDE_Expira)
+			VALUES ('POST /api/medicos', ?, ?, ?)""";
+		// Reserva vigente: la petición original podría seguir en curso
+		jdbcTemplate.update(sql, "medico-en-curso", huella(cuerpo), Timestamp.from(Instant.now().plus(1, ChronoUnit.MINUTES)));
+		// Reserva vencida: la instancia que la tomó se cayó antes de guardar la respuesta
+		jdbcTemplate.update(sql, "medico-abandonado", huella(cuerpo), Timestamp.from(Instant.now().minus(1, ChronoUnit.SECONDS)));
+
+		mockMvc.perform(post("/api/medicos")
+				.header("Idempotency-Key", "medico-en-curso")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isConflict());
+		assertThat(medicoRepository.existsById("64003")).isFalse();
+
+		mockMvc.perform(post("/api/medicos")
+				.header("Idempotency-Key", "medico-abandonado")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isCreated())
+			.andExpect(header().doesNotExist("Idempotent-Replayed"));
+		assertThat(medicoRepository.existsById("64003")).isTrue();
+
+		// Al guardar la respuesta, la fila pasa a vencer con la vigencia de las claves (24 h), no con la reserva
+		Timestamp expira = jdbcTemplate.queryForObject(
+			"SELECT IDE_Expira FROM claves_idempotencia WHERE IDE_Clave = 'medico-abandonado'", Timestamp.class);
+		assertThat(expira.toInstant()).isAfter(Instant.now().plus(1, ChronoUnit.HOURS));
+	}
+
+	@Test
+	void cuerpoDemasiadoGrandeSeRechazaSinReservarLaClave() throws Exception {
+		String cuerpo = "{\"pacDni\":\"64000003\",\"pacNombre\":\"" + "a".repeat(5000) + "\"}";
+
+		mockMvc.perform(post("/api/pacientes")
+				.header("Idempotency-Key", "paciente-grande")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(cuerpo))
+			.andExpect(status().isPayloadTooLarge());
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM claves_idempotencia", Integer.class)).isZero();
+	}
+
+	private static String huella(String cuerpo) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(cuerpo.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,137 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.HistoriaClinica;
+import flutter_backend.Ramirez.entity.Medico;
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.repository.HistoriaClinicaRepository;
+import flutter_backend.Ramirez.repository.MedicoRepository;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import flutter_backend.Ramirez.service.LineaTiempoPacienteService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica la línea de tiempo del paciente: paginación de la más reciente a la más antigua,
+ * respuesta desde la caché e invalidación por las escrituras
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LineaTiempoPacienteTest {
+
+	private static final String DNI = "62000001";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private HistoriaClinicaRepository historiaClinicaRepository;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@Autowired
+	private MedicoRepository medicoRepository;
+
+	@Autowired
+	private LineaTiempoPacienteService lineaTiempoPacienteService;
+
+	@BeforeEach
+	void preparar() {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni(DNI);
+		paciente.setPacNombre("Carmen");
+		paciente.setPacApellidoPaterno("Flores");
+		paciente = pacienteRepository.save(paciente);
+
+		Medico medico = new Medico();
+		medico.setMedCmp("62001");
+		medico.setMedNombre("Óscar");
+		medico.setMedApellidos("Ríos Luna");
+		medico.setEspeNombre("Medicina Interna");
+		medico = medicoRepository.save(medico);
+
+		for (int dia = 1; dia <= 5; dia++) {
+			HistoriaClinica historia = new HistoriaClinica();
+			historia.setPaciente(paciente);
+			historia.setMedico(medico);
+			historia.setHistFechaAtencion(LocalDate.of(2025, 5, dia));
+			historia.setHistDiagnostico("Control de seguimiento " + dia);
+			historia.setHistTratamiento("Indicaciones generales " + dia);
+			historiaClinicaRepository.save(historia);
+		}
+	}
+
+	@AfterEach
+	void limpiar() {
+		historiaClinicaRepository.deleteAllInBatch();
+		medicoRepository.deleteAllInBatch();
+		pacienteRepository.deleteAllInBatch();
+		lineaTiempoPacienteService.invalidarTodas();
+	}
+
+	@Test
+	void devuelvePacienteEHistoriasPaginadasDesdeLaCache() throws Exception {
+		long aciertosIniciales = lineaTiempoPacienteService.obtenerEstadisticas().hitCount();
+
+		mockMvc.perform(get("/api/pacientes/{dni}/linea-tiempo", DNI).param("size", "2"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data.paciente.pacNombre").value("Carmen"))
+			.andExpect(jsonPath("$.data.historias[0].histDiagnostico").value("Control de seguimiento 5"))
+			.andExpect(jsonPath("$.data.historias[1].histDiagnostico").value("Control de seguimiento 4"))
+			.andExpect(jsonPath("$.count").value(2))
+			.andExpect(jsonPath("$.total").value(5))
+			.andExpect(jsonPath("$.page").value(0))
+			.andExpect(jsonPath("$.hasMore").value(true));
+
+		mockMvc.perform(get("/api/pacientes/{dni}/linea-tiempo", DNI).param("page", "2").param("size", "2"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.data.historias[0].histDiagnostico").value("Control de seguimiento 1"))
+			.andExpect(jsonPath("$.hasMore").value(false));
+
+		assertThat(lineaTiempoPacienteService.obtenerEstadisticas().hitCount()).isEqualTo(aciertosIniciales + 1);
+	}
+
+	@Test
+	void escriturasInvalidanLaLineaDeTiempo() throws Exception {
+		mockMvc.perform(get("/api/pacientes/{dni}/linea-tiempo", DNI))
+			.andExpect(jsonPath("$.total").value(5));
+
+		mockMvc.perform(post("/api/historias-clinicas")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacDni\":\"" + DNI + "\",\"medCmp\":\"62001\",\"histFechaAtencion\":\"2025-05-20\","
+					+ "\"histDiagnostico\":\"Control de seguimiento 20\",\"histTratamiento\":\"Indicaciones generales 20\"}"))
+			.andExpect(status().isCreated());
+
+		mockMvc.perform(get("/api/pacientes/{dni}/linea-tiempo", DNI))
+			.andExpect(jsonPath("$.total").value(6))
+			.andExpect(jsonPath("$.data.historias[0].histDiagnostico").value("Control de seguimiento 20"));
+
+		mockMvc.perform(put("/api/medicos/{cmp}", "62001")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"medNombre\":\"Óscar\",\"medApellidos\":\"Ríos Luna\",\"espeNombre\":\"Cardiología\"}"))
+			.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/pacientes/{dni}/linea-tiempo", DNI))
+			.andExpect(jsonPath("$.data.historias[0].medEspecialidad").value("Cardiología"));
+	}
+
+	@Test
+	void pacienteInexistenteRespondeNoEncontrado() throws Exception {
+		mockMvc.perform(get("/api/pacientes/{dni}/linea-tiempo", "00000000"))
+			.andExpect(status().isNotFound());
+	}
+}
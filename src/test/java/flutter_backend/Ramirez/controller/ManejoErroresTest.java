@@ -0,0 +1,95 @@
+package flutter_backend.Ramirez.controller;
+
+import flutter_backend.Ramirez.entity.Paciente;
+import flutter_backend.Ramirez.exception.RecursoNoEncontradoException;
+import flutter_backend.Ramirez.repository.PacienteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Verifica que ManejadorGlobalExcepciones traduzca las excepciones de dominio a 404, 409 y 400
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ManejoErroresTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private PacienteRepository pacienteRepository;
+
+	@AfterEach
+	void limpiar() {
+		pacienteRepository.deleteAllInBatch();
+	}
+
+	@Test
+	void recursoInexistenteRespondeNoEncontrado() throws Exception {
+		mockMvc.perform(get("/api/historias-clinicas/{id}", 987654321L))
+			.andExpect(status().isNotFound())
+			.andExpect(jsonPath("$.success").value(false))
+			.andExpect(jsonPath("$.message").value("Historia clínica no encontrada con ID: 987654321"))
+			.andExpect(jsonPath("$.error").doesNotExist());
+
+		mockMvc.perform(get("/api/pacientes/{dni}", "00000000"))
+			.andExpect(status().isNotFound());
+
+		mockMvc.perform(delete("/api/medicos/{cmp}", "00000"))
+			.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void pacienteDuplicadoRespondeConflicto() throws Exception {
+		Paciente paciente = new Paciente();
+		paciente.setPacDni("60000001");
+		paciente.setPacNombre("Elena");
+		paciente.setPacApellidoPaterno("Vargas");
+		pacienteRepository.save(paciente);
+
+		mockMvc.perform(post("/api/pacientes")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"pacDni\":\"60000001\",\"pacNombre\":\"Elena\",\"pacApellidoPaterno\":\"Vargas\"}"))
+			.andExpect(status().isConflict())
+			.andExpect(jsonPath("$.message").value(containsString("60000001")));
+	}
+
+	@Test
+	void peticionInvalidaRespondeSolicitudIncorrecta() throws Exception {
+		mockMvc.perform(post("/api/historias-clinicas")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{}"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.message").value("Error de validación"))
+			.andExpect(jsonPath("$.errors").isNotEmpty());
+
+		mockMvc.perform(get("/api/historias-clinicas/fechas").param("inicio", "2025-01-01"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.success").value(false));
+
+		mockMvc.perform(get("/api/historias-clinicas/stream").param("view", "compacta"))
+			.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/api/estadisticas/medicos")
+				.param("inicio", "2025-02-01")
+				.param("fin", "2025-01-01"))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void excepcionesDeDominioNoCapturanLaPila() {
+		assertThat(new RecursoNoEncontradoException("x").getStackTrace()).isEmpty();
+	}
+}